@@ -0,0 +1,85 @@
+package edu.utfpr.guilhermej.sisdist.av1.concurrent;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Base para executores, contabiliza tarefas e latência de inicio, e nomeia a thread durante a execução
+ */
+public abstract class AbstractTaskExecutor implements ITaskExecutor {
+    private final LongAdder submittedTasks = new LongAdder();
+    private final LongAdder startedTasks = new LongAdder();
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder startLatency = new LongAdder();
+
+    @Override
+    public void execute(String name, Runnable task) {
+        submittedTasks.increment();
+        try {
+            dispatch(measured(name, task, System.nanoTime()));
+        } catch (RejectedExecutionException e) {
+            //Executor já encerrado, tarefas tardias são descartadas
+            completedTasks.increment();
+        }
+    }
+
+    @Override
+    public void start(String name, Runnable loop) {
+        Thread serviceThread = new Thread(loop);
+        serviceThread.setName(name);
+        serviceThread.start();
+    }
+
+    @Override
+    public long getSubmittedTasks() {
+        return submittedTasks.sum();
+    }
+
+    @Override
+    public long getCompletedTasks() {
+        return completedTasks.sum();
+    }
+
+    @Override
+    public double getMeanStartLatency() {
+        long started = startedTasks.sum();
+        return started == 0 ? 0 : (double) startLatency.sum() / started;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d submitted, %d completed, %.1f us mean start latency",
+                getMode(), getSubmittedTasks(), getCompletedTasks(), getMeanStartLatency() / 1000);
+    }
+
+    /**
+     * Executa de fato a tarefa (já instrumentada)
+     * @param task tarefa a ser executada
+     */
+    protected abstract void dispatch(Runnable task);
+
+    /**
+     * Envolve tarefa para medir latência de inicio e nomear a thread que a executa
+     * @param name nome da thread durante a tarefa
+     * @param task tarefa original
+     * @param submitted instante de submissão (nanosegundos)
+     * @return tarefa instrumentada
+     */
+    private Runnable measured(String name, Runnable task, long submitted) {
+        return () -> {
+            Thread current = Thread.currentThread();
+            String previousName = current.getName();
+            current.setName(name);
+            startLatency.add(System.nanoTime() - submitted);
+            startedTasks.increment();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            } finally {
+                completedTasks.increment();
+                current.setName(previousName);
+            }
+        };
+    }
+}
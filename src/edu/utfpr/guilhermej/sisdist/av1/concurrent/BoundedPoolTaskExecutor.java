@@ -0,0 +1,50 @@
+package edu.utfpr.guilhermej.sisdist.av1.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor com número limitado de threads de plataforma. Tarefas excedentes aguardam em fila.
+ * Obs.: tarefas que bloqueiam por muito tempo (como sessões do servidor TCP bloqueante) ocupam
+ * uma thread do conjunto durante todo esse tempo.
+ */
+public class BoundedPoolTaskExecutor extends AbstractTaskExecutor {
+    /** Tempo (ms) que threads ociosas permanecem vivas */
+    private static final long KEEP_ALIVE = 60000;
+
+    private final ExecutorService pool;
+
+    /**
+     * Construtor padrão
+     * @param maxThreads número máximo de threads
+     */
+    public BoundedPoolTaskExecutor(int maxThreads) {
+        AtomicInteger threadId = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads,
+                KEEP_ALIVE, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("Pooled Task Thread " + threadId.incrementAndGet());
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        pool = executor;
+    }
+
+    @Override
+    protected void dispatch(Runnable task) {
+        pool.execute(task);
+    }
+
+    @Override
+    public TaskExecutionMode getMode() {
+        return TaskExecutionMode.POOLED;
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,52 @@
+package edu.utfpr.guilhermej.sisdist.av1.concurrent;
+
+/**
+ * Interface para execução de trabalho assíncrono dos pares (requisições, eventos e sessões).
+ * Permite trocar a forma de execução (threads virtuais, conjunto limitado de threads ou
+ * uma thread por tarefa) sem alterar quem submete as tarefas.
+ */
+public interface ITaskExecutor {
+    /**
+     * Executa assincronamente uma tarefa
+     * @param name nome da thread enquanto executa a tarefa (para depuração)
+     * @param task tarefa a ser executada
+     */
+    void execute(String name, Runnable task);
+
+    /**
+     * Inicia um laço de serviço de longa duração (ex.: recepção de mensagens). Nunca ocupa
+     * threads de um conjunto limitado, para não esgotá-lo
+     * @param name nome da thread do serviço
+     * @param loop laço de serviço
+     */
+    void start(String name, Runnable loop);
+
+    /**
+     * Retorna modo de execução efetivamente utilizado
+     * @return modo de execução
+     */
+    TaskExecutionMode getMode();
+
+    /**
+     * Retorna número de tarefas submetidas
+     * @return número de tarefas submetidas
+     */
+    long getSubmittedTasks();
+
+    /**
+     * Retorna número de tarefas finalizadas
+     * @return número de tarefas finalizadas
+     */
+    long getCompletedTasks();
+
+    /**
+     * Retorna latência média entre submissão e inicio de execução das tarefas
+     * @return latência média em nanosegundos
+     */
+    double getMeanStartLatency();
+
+    /**
+     * Encerra executor após finalização das tarefas já submetidas
+     */
+    void shutdown();
+}
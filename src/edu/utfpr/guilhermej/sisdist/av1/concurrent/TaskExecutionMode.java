@@ -0,0 +1,13 @@
+package edu.utfpr.guilhermej.sisdist.av1.concurrent;
+
+/**
+ * Modos de execução de tarefas assíncronas disponíveis
+ */
+public enum TaskExecutionMode {
+    /** Uma thread virtual por tarefa (requer Java 21+, senão utiliza {@link #THREAD_PER_TASK}) */
+    VIRTUAL,
+    /** Conjunto limitado de threads de plataforma */
+    POOLED,
+    /** Uma nova thread de plataforma por tarefa (comportamento original) */
+    THREAD_PER_TASK
+}
@@ -0,0 +1,42 @@
+package edu.utfpr.guilhermej.sisdist.av1.concurrent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Compara os modos de execução submetendo uma rajada de tarefas que bloqueiam (simulando uma
+ * requisição unicast) e medindo tempo total, latência média de inicio e pico de threads da JVM.
+ * Uso: java ...TaskExecutorBenchmark [numero de tarefas] [bloqueio por tarefa em ms]
+ */
+public class TaskExecutorBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        long blockMillis = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        System.out.println(String.format("%d tasks, %d ms blocking each", tasks, blockMillis));
+        for (TaskExecutionMode mode : TaskExecutionMode.values()) {
+            ITaskExecutor executor = TaskExecutors.create(mode);
+            CountDownLatch done = new CountDownLatch(tasks);
+            threads.resetPeakThreadCount();
+            long start = System.nanoTime();
+            for (int i = 0; i < tasks; i++) {
+                executor.execute("Benchmark Task", () -> {
+                    try {
+                        Thread.sleep(blockMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                });
+            }
+            done.await();
+            long elapsed = System.nanoTime() - start;
+            System.out.println(String.format("%-15s requested=%-15s total=%6d ms  start latency=%10.1f us  peak JVM threads=%d",
+                    executor.getMode(), mode, elapsed / 1000000, executor.getMeanStartLatency() / 1000,
+                    threads.getPeakThreadCount()));
+            executor.shutdown();
+        }
+    }
+}
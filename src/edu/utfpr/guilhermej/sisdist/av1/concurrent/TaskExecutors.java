@@ -0,0 +1,34 @@
+package edu.utfpr.guilhermej.sisdist.av1.concurrent;
+
+/**
+ * Fábrica de executores de tarefas
+ */
+public class TaskExecutors {
+    /** Número de threads do conjunto limitado */
+    public static final int DEFAULT_POOL_SIZE = Math.max(64, 8 * Runtime.getRuntime().availableProcessors());
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * Cria executor do modo solicitado. Caso threads virtuais não sejam suportadas pela JVM,
+     * utiliza uma thread de plataforma por tarefa: as sessões bloqueiam (inclusive em esperas),
+     * e um conjunto limitado as enfileiraria sob carga
+     * @param mode modo de execução desejado
+     * @return executor criado
+     */
+    public static ITaskExecutor create(TaskExecutionMode mode) {
+        switch (mode) {
+            case VIRTUAL:
+                if (VirtualThreadTaskExecutor.isSupported())
+                    return new VirtualThreadTaskExecutor();
+                System.out.println("Virtual threads not supported by this JVM, falling back from VIRTUAL to THREAD_PER_TASK");
+                return new ThreadPerTaskExecutor();
+            case POOLED:
+                return new BoundedPoolTaskExecutor(DEFAULT_POOL_SIZE);
+            case THREAD_PER_TASK:
+            default:
+                return new ThreadPerTaskExecutor();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package edu.utfpr.guilhermej.sisdist.av1.concurrent;
+
+/**
+ * Executor que cria uma nova thread de plataforma para cada tarefa
+ */
+public class ThreadPerTaskExecutor extends AbstractTaskExecutor {
+    @Override
+    protected void dispatch(Runnable task) {
+        new Thread(task).start();
+    }
+
+    @Override
+    public TaskExecutionMode getMode() {
+        return TaskExecutionMode.THREAD_PER_TASK;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+}
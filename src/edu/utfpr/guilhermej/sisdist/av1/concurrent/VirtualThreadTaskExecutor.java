@@ -0,0 +1,69 @@
+package edu.utfpr.guilhermej.sisdist.av1.concurrent;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor que cria uma thread virtual para cada tarefa (e para cada laço de serviço).
+ * Threads virtuais são obtidas por reflexão, pois o projeto ainda compila para Java 8;
+ * verifique {@link #isSupported()} antes de construir.
+ */
+public class VirtualThreadTaskExecutor extends AbstractTaskExecutor {
+    private final ExecutorService executor;
+
+    /**
+     * Construtor padrão
+     * @throws UnsupportedOperationException caso a JVM não suporte threads virtuais
+     */
+    public VirtualThreadTaskExecutor() {
+        executor = newVirtualThreadPerTaskExecutor();
+        if (executor == null)
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or newer");
+    }
+
+    /**
+     * Verifica se a JVM atual suporta threads virtuais
+     * @return true caso sejam suportadas
+     */
+    public static boolean isSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @Override
+    protected void dispatch(Runnable task) {
+        executor.execute(task);
+    }
+
+    @Override
+    public void start(String name, Runnable loop) {
+        execute(name, loop);
+    }
+
+    @Override
+    public TaskExecutionMode getMode() {
+        return TaskExecutionMode.VIRTUAL;
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Cria, por reflexão, um executor de uma thread virtual por tarefa
+     * @return executor, ou null caso não seja suportado
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return null;
+        }
+    }
+}
@@ -35,7 +35,7 @@ public class PeerWindowController {
 
     private ObservableList<SaleItem> saleItemsList;
 
-    private Dialog<Pair<String, Float>> newSaleItemDialog = null;
+    private Dialog<Pair<String, Long>> newSaleItemDialog = null;
     private TextInputDialog searchItemDialog = null;
     private Alert itemFoundAlert = null;
     private Alert itemNotFoundAlert = null;
@@ -64,7 +64,7 @@ public class PeerWindowController {
 
     public void onCreateSaleItem(ActionEvent actionEvent) {
 
-        Optional<Pair<String,Float>> result = newSaleItemDialog.showAndWait();
+        Optional<Pair<String,Long>> result = newSaleItemDialog.showAndWait();
 
         result.ifPresent(pair -> peer.addSaleItem(
                 new SaleItem()
@@ -86,6 +86,7 @@ public class PeerWindowController {
     public void setPeer(Peer peer) {
         this.peer = peer;
         moneyLabel.setText(getMoneyText(peer.getMoney()));
+        saleItemsList.setAll(peer.getSaleItems());
         peer.addIndexerConnectionEventListener(connected -> Platform.runLater(()->{
             searchItemButton.setDisable(!connected);
             conectionLabel.setText(connected?
@@ -137,12 +138,12 @@ public class PeerWindowController {
         }));
     }
 
-    private String getMoneyText(float value) {
-        return String.format("%.02f", value);
+    private String getMoneyText(long value) {
+        return SaleItem.formatPrice(value);
     }
 
-    private Dialog<Pair<String, Float>> buildNewSaleItemDialog() {
-        Dialog<Pair<String, Float>> newSaleItemDialog = new Dialog<>();
+    private Dialog<Pair<String, Long>> buildNewSaleItemDialog() {
+        Dialog<Pair<String, Long>> newSaleItemDialog = new Dialog<>();
         newSaleItemDialog.setTitle("New Sale Item Dialog");
         newSaleItemDialog.setHeaderText("Please, enter the to be created item's description and price");
 
@@ -159,15 +160,15 @@ public class PeerWindowController {
         newSaleItemDialogDescriptionField.setText("Item Description");
         TextField newSaleItemDialogPriceField = new TextField();
         newSaleItemDialogPriceField.setPromptText("Price");
-        StringConverter<Float> stringConverter = new StringConverter<Float>() {
+        StringConverter<Long> stringConverter = new StringConverter<Long>() {
             @Override
-            public String toString(Float object) {
-                return String.format("$%1.2f", object);
+            public String toString(Long object) {
+                return "$" + SaleItem.formatPrice(object);
             }
 
             @Override
-            public Float fromString(String string) {
-                return Float.parseFloat(string.replace('$',' ').trim());
+            public Long fromString(String string) {
+                return SaleItem.parsePrice(string.replace('$',' '));
             }
         };
         UnaryOperator<TextFormatter.Change> filter = change -> {
@@ -191,7 +192,7 @@ public class PeerWindowController {
             }
             return change;
         };
-        newSaleItemDialogPriceField.setTextFormatter(new TextFormatter<>(stringConverter, 9.99F, filter));
+        newSaleItemDialogPriceField.setTextFormatter(new TextFormatter<>(stringConverter, 999L, filter));
 
         newSaleItemDialogGrid.add(new Label("Description:"), 0, 0);
         newSaleItemDialogGrid.add(newSaleItemDialogDescriptionField, 1, 0);
@@ -205,13 +206,13 @@ public class PeerWindowController {
                 .addListener((observable, oldValue, newValue) ->
                     newSaleItemDialogButton.setDisable(
                         newValue.trim().isEmpty() || newValue.matches(".*/.*" ) ||
-                        (Float) newSaleItemDialogPriceField.getTextFormatter().getValue() < 0.01f
+                        (Long) newSaleItemDialogPriceField.getTextFormatter().getValue() < 1
                     ));
 
         newSaleItemDialogPriceField.textProperty()
                 .addListener((observable, oldValue, newValue) ->
                     newSaleItemDialogButton.setDisable(
-                            stringConverter.fromString(newValue) < 0.01f ||
+                            stringConverter.fromString(newValue) < 1 ||
                             newSaleItemDialogDescriptionField.getText().trim().isEmpty() ||
                             newSaleItemDialogDescriptionField.getText().matches(".*/.*")
                     ));
@@ -222,7 +223,7 @@ public class PeerWindowController {
         newSaleItemDialog.setResultConverter( button ->
                 button.equals(newSaleItemDialogButtonType)?
                         new Pair<>(newSaleItemDialogDescriptionField.getText(),
-                                (Float)newSaleItemDialogPriceField.getTextFormatter().getValue()) : null
+                                (Long)newSaleItemDialogPriceField.getTextFormatter().getValue()) : null
         );
 
         newSaleItemDialog.setContentText("Please enter your name:");
@@ -266,8 +267,8 @@ public class PeerWindowController {
     }
 
     private Optional<ButtonType> showItemFoundAlertAndWait(Alert itemProposalAlert, SaleItem item, PeerOpponent seller){
-        itemProposalAlert.setHeaderText(String.format("Found item \"%s\" for $%01.02f with %s:%s.",
-                item.getDescription(), item.getPrice(), seller.getIpAddress(), seller.getPortTcp()));
+        itemProposalAlert.setHeaderText(String.format("Found item \"%s\" for $%s with %s:%s.",
+                item.getDescription(), SaleItem.formatPrice(item.getPrice()), seller.getIpAddress(), seller.getPortTcp()));
         return itemProposalAlert.showAndWait();
     }
 
@@ -280,14 +281,14 @@ public class PeerWindowController {
     }
 
     private Optional<ButtonType> showItemBoughtAlertAndWait(Alert itemNotFound, SaleItem item){
-        itemNotFound.setContentText(String.format("You have successfully bought \"%s\" for $%01.02f!",
-                item.getDescription(), item.getPrice()));
+        itemNotFound.setContentText(String.format("You have successfully bought \"%s\" for $%s!",
+                item.getDescription(), SaleItem.formatPrice(item.getPrice())));
         return itemNotFound.showAndWait();
     }
 
     private Optional<ButtonType> showItemSoldAlertAndWait(Alert itemNotFound, SaleItem item){
-        itemNotFound.setContentText(String.format("You have just sold \"%s\" for $%01.02f!",
-                item.getDescription(), item.getPrice()));
+        itemNotFound.setContentText(String.format("You have just sold \"%s\" for $%s!",
+                item.getDescription(), SaleItem.formatPrice(item.getPrice())));
         return itemNotFound.showAndWait();
     }
 }
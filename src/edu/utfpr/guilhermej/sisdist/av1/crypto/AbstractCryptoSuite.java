@@ -0,0 +1,122 @@
+package edu.utfpr.guilhermej.sisdist.av1.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.*;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+
+/**
+ * Base para conjuntos criptográficos: decodificação de chaves públicas e cifra autenticada das sessões,
+ * com um vetor de inicialização aleatório por mensagem que precede o texto cifrado
+ */
+public abstract class AbstractCryptoSuite implements ICryptoSuite {
+    /** Reservatório de cifras reutilizáveis */
+    final CipherPool cipherPool = new CipherPool();
+    /** Gerador de números aleatórios para chaves e vetores de inicialização */
+    protected final SecureRandom secureRandom = new SecureRandom();
+
+    /** Algoritmo das chaves assimétricas */
+    private final String keyAlgorithm;
+    /** Algoritmo das chaves de sessão */
+    private final String sessionKeyAlgorithm;
+    /** Tamanho (bits) das chaves de sessão */
+    private final int sessionKeyLength;
+    /** Cifra autenticada das sessões */
+    private final String sessionCipher;
+    /** Tamanho (bytes) do vetor de inicialização de cada mensagem */
+    private final int nonceLength;
+    /** Fábrica de chaves assimétricas (não é segura para uso simultâneo) */
+    private final KeyFactory keyFactory;
+
+    /**
+     * Construtor padrão
+     * @param keyAlgorithm algoritmo das chaves assimétricas
+     * @param sessionKeyAlgorithm algoritmo das chaves de sessão
+     * @param sessionKeyLength tamanho (bits) das chaves de sessão
+     * @param sessionCipher cifra autenticada das sessões
+     * @param nonceLength tamanho (bytes) do vetor de inicialização de cada mensagem
+     * @throws GeneralSecurityException caso algoritmo das chaves não esteja disponível
+     */
+    protected AbstractCryptoSuite(String keyAlgorithm, String sessionKeyAlgorithm, int sessionKeyLength,
+                                  String sessionCipher, int nonceLength) throws GeneralSecurityException {
+        this.keyAlgorithm = keyAlgorithm;
+        this.sessionKeyAlgorithm = sessionKeyAlgorithm;
+        this.sessionKeyLength = sessionKeyLength;
+        this.sessionCipher = sessionCipher;
+        this.nonceLength = nonceLength;
+        keyFactory = KeyFactory.getInstance(keyAlgorithm);
+    }
+
+    @Override
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    @Override
+    public PublicKey decodePublicKey(byte[] encoded) throws InvalidKeySpecException {
+        synchronized (keyFactory) {
+            return keyFactory.generatePublic(new X509EncodedKeySpec(encoded));
+        }
+    }
+
+    @Override
+    public SecretKey generateSessionKey() throws GeneralSecurityException {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance(sessionKeyAlgorithm);
+        keyGenerator.init(sessionKeyLength, secureRandom);
+        return keyGenerator.generateKey();
+    }
+
+    @Override
+    public SecretKey decodeSessionKey(byte[] encoded) {
+        return new SecretKeySpec(encoded, sessionKeyAlgorithm);
+    }
+
+    @Override
+    public byte[] encrypt(SecretKey sessionKey, byte[] plain) throws GeneralSecurityException {
+        byte[] nonce = new byte[nonceLength];
+        secureRandom.nextBytes(nonce);
+        Cipher cipher = cipherPool.acquire(sessionCipher, Cipher.ENCRYPT_MODE, null);
+        //Vetor de inicialização não pode ser repetido: cifra é inicializada a cada mensagem
+        cipher.init(Cipher.ENCRYPT_MODE, sessionKey, sessionParameters(nonce, 0));
+        byte[] encrypted = Arrays.copyOf(nonce, nonceLength + cipher.getOutputSize(plain.length));
+        cipher.doFinal(plain, 0, plain.length, encrypted, nonceLength);
+        cipherPool.release(sessionCipher, Cipher.ENCRYPT_MODE, null, cipher);
+        return encrypted;
+    }
+
+    @Override
+    public byte[] decrypt(SecretKey sessionKey, byte[] data) throws GeneralSecurityException {
+        if (data.length < nonceLength)
+            throw new GeneralSecurityException(String.format("Expected at least %d bytes (found %d bytes)", nonceLength, data.length));
+        Cipher cipher = cipherPool.acquire(sessionCipher, Cipher.DECRYPT_MODE, null);
+        cipher.init(Cipher.DECRYPT_MODE, sessionKey, sessionParameters(data, 0));
+        byte[] decrypted = cipher.doFinal(data, nonceLength, data.length - nonceLength);
+        cipherPool.release(sessionCipher, Cipher.DECRYPT_MODE, null, cipher);
+        return decrypted;
+    }
+
+    @Override
+    public void forget(Key publicKey) {
+        cipherPool.forget(publicKey);
+    }
+
+    /**
+     * Parâmetros da cifra de sessão para um vetor de inicialização
+     * @param buffer bytes que contém o vetor de inicialização
+     * @param offset posição do vetor de inicialização
+     * @return parâmetros da cifra
+     */
+    protected abstract AlgorithmParameterSpec sessionParameters(byte[] buffer, int offset);
+
+    /**
+     * @return tamanho (bytes) do vetor de inicialização de cada mensagem
+     */
+    protected int getNonceLength() {
+        return nonceLength;
+    }
+}
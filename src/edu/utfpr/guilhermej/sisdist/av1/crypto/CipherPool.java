@@ -0,0 +1,91 @@
+package edu.utfpr.guilhermej.sisdist.av1.crypto;
+
+import javax.crypto.Cipher;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Reservatório de instâncias de {@link Cipher} reutilizáveis, por algoritmo, modo e chave, evitando a busca
+ * no provedor (e, para cifras com chave fixa, a preparação da chave) a cada operação.
+ * Cada instância é utilizada por uma única thread por vez: é retirada do reservatório e devolvida ao fim
+ * da operação, o que também funciona com threads virtuais, que não são reaproveitadas entre tarefas.
+ */
+class CipherPool {
+    /** Cifras livres, por algoritmo, modo e chave (chave nula para cifras inicializadas a cada uso) */
+    private final Map<Slot, Queue<Cipher>> ciphers = new ConcurrentHashMap<>();
+
+    /**
+     * Retira uma cifra livre do reservatório, criando-a (e inicializando-a com a chave, se houver)
+     * caso não exista. Uma cifra cuja operação falhou não deve ser devolvida, pois seu estado é indefinido
+     * @param transformation algoritmo da cifra
+     * @param mode modo da cifra
+     * @param key chave fixa da cifra (null para cifras inicializadas a cada uso)
+     * @return cifra pronta para uso exclusivo da thread
+     * @throws GeneralSecurityException caso algoritmo ou chave sejam inválidos
+     */
+    Cipher acquire(String transformation, int mode, Key key) throws GeneralSecurityException {
+        Cipher cipher = ciphers.computeIfAbsent(new Slot(transformation, mode, key), s -> new ConcurrentLinkedQueue<>()).poll();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(transformation);
+            if (key != null)
+                cipher.init(mode, key);
+        }
+        return cipher;
+    }
+
+    /**
+     * Devolve ao reservatório uma cifra cuja operação terminou
+     * @param transformation algoritmo da cifra
+     * @param mode modo da cifra
+     * @param key chave fixa da cifra (null para cifras inicializadas a cada uso)
+     * @param cipher cifra
+     */
+    void release(String transformation, int mode, Key key, Cipher cipher) {
+        Queue<Cipher> free = ciphers.get(new Slot(transformation, mode, key));
+        if (free != null)
+            free.offer(cipher);
+    }
+
+    /**
+     * Descarta as cifras com uma chave fixa
+     * @param key chave
+     */
+    void forget(Key key) {
+        ciphers.keySet().removeIf(slot -> key.equals(slot.key));
+    }
+
+    /**
+     * Algoritmo, modo e chave de uma cifra reutilizável
+     */
+    private static class Slot {
+        private final String transformation;
+        private final int mode;
+        private final Key key;
+
+        private Slot(String transformation, int mode, Key key) {
+            this.transformation = transformation;
+            this.mode = mode;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Slot)) return false;
+            Slot that = (Slot) o;
+            return mode == that.mode &&
+                    transformation.equals(that.transformation) &&
+                    Objects.equals(key, that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(transformation, mode, key);
+        }
+    }
+}
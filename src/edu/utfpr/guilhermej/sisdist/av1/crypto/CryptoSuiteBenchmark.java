@@ -0,0 +1,50 @@
+package edu.utfpr.guilhermej.sisdist.av1.crypto;
+
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+
+/**
+ * Compara os conjuntos criptográficos medindo tempo de geração de chaves, custo do estabelecimento de uma
+ * sessão (envio e recepção da chave de sessão), custo por mensagem cifrada e bytes das chaves na rede.
+ * Uso: java ...CryptoSuiteBenchmark [numero de repetições] [tamanho da mensagem em bytes]
+ */
+public class CryptoSuiteBenchmark {
+    public static void main(String[] args) throws GeneralSecurityException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int messageSize = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        byte[] message = new byte[messageSize];
+
+        System.out.println(String.format("%d rounds, %d byte messages", rounds, messageSize));
+        for (CryptoSuiteType type : CryptoSuiteType.values()) {
+            ICryptoSuite suite = CryptoSuites.create(type);
+            //Aquecimento
+            KeyPair receiver = suite.generateKeyPair();
+            SecretKey sessionKey = suite.generateSessionKey();
+            for (int i = 0; i < rounds; i++) {
+                suite.open(receiver.getPrivate(), suite.seal(receiver.getPublic(), sessionKey.getEncoded()));
+                suite.decrypt(sessionKey, suite.encrypt(sessionKey, message));
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++)
+                receiver = suite.generateKeyPair();
+            long keyGeneration = (System.nanoTime() - start) / rounds;
+
+            byte[] wrapped = suite.seal(receiver.getPublic(), sessionKey.getEncoded());
+            start = System.nanoTime();
+            for (int i = 0; i < rounds; i++)
+                suite.decodeSessionKey(suite.open(receiver.getPrivate(), suite.seal(receiver.getPublic(), sessionKey.getEncoded())));
+            long handshake = (System.nanoTime() - start) / rounds;
+
+            start = System.nanoTime();
+            for (int i = 0; i < rounds; i++)
+                suite.decrypt(sessionKey, suite.encrypt(sessionKey, message));
+            long perMessage = (System.nanoTime() - start) / rounds;
+
+            System.out.println(String.format("%-8s requested=%-8s keygen=%9.1f us  session=%9.1f us  message=%7.1f us  public key=%4d bytes  wrapped session key=%4d bytes",
+                    suite.getType(), type, keyGeneration / 1000.0, handshake / 1000.0, perMessage / 1000.0,
+                    receiver.getPublic().getEncoded().length, wrapped.length));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package edu.utfpr.guilhermej.sisdist.av1.crypto;
+
+/**
+ * Conjuntos de algoritmos criptográficos disponíveis. Todos os pares de uma rede devem utilizar o mesmo conjunto
+ */
+public enum CryptoSuiteType {
+    /** Chaves RSA, que cifram diretamente as chaves de sessão, e sessões AES-GCM (comportamento original) */
+    RSA,
+    /** Acordo de chaves X25519 com chaves efêmeras e sessões ChaCha20-Poly1305 (requer Java 11+, senão utiliza {@link #RSA}) */
+    X25519
+}
@@ -0,0 +1,34 @@
+package edu.utfpr.guilhermej.sisdist.av1.crypto;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Fábrica de conjuntos criptográficos
+ */
+public class CryptoSuites {
+    private CryptoSuites() {
+    }
+
+    /**
+     * Cria conjunto do tipo solicitado. Caso os algoritmos de curva elíptica não sejam suportados pela JVM,
+     * utiliza o conjunto RSA
+     * @param type tipo desejado
+     * @return conjunto criado
+     */
+    public static ICryptoSuite create(CryptoSuiteType type) {
+        try {
+            switch (type) {
+                case X25519:
+                    if (X25519CryptoSuite.isSupported())
+                        return new X25519CryptoSuite();
+                    System.out.println("X25519 not supported by this JVM, using RSA");
+                    return new RsaCryptoSuite(RsaCryptoSuite.DEFAULT_KEY_LENGTH);
+                case RSA:
+                default:
+                    return new RsaCryptoSuite(RsaCryptoSuite.DEFAULT_KEY_LENGTH);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Expected " + type + " algorithms for encryption", e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package edu.utfpr.guilhermej.sisdist.av1.crypto;
+
+import javax.crypto.SecretKey;
+import java.security.*;
+
+/**
+ * Interface de um conjunto de algoritmos criptográficos: par de chaves assimétricas dos pares, envio
+ * de dados cifrados para uma chave pública e cifra autenticada das sessões.
+ * Permite trocar os algoritmos utilizados sem alterar quem realiza as operações.
+ * Implementações devem permitir uso simultâneo por várias threads.
+ */
+public interface ICryptoSuite {
+    /**
+     * Retorna tipo do conjunto
+     * @return tipo do conjunto
+     */
+    CryptoSuiteType getType();
+
+    /**
+     * Retorna algoritmo das chaves assimétricas (nome utilizado por {@link KeyFactory})
+     * @return algoritmo das chaves
+     */
+    String getKeyAlgorithm();
+
+    /**
+     * Gera novo par de chaves assimétricas
+     * @return par de chaves
+     * @throws GeneralSecurityException caso algoritmo não esteja disponível
+     */
+    KeyPair generateKeyPair() throws GeneralSecurityException;
+
+    /**
+     * Converte bytes codificados (X.509) de uma chave pública para a chave correspondente
+     * @param encoded bytes da chave codificada
+     * @return chave pública
+     * @throws GeneralSecurityException caso os bytes não representem uma chave válida
+     */
+    PublicKey decodePublicKey(byte[] encoded) throws GeneralSecurityException;
+
+    /**
+     * Cifra dados que apenas o dono da chave privada correspondente pode decifrar
+     * @param publicKey chave pública do destinatário
+     * @param plain dados
+     * @return dados cifrados
+     * @throws GeneralSecurityException caso não seja possível cifrar os dados
+     */
+    byte[] seal(PublicKey publicKey, byte[] plain) throws GeneralSecurityException;
+
+    /**
+     * Decifra dados cifrados com {@link #seal(PublicKey, byte[])}
+     * @param privateKey chave privada do destinatário
+     * @param sealed dados cifrados
+     * @return dados
+     * @throws GeneralSecurityException caso não seja possível decifrar os dados
+     */
+    byte[] open(PrivateKey privateKey, byte[] sealed) throws GeneralSecurityException;
+
+    /**
+     * Gera nova chave de sessão (simétrica)
+     * @return chave de sessão
+     * @throws GeneralSecurityException caso algoritmo não esteja disponível
+     */
+    SecretKey generateSessionKey() throws GeneralSecurityException;
+
+    /**
+     * Reconstrói chave de sessão a partir de seus bytes
+     * @param encoded bytes da chave
+     * @return chave de sessão
+     */
+    SecretKey decodeSessionKey(byte[] encoded);
+
+    /**
+     * Cifra dados com uma chave de sessão (cifra autenticada, vetor de inicialização aleatório)
+     * @param sessionKey chave de sessão
+     * @param plain dados
+     * @return dados cifrados
+     * @throws GeneralSecurityException caso não seja possível cifrar os dados
+     */
+    byte[] encrypt(SecretKey sessionKey, byte[] plain) throws GeneralSecurityException;
+
+    /**
+     * Decifra e autentica dados cifrados com {@link #encrypt(SecretKey, byte[])}
+     * @param sessionKey chave de sessão
+     * @param data dados cifrados
+     * @return dados
+     * @throws GeneralSecurityException caso os dados não possam ser decifrados ou tenham sido alterados
+     */
+    byte[] decrypt(SecretKey sessionKey, byte[] data) throws GeneralSecurityException;
+
+    /**
+     * Descarta recursos mantidos para uma chave pública (por exemplo, quando o par deixa a rede)
+     * @param publicKey chave pública
+     */
+    void forget(Key publicKey);
+}
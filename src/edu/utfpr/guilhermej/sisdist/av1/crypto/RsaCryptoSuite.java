@@ -0,0 +1,72 @@
+package edu.utfpr.guilhermej.sisdist.av1.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import java.security.*;
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ * Conjunto RSA: dados enviados a uma chave pública (em geral, chaves de sessão) são cifrados diretamente
+ * com RSA, limitados ao tamanho do bloco da chave; sessões utilizam AES-GCM
+ */
+public class RsaCryptoSuite extends AbstractCryptoSuite {
+    /** Tamanho padrão das chaves RSA */
+    public static final int DEFAULT_KEY_LENGTH = 1024;
+    /** Tamanho (bits) da etiqueta de autenticação de cada mensagem */
+    private static final int TAG_LENGTH = 128;
+
+    /** Tamanho das chaves RSA */
+    private final int keyLength;
+
+    /**
+     * Construtor padrão
+     * @param keyLength tamanho das chaves RSA
+     * @throws GeneralSecurityException caso algoritmos não estejam disponíveis
+     */
+    public RsaCryptoSuite(int keyLength) throws GeneralSecurityException {
+        super("RSA", "AES", 128, "AES/GCM/NoPadding", 12);
+        this.keyLength = keyLength;
+    }
+
+    @Override
+    public CryptoSuiteType getType() {
+        return CryptoSuiteType.RSA;
+    }
+
+    @Override
+    public KeyPair generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance(getKeyAlgorithm());
+        keyGen.initialize(keyLength, secureRandom);
+        return keyGen.generateKeyPair();
+    }
+
+    @Override
+    public byte[] seal(PublicKey publicKey, byte[] plain) throws GeneralSecurityException {
+        return rsa(Cipher.ENCRYPT_MODE, publicKey, plain);
+    }
+
+    @Override
+    public byte[] open(PrivateKey privateKey, byte[] sealed) throws GeneralSecurityException {
+        return rsa(Cipher.DECRYPT_MODE, privateKey, sealed);
+    }
+
+    @Override
+    protected AlgorithmParameterSpec sessionParameters(byte[] buffer, int offset) {
+        return new GCMParameterSpec(TAG_LENGTH, buffer, offset, getNonceLength());
+    }
+
+    /**
+     * Realiza operação RSA com uma cifra reutilizável, já inicializada com a chave
+     * @param mode modo da cifra
+     * @param key chave
+     * @param data dados
+     * @return resultado da operação
+     * @throws GeneralSecurityException caso não seja possível realizar a operação
+     */
+    private byte[] rsa(int mode, Key key, byte[] data) throws GeneralSecurityException {
+        Cipher cipher = cipherPool.acquire(getKeyAlgorithm(), mode, key);
+        byte[] result = cipher.doFinal(data);
+        cipherPool.release(getKeyAlgorithm(), mode, key, cipher);
+        return result;
+    }
+}
@@ -0,0 +1,109 @@
+package edu.utfpr.guilhermej.sisdist.av1.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyAgreement;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import java.security.*;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
+
+/**
+ * Conjunto de curva elíptica: chaves X25519 (muito mais rápidas de gerar e menores que as RSA) e
+ * sessões ChaCha20-Poly1305.
+ * Dados enviados a uma chave pública são cifrados com uma chave derivada do acordo (X25519) entre um par de
+ * chaves efêmero e a chave do destinatário; a chave pública efêmera precede os dados cifrados.
+ * Os algoritmos são obtidos pelo nome, pois o projeto ainda compila para Java 8; verifique
+ * {@link #isSupported()} antes de construir.
+ */
+public class X25519CryptoSuite extends AbstractCryptoSuite {
+    /** Algoritmo das chaves e do acordo de chaves */
+    private static final String KEY_ALGORITHM = "X25519";
+    /** Tamanho da curva (seleciona X25519) */
+    private static final int KEY_LENGTH = 255;
+    /** Algoritmo da cifra de sessão */
+    private static final String SESSION_CIPHER = "ChaCha20-Poly1305";
+    /** Algoritmo de derivação das chaves a partir do segredo acordado */
+    private static final String KDF_ALGORITHM = "SHA-256";
+
+    /**
+     * Construtor padrão
+     * @throws GeneralSecurityException caso a JVM não suporte os algoritmos (requer Java 11+)
+     */
+    public X25519CryptoSuite() throws GeneralSecurityException {
+        super(KEY_ALGORITHM, "ChaCha20", 256, SESSION_CIPHER, 12);
+    }
+
+    /**
+     * Verifica se a JVM atual suporta os algoritmos do conjunto
+     * @return true caso sejam suportados
+     */
+    public static boolean isSupported() {
+        try {
+            KeyPairGenerator.getInstance(KEY_ALGORITHM);
+            KeyAgreement.getInstance(KEY_ALGORITHM);
+            Cipher.getInstance(SESSION_CIPHER);
+            return true;
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public CryptoSuiteType getType() {
+        return CryptoSuiteType.X25519;
+    }
+
+    @Override
+    public KeyPair generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance(KEY_ALGORITHM);
+        keyGen.initialize(KEY_LENGTH, secureRandom);
+        return keyGen.generateKeyPair();
+    }
+
+    @Override
+    public byte[] seal(PublicKey publicKey, byte[] plain) throws GeneralSecurityException {
+        KeyPair ephemeral = generateKeyPair();
+        byte[] ephemeralKey = ephemeral.getPublic().getEncoded();
+        byte[] encrypted = encrypt(deriveKey(ephemeral.getPrivate(), publicKey, ephemeralKey), plain);
+        //Tamanho da chave efêmera, chave efêmera e dados cifrados
+        byte[] sealed = new byte[1 + ephemeralKey.length + encrypted.length];
+        sealed[0] = (byte) ephemeralKey.length;
+        System.arraycopy(ephemeralKey, 0, sealed, 1, ephemeralKey.length);
+        System.arraycopy(encrypted, 0, sealed, 1 + ephemeralKey.length, encrypted.length);
+        return sealed;
+    }
+
+    @Override
+    public byte[] open(PrivateKey privateKey, byte[] sealed) throws GeneralSecurityException {
+        int ephemeralLength = sealed.length > 0 ? sealed[0] & 0xFF : 0;
+        if (sealed.length < 1 + ephemeralLength + getNonceLength())
+            throw new GeneralSecurityException(String.format("Expected sealed data (found %d bytes)", sealed.length));
+        byte[] ephemeralKey = Arrays.copyOfRange(sealed, 1, 1 + ephemeralLength);
+        SecretKey key = deriveKey(privateKey, decodePublicKey(ephemeralKey), ephemeralKey);
+        return decrypt(key, Arrays.copyOfRange(sealed, 1 + ephemeralLength, sealed.length));
+    }
+
+    @Override
+    protected AlgorithmParameterSpec sessionParameters(byte[] buffer, int offset) {
+        return new IvParameterSpec(buffer, offset, getNonceLength());
+    }
+
+    /**
+     * Deriva chave simétrica do segredo acordado entre uma chave privada e uma chave pública
+     * @param privateKey chave privada local
+     * @param publicKey chave pública da parte oposta
+     * @param ephemeralKey chave pública efêmera codificada (vincula a chave derivada a esta troca)
+     * @return chave simétrica
+     * @throws GeneralSecurityException caso o acordo não seja possível
+     */
+    private SecretKey deriveKey(PrivateKey privateKey, PublicKey publicKey, byte[] ephemeralKey) throws GeneralSecurityException {
+        KeyAgreement agreement = KeyAgreement.getInstance(KEY_ALGORITHM);
+        agreement.init(privateKey);
+        agreement.doPhase(publicKey, true);
+        MessageDigest digest = MessageDigest.getInstance(KDF_ALGORITHM);
+        digest.update(agreement.generateSecret());
+        digest.update(ephemeralKey);
+        return decodeSessionKey(digest.digest());
+    }
+}
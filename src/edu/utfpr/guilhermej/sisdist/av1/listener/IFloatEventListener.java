@@ -1,5 +0,0 @@
-package edu.utfpr.guilhermej.sisdist.av1.listener;
-
-public interface IFloatEventListener {
-    void onFloatEvent(float value);
-}
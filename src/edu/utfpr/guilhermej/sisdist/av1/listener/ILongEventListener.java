@@ -0,0 +1,5 @@
+package edu.utfpr.guilhermej.sisdist.av1.listener;
+
+public interface ILongEventListener {
+    void onLongEvent(long value);
+}
@@ -0,0 +1,83 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Mede o uso de memória (bytes por oferta) de um catálogo sintético no indexador, comparando a
+ * representação original (um {@link SaleItem} com descrição própria por oferta, em listas por vendedor)
+ * com o {@link CatalogIndex} (vetores primitivos e dicionário de descrições).
+ * Descrições são criadas como novos textos a cada oferta, como ocorre na decodificação das mensagens.
+ * Uso: java ...CatalogHeapReport [número de ofertas] [número de descrições distintas] [número de vendedores]
+ *   [armazenamento das ofertas: HEAP ou MAPPED]
+ */
+public class CatalogHeapReport {
+    public static void main(String[] args) {
+        int offers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int descriptions = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int sellers = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        OfferStoreType storeType = args.length > 3 ? OfferStoreType.valueOf(args[3]) : OfferStoreType.HEAP;
+
+        System.out.println(String.format("%d offers, %d descriptions, %d sellers, %s store", offers, descriptions, sellers, storeType));
+        List<PeerOpponent> peers = new ArrayList<>(sellers);
+        for (int i = 0; i < sellers; i++)
+            peers.add(new PeerOpponent().setUuid(UUID.randomUUID()));
+
+        //Representação original: cada oferta mantém seu próprio item e sua própria descrição
+        long base = usedHeap();
+        List<List<SaleItem>> lists = new ArrayList<>(sellers);
+        for (int i = 0; i < sellers; i++)
+            lists.add(new ArrayList<>());
+        Random random = new Random(0);
+        for (int i = 0; i < offers; i++)
+            lists.get(random.nextInt(sellers)).add(randomItem(random, descriptions));
+        long before = usedHeap() - base;
+        //Listas são percorridas após a medição, permanecendo alcançáveis durante ela
+        report("item lists", before, lists.stream().mapToInt(List::size).sum());
+        lists = null;
+
+        //Índice do catálogo
+        base = usedHeap();
+        CatalogIndex catalogIndex = new CatalogIndex(OfferStores.create(storeType, null));
+        random = new Random(0);
+        for (int i = 0; i < offers; i++)
+            catalogIndex.addOffer(peers.get(random.nextInt(sellers)), randomItem(random, descriptions));
+        long after = usedHeap() - base;
+        report("catalog index", after, offers);
+        System.out.println(String.format("reduction: %.1f%%", 100.0 * (before - after) / before));
+
+        //Índice é consultado após a medição, permanecendo alcançável durante ela
+        System.out.println(String.format("(%d items referenced)", catalogIndex.getBestOffers("item-0", null, null, 1, seller -> true).getOffers().size()));
+    }
+
+    private static SaleItem randomItem(Random random, int descriptions) {
+        return new SaleItem()
+                .setDescription(new String("item-" + random.nextInt(descriptions)))
+                .setPrice(1 + random.nextInt(100_000));
+    }
+
+    private static void report(String name, long bytes, int offers) {
+        System.out.println(String.format("%-14s heap=%8.1f MiB  per offer=%6.1f bytes",
+                name, bytes / (1024.0 * 1024.0), (double) bytes / offers));
+    }
+
+    /**
+     * Memória utilizada após coletas de lixo sucessivas
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,397 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import edu.utfpr.guilhermej.sisdist.av1.util.Pair;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Índice invertido do catálogo mantido pelo indexador: associa cada descrição às ofertas
+ * (vendedor, item) com aquela descrição, de forma que uma busca percorra apenas as ofertas
+ * encontradas, e não todos os items de todos os pares.
+ * As ofertas são armazenadas em vetores primitivos ({@link OfferStore}), com vendedores identificados
+ * por inteiros e descrições codificadas por um dicionário ({@link DescriptionDictionary}), de forma que
+ * cada descrição distinta seja armazenada uma única vez, independentemente do número de ofertas;
+ * as ofertas de cada descrição são mantidas ordenadas por preço, e as de cada vendedor por preço e descrição
+ * (localizar ou remover uma oferta de um vendedor não percorre as demais ofertas da descrição); a ordem entre
+ * ofertas de mesmo preço (maior reputação do vendedor) é resolvida na consulta, de forma que alterar
+ * a reputação de um vendedor não reposicione suas ofertas.
+ * O índice é a única cópia das ofertas no indexador (as listas de items dos {@link PeerOpponent} não são
+ * replicadas), e também mantém a reputação de cada vendedor, que deve ser alterada apenas através dele.
+ * Alterações de um mesmo vendedor são serializadas pela tranca do próprio vendedor; as ofertas de cada
+ * descrição são protegidas por uma tranca de leitura/ escrita, dentre {@link #DESCRIPTION_LOCKS} trancas
+ * distribuídas pelas descrições, de forma que alterações e consultas de descrições distintas sejam
+ * realizadas em paralelo. Os vetores compartilhados são aumentados com a tranca de escrita do armazenamento,
+ * cuja tranca de leitura é mantida por todas as demais operações.
+ */
+class CatalogIndex implements Closeable {
+    /** Número de trancas das descrições (potência de 2) */
+    static final int DESCRIPTION_LOCKS = 64;
+
+    /** Ofertas do catálogo */
+    private final OfferStore offerStore;
+    /** Dicionário das descrições das ofertas */
+    private final DescriptionDictionary descriptionDictionary;
+    /** Identificadores dos vendedores */
+    private final Map<UUID, Integer> sellerIds;
+    /** Vendedores, por identificador */
+    private PeerOpponent[] sellers;
+    /** Identificadores de vendedores liberados, reutilizados antes de novos identificadores */
+    private final Deque<Integer> freeSellerIds;
+    /** Tranca do armazenamento: de escrita apenas para aumentar os vetores e atribuir identificadores de vendedores */
+    private final ReentrantReadWriteLock storageLock;
+    /** Trancas das ofertas das descrições, pelo identificador da descrição */
+    private final ReadWriteLock[] descriptionLocks;
+
+    /**
+     * Índice com ofertas armazenadas no heap
+     */
+    CatalogIndex() {
+        this(new OfferStore());
+    }
+
+    /**
+     * @param offerStore armazenamento das ofertas (inicialmente vazio)
+     */
+    CatalogIndex(OfferStore offerStore) {
+        this.offerStore = offerStore;
+        descriptionDictionary = new DescriptionDictionary();
+        sellerIds = new ConcurrentHashMap<>();
+        sellers = new PeerOpponent[16];
+        freeSellerIds = new ArrayDeque<>();
+        storageLock = new ReentrantReadWriteLock();
+        descriptionLocks = new ReadWriteLock[DESCRIPTION_LOCKS];
+        for (int i = 0; i < DESCRIPTION_LOCKS; i++)
+            descriptionLocks[i] = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Adiciona item à venda por um par
+     * @param seller vendedor
+     * @param item item à venda
+     */
+    void addOffer(PeerOpponent seller, SaleItem item) {
+        synchronized (seller) {
+            int description = descriptionDictionary.intern(item.getDescription());
+            storageLock.readLock().lock();
+            try {
+                int sellerId = sellerId(seller);
+                int slot;
+                while ((slot = offerStore.allocate(description, sellerId)) == OfferStore.NONE) {
+                    upgrade();
+                    try {
+                        offerStore.grow(description, sellerId);
+                    } finally {
+                        downgrade();
+                    }
+                }
+                Lock lock = descriptionLock(description).writeLock();
+                lock.lock();
+                try {
+                    offerStore.insert(slot, description, sellerId, item.getPrice());
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                storageLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Remove item à venda por um par
+     * @param seller vendedor
+     * @param item item removido
+     * @return true caso o par vendesse o item
+     */
+    boolean removeOffer(PeerOpponent seller, SaleItem item) {
+        synchronized (seller) {
+            storageLock.readLock().lock();
+            try {
+                int description = descriptionDictionary.lookup(item.getDescription());
+                Integer sellerId = sellerIds.get(seller.getUuid());
+                if (description == DescriptionDictionary.NONE || sellerId == null)
+                    return false;
+                Lock lock = descriptionLock(description).writeLock();
+                lock.lock();
+                try {
+                    if (!item.getDescription().equals(descriptionDictionary.description(description)))
+                        return false;
+                    int slot = offerStore.find(description, sellerId, item.getPrice());
+                    if (slot == OfferStore.NONE)
+                        return false;
+                    offerStore.remove(slot);
+                    descriptionDictionary.release(description);
+                    return true;
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                storageLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Remove todos os items à venda por um par (par deixou a rede ou catálogo será reenviado)
+     * @param seller vendedor
+     */
+    void removeSeller(PeerOpponent seller) {
+        synchronized (seller) {
+            Integer sellerId = sellerIds.get(seller.getUuid());
+            if (sellerId == null)
+                return;
+            storageLock.readLock().lock();
+            try {
+                OfferOrder order;
+                while ((order = offerStore.sellerOrder(sellerId)) != null) {
+                    int slot = order.seek(Long.MIN_VALUE).slot();
+                    int description = offerStore.description(slot);
+                    Lock lock = descriptionLock(description).writeLock();
+                    lock.lock();
+                    try {
+                        offerStore.remove(slot);
+                        descriptionDictionary.release(description);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            } finally {
+                storageLock.readLock().unlock();
+            }
+            //Vendedor não possui mais ofertas: identificador pode ser reutilizado
+            storageLock.writeLock().lock();
+            try {
+                sellerIds.remove(seller.getUuid());
+                sellers[sellerId] = null;
+                freeSellerIds.push(sellerId);
+            } finally {
+                storageLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Altera reputação de um par (a ordem das ofertas é resolvida nas consultas)
+     * @param seller vendedor
+     * @param reputation nova reputação
+     */
+    void setReputation(PeerOpponent seller, int reputation) {
+        synchronized (seller) {
+            seller.setReputation(reputation);
+        }
+    }
+
+    /**
+     * Incrementa reputação de um par
+     * @param seller vendedor
+     */
+    void increaseReputation(PeerOpponent seller) {
+        synchronized (seller) {
+            seller.setReputation(seller.getReputation() + 1);
+        }
+    }
+
+    /**
+     * Recupera uma página das melhores ofertas de items com uma descrição, da melhor para a pior
+     * (menor preço e, em caso de empate, maior reputação e identificador do vendedor).
+     * Ofertas idênticas de um mesmo vendedor (mesmo preço) são retornadas uma única vez
+     * @param description descrição procurada
+     * @param excludedSeller identificador de vendedor cujas ofertas são ignoradas (em geral o solicitante)
+     * @param after cursor da página anterior: são retornadas apenas as ofertas estritamente após ele
+     *  (null para a partir da melhor oferta)
+     * @param limit número máximo de ofertas retornadas (página vazia caso não positivo)
+     * @param eligible vendedores cujas ofertas podem ser retornadas (as demais não contam para o limite)
+     * @return página de pares vendedor/item encontrados, com o cursor da página seguinte
+     */
+    OfferPage getBestOffers(String description, UUID excludedSeller, SearchCursor after, int limit,
+                            Predicate<PeerOpponent> eligible) {
+        List<Pair<PeerOpponent, SaleItem>> found = new ArrayList<>();
+        if (limit <= 0)
+            return new OfferPage(found, null);
+        SearchCursor next = null;
+        storageLock.readLock().lock();
+        try {
+            int descriptionId = descriptionDictionary.lookup(description);
+            if (descriptionId == DescriptionDictionary.NONE)
+                return new OfferPage(found, null);
+            Lock lock = descriptionLock(descriptionId).readLock();
+            lock.lock();
+            try {
+                //Identificador pode ter sido liberado e reutilizado por outra descrição antes da tranca
+                String shared = descriptionDictionary.description(descriptionId);
+                OfferOrder order = offerStore.order(descriptionId);
+                if (!description.equals(shared) || order == null)
+                    return new OfferPage(found, null);
+                Integer excluded = excludedSeller != null ? sellerIds.get(excludedSeller) : null;
+                int excludedId = excluded != null ? excluded : OfferStore.NONE;
+                //Vendedores e reputações das ofertas de mesmo preço, ordenados antes de serem adicionados
+                int[] runSellers = new int[limit < 16 ? limit + 1 : 16];
+                int[] runReputations = new int[runSellers.length];
+                int lastReputation = 0;
+                OfferOrder.Cursor cursor = order.seek(after != null ? after.getPrice() : Long.MIN_VALUE);
+                while (cursor.valid() && next == null) {
+                    long price = cursor.price();
+                    int runLength = 0;
+                    for (; cursor.valid() && cursor.price() == price; cursor.next()) {
+                        int seller = cursor.id();
+                        if (seller == excludedId || !eligible.test(sellers[seller]))
+                            continue;
+                        if (runLength == runSellers.length) {
+                            runSellers = Arrays.copyOf(runSellers, runLength * 2);
+                            runReputations = Arrays.copyOf(runReputations, runLength * 2);
+                        }
+                        runSellers[runLength] = seller;
+                        runReputations[runLength] = sellers[seller].getReputation();
+                        runLength++;
+                    }
+                    sortByReputation(runSellers, runReputations, runLength);
+                    for (int i = 0; i < runLength; i++) {
+                        PeerOpponent seller = sellers[runSellers[i]];
+                        //Ofertas de mesmo preço são adjacentes por vendedor após a ordenação
+                        if (i > 0 && runSellers[i] == runSellers[i - 1])
+                            continue;
+                        if (after != null && price == after.getPrice() && !after.isBefore(runReputations[i], seller.getUuid()))
+                            continue;
+                        //Oferta além do limite apenas indica que há página seguinte, após a última retornada
+                        if (found.size() == limit) {
+                            Pair<PeerOpponent, SaleItem> last = found.get(limit - 1);
+                            next = new SearchCursor(last.getRight().getPrice(), lastReputation, last.getLeft().getUuid());
+                            break;
+                        }
+                        found.add(new Pair<>(seller, new SaleItem()
+                                .setDescription(shared)
+                                .setPrice(price)));
+                        lastReputation = runReputations[i];
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            storageLock.readLock().unlock();
+        }
+        return new OfferPage(found, next);
+    }
+
+    /**
+     * Recupera todas as ofertas de um vendedor (utilizado para replicar o catálogo)
+     * @param seller vendedor
+     * @return items à venda pelo vendedor, do menor para o maior preço
+     */
+    List<SaleItem> getOffers(PeerOpponent seller) {
+        List<SaleItem> offers = new ArrayList<>();
+        synchronized (seller) {
+            Integer sellerId = sellerIds.get(seller.getUuid());
+            if (sellerId == null)
+                return offers;
+            storageLock.readLock().lock();
+            try {
+                OfferOrder order = offerStore.sellerOrder(sellerId);
+                if (order != null) {
+                    for (OfferOrder.Cursor cursor = order.seek(Long.MIN_VALUE); cursor.valid(); cursor.next()) {
+                        offers.add(new SaleItem()
+                                .setDescription(descriptionDictionary.description(cursor.id()))
+                                .setPrice(cursor.price()));
+                    }
+                }
+            } finally {
+                storageLock.readLock().unlock();
+            }
+        }
+        return offers;
+    }
+
+    /**
+     * Recupera a melhor oferta (menor preço, vendedor de maior reputação) de items com uma descrição
+     * @param description descrição procurada
+     * @param excludedSeller identificador de vendedor cujas ofertas são ignoradas (em geral o solicitante)
+     * @return par vendedor/item, ou null caso não exista oferta
+     */
+    Pair<PeerOpponent, SaleItem> getBestOffer(String description, UUID excludedSeller) {
+        List<Pair<PeerOpponent, SaleItem>> best = getBestOffers(description, excludedSeller, null, 1, seller -> true).getOffers();
+        return best.isEmpty() ? null : best.get(0);
+    }
+
+    /**
+     * Libera o armazenamento das ofertas (o índice não deve mais ser utilizado)
+     */
+    @Override
+    public void close() throws IOException {
+        storageLock.writeLock().lock();
+        try {
+            offerStore.close();
+        } finally {
+            storageLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ordena ofertas de mesmo preço por maior reputação e, em caso de empate, pelo identificador do vendedor.
+     * Ordenação estável por inserção: as ofertas de mesmo preço são poucas, e a ordem de inserção é mantida
+     */
+    private void sortByReputation(int[] runSellers, int[] runReputations, int runLength) {
+        for (int i = 1; i < runLength; i++) {
+            int seller = runSellers[i];
+            int reputation = runReputations[i];
+            int j = i - 1;
+            while (j >= 0 && (runReputations[j] < reputation || (runReputations[j] == reputation &&
+                    sellers[runSellers[j]].getUuid().compareTo(sellers[seller].getUuid()) > 0))) {
+                runSellers[j + 1] = runSellers[j];
+                runReputations[j + 1] = runReputations[j];
+                j--;
+            }
+            runSellers[j + 1] = seller;
+            runReputations[j + 1] = reputation;
+        }
+    }
+
+    /**
+     * Recupera identificador de um vendedor, atribuindo um novo caso seja desconhecido.
+     * Deve ser chamado com a tranca do vendedor e a tranca de leitura do armazenamento
+     */
+    private int sellerId(PeerOpponent seller) {
+        Integer id = sellerIds.get(seller.getUuid());
+        if (id != null && sellers[id] == seller)
+            return id;
+        upgrade();
+        try {
+            if (id == null) {
+                id = freeSellerIds.isEmpty() ? sellerIds.size() : freeSellerIds.pop();
+                sellerIds.put(seller.getUuid(), id);
+                if (id >= sellers.length)
+                    sellers = Arrays.copyOf(sellers, sellers.length * 2);
+            }
+            sellers[id] = seller;
+            return id;
+        } finally {
+            downgrade();
+        }
+    }
+
+    private ReadWriteLock descriptionLock(int description) {
+        return descriptionLocks[description & (DESCRIPTION_LOCKS - 1)];
+    }
+
+    /**
+     * Troca a tranca de leitura do armazenamento pela de escrita (outras operações podem ocorrer entre elas)
+     */
+    private void upgrade() {
+        storageLock.readLock().unlock();
+        storageLock.writeLock().lock();
+    }
+
+    /**
+     * Troca a tranca de escrita do armazenamento pela de leitura, sem liberar o armazenamento entre elas
+     */
+    private void downgrade() {
+        storageLock.readLock().lock();
+        storageLock.writeLock().unlock();
+    }
+}
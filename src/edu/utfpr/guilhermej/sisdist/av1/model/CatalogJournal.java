@@ -0,0 +1,486 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.ITaskExecutor;
+import edu.utfpr.guilhermej.sisdist.av1.network.UnicastMessage;
+import edu.utfpr.guilhermej.sisdist.av1.network.UnicastMessageCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Registro durável do catálogo do índice, permitindo que um indexador reiniciado volte a atender
+ * pesquisas sem que os pares reenviem seus catálogos.
+ * As alterações aplicadas ao índice (ADD, REMOVE, CLEAR, KEY e VERSION de cada vendedor) e as saídas de
+ * pares são acrescentadas sequencialmente a um arquivo de registro ("write-ahead log"), e gravadas em disco
+ * (fsync) em lotes, por janela de tempo. Após um número de alterações, o estado completo do índice é gravado
+ * em um snapshot compactado e os arquivos de registro anteriores a ele são descartados.
+ * Na recuperação o snapshot é mapeado em memória e as alterações seguintes a ele são reaplicadas.
+ * Cada registro possui um número de sequência, e o snapshot guarda o último aplicado a cada vendedor,
+ * de forma que o snapshot seja gravado enquanto novas alterações são registradas.
+ * Registro: tamanho, CRC32, sequência, vendedor, tipo e conteúdo (mensagem de alteração ou endereço do par).
+ */
+class CatalogJournal implements Closeable {
+    /** Número mágico (e versão) do snapshot */
+    private static final int SNAPSHOT_MAGIC = 0x53444331;
+    /** Arquivo do snapshot */
+    private static final String SNAPSHOT_FILE = "catalog.snapshot";
+    /** Prefixo e sufixo dos arquivos de registro (nomeados pela primeira sequência) */
+    private static final String SEGMENT_PREFIX = "catalog-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    /** Tamanho do cabeçalho de um registro, após o tamanho: CRC32, sequência, vendedor e tipo */
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + 2 * Long.BYTES + 1;
+    /** Tamanho do buffer de escrita */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Tipos de registro */
+    private static final byte PEER = 1;
+    private static final byte MUTATION = 2;
+    private static final byte LEAVING = 3;
+
+    /** Diretório dos arquivos */
+    private final Path directory;
+    /** Tempo máximo (ms) que uma alteração aguarda antes de ser gravada em disco */
+    private final long window;
+    /** Número de registros após o qual um novo snapshot é gravado */
+    private final int snapshotInterval;
+    /** Codificador das mensagens de alteração */
+    private final UnicastMessageCodec codec;
+    /** Última sequência aplicada a cada vendedor */
+    private final Map<UUID, Long> lastSequence;
+    /** Vendedores cujo endereço foi registrado no arquivo de registro atual */
+    private final Set<UUID> describedSellers;
+    /** Registros aguardando escrita */
+    private final ByteBuffer buffer;
+
+    /** Arquivo de registro atual */
+    private FileChannel segment;
+    /** Última sequência atribuída */
+    private long sequence = 0;
+    /** Registros desde o último snapshot */
+    private int recordsSinceSnapshot = 0;
+    /** flag para indicar finalização da thread de gravação */
+    private boolean executionEnable = false;
+
+    /**
+     * Construtor padrão
+     * @param directory diretório dos arquivos
+     * @param window tempo máximo (ms) que uma alteração aguarda antes de ser gravada em disco
+     * @param snapshotInterval número de registros após o qual um novo snapshot é gravado
+     */
+    CatalogJournal(Path directory, long window, int snapshotInterval) {
+        this.directory = directory;
+        this.window = window;
+        this.snapshotInterval = snapshotInterval;
+        codec = new UnicastMessageCodec();
+        lastSequence = new ConcurrentHashMap<>();
+        describedSellers = new HashSet<>();
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * Reaplica o catálogo armazenado: estado do snapshot e alterações seguintes. Executado antes de {@link #start}
+     * @param register registra um vendedor (identificador e endereço)
+     * @param apply aplica uma alteração ao catálogo de um vendedor
+     * @param remove remove um vendedor que deixou a rede
+     * @throws IOException caso não seja possível ler os arquivos
+     */
+    void recover(Consumer<PeerOpponent> register, BiConsumer<UUID, UnicastMessage> apply,
+                 Consumer<UUID> remove) throws IOException {
+        Files.createDirectories(directory);
+        long firstSegment = recoverSnapshot(register, apply);
+        for (Map.Entry<Long, Path> entry : listSegments().entrySet()) {
+            //Arquivos anteriores ao snapshot já estão contidos nele
+            if (entry.getKey() < firstSegment)
+                Files.deleteIfExists(entry.getValue());
+            else
+                recoverSegment(entry.getValue(), register, apply, remove);
+        }
+    }
+
+    /**
+     * Inicia novo arquivo de registro e a thread de gravação
+     * @param snapshot grava o estado completo do catálogo (através de {@link #writeSnapshot})
+     * @param taskExecutor executor da thread de gravação
+     * @throws IOException caso não seja possível criar o arquivo
+     */
+    void start(Runnable snapshot, ITaskExecutor taskExecutor) throws IOException {
+        synchronized (this) {
+            openSegment();
+            executionEnable = true;
+        }
+        initFlushThread(snapshot, taskExecutor);
+    }
+
+    /**
+     * Registra alteração aplicada ao catálogo de um vendedor. Deve ser chamado sob a tranca do vendedor,
+     * após a alteração, para que o snapshot e o registro estejam de acordo
+     * @param seller vendedor
+     * @param mutation alteração (ADD, REMOVE, CLEAR, KEY ou VERSION)
+     */
+    synchronized void append(PeerOpponent seller, UnicastMessage mutation) {
+        if (!executionEnable)
+            return;
+        UUID sellerUuid = seller.getUuid();
+        //Endereço do vendedor é registrado uma vez por arquivo, para que seja recuperado com o catálogo
+        if (describedSellers.add(sellerUuid))
+            write(++sequence, sellerUuid, PEER, encodeAddress(seller));
+        write(++sequence, sellerUuid, MUTATION, codec.encode(mutation));
+        lastSequence.put(sellerUuid, sequence);
+    }
+
+    /**
+     * Registra a saída de um par (removido juntamente com seus items)
+     * @param peerUuid identificador do par
+     */
+    synchronized void remove(UUID peerUuid) {
+        if (!executionEnable)
+            return;
+        write(++sequence, peerUuid, LEAVING, new byte[0]);
+        describedSellers.remove(peerUuid);
+        lastSequence.remove(peerUuid);
+    }
+
+    /**
+     * Grava o estado completo do catálogo em um novo snapshot, substituindo o anterior, e descarta os
+     * arquivos de registro contidos nele. Novas alterações continuam sendo registradas durante a gravação
+     * @param sellers vendedores do índice
+     * @param offers recupera os items de um vendedor (null caso tenha sido removido)
+     */
+    void writeSnapshot(List<PeerOpponent> sellers, Function<PeerOpponent, List<SaleItem>> offers) {
+        long firstSegment;
+        try {
+            //Alterações seguintes vão para um novo arquivo, que será mantido após o snapshot
+            synchronized (this) {
+                if (!executionEnable)
+                    return;
+                flush();
+                segment.close();
+                openSegment();
+                firstSegment = sequence + 1;
+                recordsSinceSnapshot = 0;
+            }
+            Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+                out.putInt(SNAPSHOT_MAGIC).putLong(firstSegment);
+                for (PeerOpponent seller : sellers) {
+                    //Estado do vendedor e sua última sequência são lidos sob sua tranca
+                    synchronized (seller) {
+                        List<SaleItem> items = offers.apply(seller);
+                        if (items == null)
+                            continue;
+                        byte[] address = encodeAddress(seller);
+                        byte[] key = seller.getKey() != null ? seller.getKey().getEncoded() : new byte[0];
+                        out = ensure(channel, out, 1 + 3 * Long.BYTES + 2 * Integer.BYTES + address.length + key.length + Long.BYTES);
+                        out.put((byte) 1)
+                                .putLong(seller.getUuid().getMostSignificantBits())
+                                .putLong(seller.getUuid().getLeastSignificantBits())
+                                .putLong(lastSequence.getOrDefault(seller.getUuid(), 0L))
+                                .putInt(address.length).put(address)
+                                .putInt(key.length).put(key)
+                                .putLong(seller.getCatalogVersion());
+                        out = ensure(channel, out, Integer.BYTES);
+                        out.putInt(items.size());
+                        for (SaleItem item : items) {
+                            byte[] description = item.getDescription().getBytes(StandardCharsets.UTF_8);
+                            out = ensure(channel, out, Integer.BYTES + description.length + Long.BYTES);
+                            out.putInt(description.length).put(description).putLong(item.getPrice());
+                        }
+                    }
+                }
+                out = ensure(channel, out, 1);
+                out.put((byte) 0);
+                out.flip();
+                drain(channel, out);
+                channel.force(true);
+            }
+            Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (Map.Entry<Long, Path> entry : listSegments().entrySet())
+                if (entry.getKey() < firstSegment)
+                    Files.deleteIfExists(entry.getValue());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Grava registros pendentes e encerra a thread de gravação
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!executionEnable)
+            return;
+        executionEnable = false;
+        notifyAll();
+        flush();
+        segment.close();
+    }
+
+    //<editor-fold desc="Escrita">
+    /**
+     * Acrescenta um registro ao buffer de escrita (gravado diretamente caso não caiba nele)
+     */
+    private void write(long recordSequence, UUID sellerUuid, byte type, byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + HEADER_SIZE + payload.length);
+        record.putInt(HEADER_SIZE + payload.length)
+                .putInt(0)
+                .putLong(recordSequence)
+                .putLong(sellerUuid.getMostSignificantBits())
+                .putLong(sellerUuid.getLeastSignificantBits())
+                .put(type)
+                .put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 2 * Integer.BYTES, record.capacity() - 2 * Integer.BYTES);
+        record.putInt(Integer.BYTES, (int) crc.getValue());
+        record.flip();
+        try {
+            if (record.remaining() > buffer.remaining())
+                flushBuffer();
+            if (record.remaining() > buffer.remaining())
+                drain(segment, record);
+            else
+                buffer.put(record);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        recordsSinceSnapshot++;
+    }
+
+    /**
+     * Escreve o buffer no arquivo de registro, sem gravar em disco
+     */
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        drain(segment, buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Escreve o buffer e grava o arquivo de registro em disco (fsync)
+     */
+    private void flush() throws IOException {
+        flushBuffer();
+        segment.force(false);
+    }
+
+    /**
+     * Cria novo arquivo de registro, iniciado pela próxima sequência
+     */
+    private void openSegment() throws IOException {
+        Path path = directory.resolve(String.format("%s%016x%s", SEGMENT_PREFIX, sequence + 1, SEGMENT_SUFFIX));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        describedSellers.clear();
+    }
+
+    /**
+     * Garante espaço no buffer do snapshot, escrevendo-o no arquivo ou ampliando-o
+     */
+    private static ByteBuffer ensure(FileChannel channel, ByteBuffer out, int size) throws IOException {
+        if (out.remaining() >= size)
+            return out;
+        out.flip();
+        drain(channel, out);
+        out.clear();
+        return size <= out.capacity() ? out : ByteBuffer.allocate(size);
+    }
+
+    /**
+     * Escreve todo o conteúdo restante de um buffer no canal
+     */
+    private static void drain(FileChannel channel, ByteBuffer source) throws IOException {
+        while (source.hasRemaining())
+            channel.write(source);
+    }
+
+    /**
+     * Codifica endereço do par: endereço IP (vazio caso desconhecido) e porta TCP
+     */
+    private static byte[] encodeAddress(PeerOpponent peer) {
+        byte[] ip = peer.getIpAddress() != null ? peer.getIpAddress().getAddress() : new byte[0];
+        return ByteBuffer.allocate(1 + ip.length + Integer.BYTES)
+                .put((byte) ip.length).put(ip).putInt(peer.getPortTcp())
+                .array();
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Recuperação">
+    /**
+     * Reaplica o snapshot, mapeado em memória
+     * @return primeira sequência do arquivo de registro seguinte ao snapshot (0 caso não haja snapshot)
+     */
+    private long recoverSnapshot(Consumer<PeerOpponent> register, BiConsumer<UUID, UnicastMessage> apply) throws IOException {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path))
+            return 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != SNAPSHOT_MAGIC)
+                throw new IOException("Invalid catalog snapshot: " + path);
+            long firstSegment = in.getLong();
+            while (in.get() != 0) {
+                UUID sellerUuid = new UUID(in.getLong(), in.getLong());
+                long sellerSequence = in.getLong();
+                byte[] address = new byte[in.getInt()];
+                in.get(address);
+                byte[] key = new byte[in.getInt()];
+                in.get(key);
+                long version = in.getLong();
+                register.accept(decodeAddress(sellerUuid, ByteBuffer.wrap(address)));
+                apply.accept(sellerUuid, UnicastMessage.clear());
+                for (int i = in.getInt(); i > 0; i--) {
+                    byte[] description = new byte[in.getInt()];
+                    in.get(description);
+                    apply.accept(sellerUuid, UnicastMessage.add(new String(description, StandardCharsets.UTF_8), in.getLong()));
+                }
+                if (key.length > 0)
+                    apply.accept(sellerUuid, UnicastMessage.key(key));
+                if (version != PeerOpponent.NO_CATALOG_VERSION)
+                    apply.accept(sellerUuid, UnicastMessage.version(version));
+                lastSequence.put(sellerUuid, sellerSequence);
+                sequence = Math.max(sequence, sellerSequence);
+            }
+            sequence = Math.max(sequence, firstSegment - 1);
+            return firstSegment;
+        }
+    }
+
+    /**
+     * Reaplica os registros de um arquivo seguintes ao snapshot, mapeado em memória.
+     * A leitura termina no primeiro registro incompleto ou corrompido (escrita interrompida)
+     */
+    private void recoverSegment(Path path, Consumer<PeerOpponent> register, BiConsumer<UUID, UnicastMessage> apply,
+                                Consumer<UUID> remove) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 crc = new CRC32();
+            while (in.remaining() >= Integer.BYTES) {
+                int length = in.getInt();
+                if (length < HEADER_SIZE || length > in.remaining())
+                    break;
+                byte[] record = new byte[length];
+                in.get(record);
+                ByteBuffer body = ByteBuffer.wrap(record);
+                int checksum = body.getInt();
+                crc.reset();
+                crc.update(record, Integer.BYTES, length - Integer.BYTES);
+                if (checksum != (int) crc.getValue())
+                    break;
+                long recordSequence = body.getLong();
+                UUID sellerUuid = new UUID(body.getLong(), body.getLong());
+                byte type = body.get();
+                sequence = Math.max(sequence, recordSequence);
+                recordsSinceSnapshot++;
+                //Registros já contidos no snapshot são ignorados (exceto endereços, que apenas registram o par)
+                boolean applied = recordSequence <= lastSequence.getOrDefault(sellerUuid, 0L);
+                if (type == PEER)
+                    register.accept(decodeAddress(sellerUuid, body));
+                else if (type == MUTATION && !applied) {
+                    apply.accept(sellerUuid, codec.decode(record, body.position(), body.remaining()));
+                    lastSequence.put(sellerUuid, recordSequence);
+                }
+                else if (type == LEAVING && !applied) {
+                    remove.accept(sellerUuid);
+                    lastSequence.remove(sellerUuid);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodifica endereço do par (ver {@link #encodeAddress})
+     */
+    private static PeerOpponent decodeAddress(UUID peerUuid, ByteBuffer in) throws IOException {
+        byte[] ip = new byte[in.get()];
+        in.get(ip);
+        return new PeerOpponent()
+                .setUuid(peerUuid)
+                .setIpAddress(ip.length > 0 ? InetAddress.getByAddress(ip) : null)
+                .setPortTcp(in.getInt());
+    }
+
+    /**
+     * Lista os arquivos de registro do diretório
+     * @return arquivos, por primeira sequência
+     */
+    private Map<Long, Path> listSegments() throws IOException {
+        Map<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    segments.put(Long.parseUnsignedLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length()), 16), path);
+                } catch (NumberFormatException e) {
+                    //Arquivo não pertence ao registro
+                }
+            }
+        }
+        return segments;
+    }
+    //</editor-fold>
+
+    /**
+     * Aguarda o fim da janela, ou a finalização do registro
+     * @return true caso o snapshot deva ser gravado, false caso apenas os registros sejam gravados em disco,
+     *  ou null caso o registro tenha sido encerrado
+     */
+    private synchronized Boolean awaitFlush() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + window;
+        long remaining;
+        while (executionEnable && (remaining = deadline - System.currentTimeMillis()) > 0)
+            wait(remaining);
+        if (!executionEnable)
+            return null;
+        try {
+            if (buffer.position() > 0)
+                flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return recordsSinceSnapshot >= snapshotInterval;
+    }
+
+    /**
+     * Inicia thread que grava os registros em disco em lotes e, periodicamente, o snapshot
+     * @param snapshot grava o estado completo do catálogo
+     * @param taskExecutor executor da thread
+     */
+    private void initFlushThread(Runnable snapshot, ITaskExecutor taskExecutor) {
+        taskExecutor.start("Catalog Journal", () -> {
+            try {
+                Boolean snapshotDue;
+                while ((snapshotDue = awaitFlush()) != null) {
+                    //Snapshot é gravado sem a tranca do registro (utiliza as trancas dos vendedores)
+                    if (snapshotDue)
+                        snapshot.run();
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+}
@@ -0,0 +1,97 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Registro das últimas alterações do catálogo deste processo enviadas ao indexador, por versão do catálogo.
+ * Permite que um indexador que possua uma versão anterior do catálogo receba apenas as alterações seguintes
+ * (delta), em vez da lista completa. O registro é limitado a um número de alterações: as mais antigas são
+ * descartadas, e versões anteriores às mantidas exigem o envio da lista completa.
+ */
+class CatalogMutationLog {
+    /** Número máximo de alterações (items adicionados e removidos) mantidas */
+    private final int capacity;
+    /** Alterações enviadas, da mais antiga para a mais recente */
+    private final Deque<Entry> entries;
+    /** Número de alterações mantidas */
+    private int mutations = 0;
+    /** Menor versão a partir da qual as alterações seguintes estão disponíveis */
+    private long baseVersion = 0;
+
+    /**
+     * @param capacity número máximo de alterações mantidas
+     */
+    CatalogMutationLog(int capacity) {
+        this.capacity = capacity;
+        entries = new ArrayDeque<>();
+    }
+
+    /**
+     * Registra um lote de alterações enviado ao indexador
+     * @param version versão do catálogo após o lote
+     * @param added items adicionados
+     * @param removed items removidos
+     */
+    synchronized void append(long version, List<SaleItem> added, List<SaleItem> removed) {
+        Entry entry = new Entry(version, new ArrayList<>(added), new ArrayList<>(removed));
+        entries.add(entry);
+        mutations += entry.size();
+        //Descarta as alterações mais antigas, que deixam de estar disponíveis
+        while (mutations > capacity && !entries.isEmpty()) {
+            Entry discarded = entries.poll();
+            mutations -= discarded.size();
+            baseVersion = discarded.version;
+        }
+    }
+
+    /**
+     * Descarta todas as alterações após o envio da lista completa do catálogo
+     * @param version versão do catálogo enviado
+     */
+    synchronized void reset(long version) {
+        entries.clear();
+        mutations = 0;
+        baseVersion = version;
+    }
+
+    /**
+     * Recupera as alterações necessárias para atualizar um catálogo de uma versão a outra
+     * @param fromVersion versão conhecida pelo indexador
+     * @param toVersion versão atual
+     * @return lotes de alterações, do mais antigo para o mais recente, ou null caso a versão conhecida
+     *  não esteja disponível (lista completa deve ser enviada)
+     */
+    synchronized List<Entry> since(long fromVersion, long toVersion) {
+        if (fromVersion < baseVersion || fromVersion > toVersion)
+            return null;
+        List<Entry> delta = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.version > fromVersion && entry.version <= toVersion)
+                delta.add(entry);
+        }
+        return delta;
+    }
+
+    /**
+     * Lote de alterações enviado ao indexador
+     */
+    static class Entry {
+        /** Versão do catálogo após o lote */
+        final long version;
+        final List<SaleItem> added;
+        final List<SaleItem> removed;
+
+        Entry(long version, List<SaleItem> added, List<SaleItem> removed) {
+            this.version = version;
+            this.added = added;
+            this.removed = removed;
+        }
+
+        int size() {
+            return added.size() + removed.size();
+        }
+    }
+}
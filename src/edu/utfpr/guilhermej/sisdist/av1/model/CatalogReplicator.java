@@ -0,0 +1,178 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.ITaskExecutor;
+import edu.utfpr.guilhermej.sisdist.av1.network.UnicastMessage;
+import edu.utfpr.guilhermej.sisdist.av1.util.Pair;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiPredicate;
+
+/**
+ * Replica continuamente ao indexador reserva ("hot standby") as alterações do catálogo aplicadas pelo
+ * indexador ativo (ADD, REMOVE, CLEAR, KEY e VERSION de cada vendedor), de forma que o reserva possa
+ * assumir o índice sem que os pares reenviem seus catálogos.
+ * As alterações são enviadas em lotes, por janela de tempo ou quantidade, por uma única thread e na ordem
+ * em que foram registradas. Ao definir um novo reserva, ou após falha de envio, as alterações pendentes são
+ * descartadas e o estado completo do catálogo é registrado novamente (snapshot) antes de novos lotes.
+ */
+class CatalogReplicator {
+    /** Alterações pendentes: vendedor e mensagem de alteração de seu catálogo */
+    private final Deque<Pair<UUID, UnicastMessage>> pending;
+    /** Envia um lote ao reserva, retornando false em caso de falha */
+    private final BiPredicate<PeerOpponent, List<Pair<UUID, UnicastMessage>>> sender;
+    /** Registra o estado completo do catálogo (através de {@link #replicate(UUID, UnicastMessage)}) */
+    private final Runnable snapshot;
+    /** Tempo máximo (ms) que uma alteração aguarda antes de ser enviada */
+    private final long window;
+    /** Número máximo de alterações por lote (lote cheio é enviado imediatamente) */
+    private final int maxBatchSize;
+
+    /** Indexador reserva (null caso não haja) */
+    private PeerOpponent standby = null;
+    /** Indica que o estado completo do catálogo deve ser replicado antes do próximo lote */
+    private boolean snapshotPending = false;
+    /** flag para indicar finalização da thread de envio */
+    private boolean executionEnable = false;
+
+    /**
+     * Construtor padrão, inicia thread de envio
+     * @param window tempo máximo (ms) que uma alteração aguarda antes de ser enviada
+     * @param maxBatchSize número máximo de alterações por lote
+     * @param sender envia um lote ao reserva, retornando false em caso de falha
+     * @param snapshot registra o estado completo do catálogo
+     * @param taskExecutor executor da thread de envio
+     */
+    CatalogReplicator(long window, int maxBatchSize,
+                      BiPredicate<PeerOpponent, List<Pair<UUID, UnicastMessage>>> sender,
+                      Runnable snapshot,
+                      ITaskExecutor taskExecutor) {
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.sender = sender;
+        this.snapshot = snapshot;
+        pending = new ArrayDeque<>();
+        executionEnable = true;
+
+        initFlushThread(taskExecutor);
+    }
+
+    /**
+     * @return indexador reserva atual, ou null caso não haja
+     */
+    synchronized PeerOpponent getStandby() {
+        return standby;
+    }
+
+    /**
+     * Define o indexador reserva. Um novo reserva recebe o estado completo do catálogo antes das alterações seguintes
+     * @param standby novo reserva (null para interromper a replicação)
+     */
+    synchronized void setStandby(PeerOpponent standby) {
+        if (this.standby == standby)
+            return;
+        this.standby = standby;
+        pending.clear();
+        snapshotPending = standby != null;
+        notifyAll();
+    }
+
+    /**
+     * Registra alteração do catálogo de um vendedor (ignorada caso não haja reserva)
+     * @param sellerUuid identificador do vendedor
+     * @param mutation mensagem de alteração (ADD, REMOVE, CLEAR, KEY ou VERSION)
+     */
+    synchronized void replicate(UUID sellerUuid, UnicastMessage mutation) {
+        if (!executionEnable || standby == null)
+            return;
+        pending.add(new Pair<>(sellerUuid, mutation));
+        notifyAll();
+    }
+
+    /**
+     * Encerra thread de envio, descartando alterações pendentes
+     */
+    synchronized void shutdown() {
+        executionEnable = false;
+        standby = null;
+        pending.clear();
+        notifyAll();
+    }
+
+    /**
+     * Aguarda alterações pendentes (ou pedido de snapshot) e, exceto quando o lote enche,
+     * o fim da janela
+     * @return true caso o estado completo deva ser registrado antes do próximo lote,
+     *  false caso um lote esteja pronto, ou null caso o replicador tenha sido encerrado
+     * @throws InterruptedException caso thread seja interrompida
+     */
+    private synchronized Boolean awaitBatch() throws InterruptedException {
+        while (executionEnable && (standby == null || (!snapshotPending && pending.isEmpty())))
+            wait();
+        if (!executionEnable)
+            return null;
+        if (snapshotPending) {
+            //Alterações anteriores ao snapshot estão contidas nele
+            snapshotPending = false;
+            pending.clear();
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + window;
+        long remaining;
+        while (executionEnable && standby != null && !snapshotPending && pending.size() < maxBatchSize &&
+                (remaining = deadline - System.currentTimeMillis()) > 0)
+            wait(remaining);
+        return executionEnable ? false : null;
+    }
+
+    /**
+     * Retira o próximo lote de alterações
+     * @return reserva e lote, ou null caso o reserva tenha sido alterado durante a espera
+     */
+    private synchronized Pair<PeerOpponent, List<Pair<UUID, UnicastMessage>>> takeBatch() {
+        if (standby == null || snapshotPending || pending.isEmpty())
+            return null;
+        List<Pair<UUID, UnicastMessage>> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+        while (!pending.isEmpty() && batch.size() < maxBatchSize)
+            batch.add(pending.poll());
+        return new Pair<>(standby, batch);
+    }
+
+    /**
+     * Após falha de envio o reserva perdeu alterações, e deve receber novamente o estado completo
+     * @param failedStandby reserva ao qual o lote foi enviado
+     */
+    private synchronized void requestSnapshot(PeerOpponent failedStandby) {
+        if (standby == failedStandby && standby != null) {
+            snapshotPending = true;
+            pending.clear();
+        }
+    }
+
+    /**
+     * Inicia thread que envia os lotes
+     * @param taskExecutor executor da thread
+     */
+    private void initFlushThread(ITaskExecutor taskExecutor) {
+        taskExecutor.start("Catalog Replicator", () -> {
+            try {
+                Boolean snapshotRequested;
+                while ((snapshotRequested = awaitBatch()) != null) {
+                    //Estado completo é registrado sem a tranca do replicador (utiliza as trancas dos vendedores)
+                    if (snapshotRequested) {
+                        snapshot.run();
+                        continue;
+                    }
+                    Pair<PeerOpponent, List<Pair<UUID, UnicastMessage>>> batch = takeBatch();
+                    if (batch != null && !sender.test(batch.getLeft(), batch.getRight()))
+                        requestSnapshot(batch.getLeft());
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+}
@@ -0,0 +1,169 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.ITaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Acumula adições e remoções de items à venda deste processo e as envia ao indexador em lotes
+ * ("write-behind"), em uma única requisição por janela de tempo ou quantidade de operações.
+ * Uma adição e uma remoção do mesmo item dentro da janela se anulam e não são enviadas.
+ * Os lotes são enviados em ordem por uma única thread, preservando a ordem das operações.
+ */
+class CatalogUpdateBatcher {
+    /** Operações pendentes: item e variação de quantidade (positiva para adições, negativa para remoções) */
+    private final List<PendingUpdate> pending;
+    /** Envia um lote (items adicionados, items removidos) ao indexador */
+    private final BiConsumer<List<SaleItem>, List<SaleItem>> sender;
+    /** Tempo máximo (ms) que uma operação aguarda antes de ser enviada */
+    private final long window;
+    /** Número de operações que provoca envio imediato do lote */
+    private final int maxBatchSize;
+
+    /** Número de operações registradas no lote atual (incluindo as anuladas) */
+    private int batchOperations = 0;
+    /** flag para indicar finalização da thread de envio */
+    private boolean executionEnable = false;
+
+    /**
+     * Construtor padrão, inicia thread de envio
+     * @param window tempo máximo (ms) que uma operação aguarda antes de ser enviada
+     * @param maxBatchSize número de operações que provoca envio imediato do lote
+     * @param sender envia um lote (items adicionados, items removidos) ao indexador
+     * @param taskExecutor executor da thread de envio
+     */
+    CatalogUpdateBatcher(long window, int maxBatchSize,
+                         BiConsumer<List<SaleItem>, List<SaleItem>> sender,
+                         ITaskExecutor taskExecutor) {
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.sender = sender;
+        pending = new ArrayList<>();
+        executionEnable = true;
+
+        initFlushThread(taskExecutor);
+    }
+
+    /**
+     * Registra adição de item
+     * @param item item adicionado
+     */
+    void add(SaleItem item) {
+        update(item, 1);
+    }
+
+    /**
+     * Registra remoção de item
+     * @param item item removido
+     */
+    void remove(SaleItem item) {
+        update(item, -1);
+    }
+
+    /**
+     * Descarta operações pendentes (por exemplo, quando a lista completa será reenviada a um novo indexador)
+     */
+    synchronized void clear() {
+        pending.clear();
+        batchOperations = 0;
+    }
+
+    /**
+     * Encerra thread de envio, descartando operações pendentes
+     */
+    synchronized void shutdown() {
+        executionEnable = false;
+        pending.clear();
+        notifyAll();
+    }
+
+    /**
+     * Acumula variação de quantidade de um item, anulando operações opostas
+     * @param item item alterado
+     * @param delta variação da quantidade
+     */
+    private synchronized void update(SaleItem item, int delta) {
+        if (!executionEnable)
+            return;
+        PendingUpdate found = null;
+        for (PendingUpdate update : pending) {
+            if (update.item.equals(item)) {
+                found = update;
+                break;
+            }
+        }
+        if (found == null)
+            pending.add(new PendingUpdate(item, delta));
+        else {
+            found.delta += delta;
+            if (found.delta == 0)
+                pending.remove(found);
+        }
+        batchOperations++;
+        notifyAll();
+    }
+
+    /**
+     * Aguarda o fim da janela (ou lote cheio) e retira as operações pendentes
+     * @return operações do lote, ou null caso o batcher tenha sido encerrado
+     * @throws InterruptedException caso thread seja interrompida
+     */
+    private synchronized List<PendingUpdate> takeBatch() throws InterruptedException {
+        //Aguarda primeira operação do lote
+        while (executionEnable && batchOperations == 0)
+            wait();
+        //Aguarda fim da janela, a menos que o lote encha antes
+        long deadline = System.currentTimeMillis() + window;
+        long remaining;
+        while (executionEnable && batchOperations < maxBatchSize &&
+                (remaining = deadline - System.currentTimeMillis()) > 0)
+            wait(remaining);
+        if (!executionEnable)
+            return null;
+        List<PendingUpdate> batch = new ArrayList<>(pending);
+        pending.clear();
+        batchOperations = 0;
+        return batch;
+    }
+
+    /**
+     * Inicia thread que envia os lotes
+     * @param taskExecutor executor da thread
+     */
+    private void initFlushThread(ITaskExecutor taskExecutor) {
+        taskExecutor.start("Catalog Update Batcher", () -> {
+            try {
+                List<PendingUpdate> batch;
+                while ((batch = takeBatch()) != null) {
+                    //Operações totalmente anuladas não geram requisição
+                    if (batch.isEmpty())
+                        continue;
+                    List<SaleItem> added = new ArrayList<>();
+                    List<SaleItem> removed = new ArrayList<>();
+                    for (PendingUpdate update : batch) {
+                        for (int i = 0; i < Math.abs(update.delta); i++)
+                            (update.delta > 0 ? added : removed).add(update.item);
+                    }
+                    sender.accept(added, removed);
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Variação pendente da quantidade de um item
+     */
+    private static class PendingUpdate {
+        private final SaleItem item;
+        private int delta;
+
+        private PendingUpdate(SaleItem item, int delta) {
+            this.item = item;
+            this.delta = delta;
+        }
+    }
+}
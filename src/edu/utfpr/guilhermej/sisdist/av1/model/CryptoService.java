@@ -0,0 +1,208 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.ITaskExecutor;
+import edu.utfpr.guilhermej.sisdist.av1.crypto.ICryptoSuite;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.security.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Serviço de criptografia de um {@link Peer}: mantém o par de chaves assimétricas do processo e realiza
+ * as operações de cifragem das sessões unicast com o conjunto de algoritmos ({@link ICryptoSuite})
+ * escolhido na construção.
+ * O par de chaves pode ser gerado em segundo plano: operações que dependem dele aguardam sua geração,
+ * enquanto as demais (chaves de sessão, chaves de outros pares) são realizadas imediatamente.
+ * Chaves públicas decodificadas são memorizadas pelos seus bytes codificados (X.509), de forma que
+ * a chave de um mesmo par seja decodificada uma única vez.
+ */
+class CryptoService {
+    /** Algoritmo de resumo das impressões digitais de chaves públicas */
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+    /** Número máximo de chaves públicas decodificadas memorizadas */
+    private static final int PUBLIC_KEY_CACHE_SIZE = 1024;
+
+    /** Conjunto de algoritmos utilizado */
+    private final ICryptoSuite suite;
+    /** Par de chaves assimétricas do processo (possivelmente ainda em geração) */
+    private final CompletableFuture<KeyPair> keyPair;
+    /** Chaves públicas já decodificadas, por bytes codificados (menos recentemente utilizadas são descartadas) */
+    private final Map<ByteBuffer, PublicKey> publicKeyCache;
+
+    /**
+     * Construtor padrão, inicia geração do par de chaves do processo em segundo plano
+     * @param suite conjunto de algoritmos
+     * @param taskExecutor executor da geração das chaves
+     */
+    CryptoService(ICryptoSuite suite, ITaskExecutor taskExecutor) {
+        this(suite, new CompletableFuture<>());
+        taskExecutor.execute("Key Pair Generation", () -> {
+            try {
+                keyPair.complete(suite.generateKeyPair());
+            } catch (GeneralSecurityException | RuntimeException e) {
+                keyPair.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Construtor para um par de chaves já existente (por exemplo, recuperado de {@link PeerKeyStore})
+     * @param suite conjunto de algoritmos
+     * @param keyPair par de chaves do processo
+     */
+    CryptoService(ICryptoSuite suite, KeyPair keyPair) {
+        this(suite, CompletableFuture.completedFuture(keyPair));
+    }
+
+    private CryptoService(ICryptoSuite suite, CompletableFuture<KeyPair> keyPair) {
+        this.suite = suite;
+        this.keyPair = keyPair;
+        publicKeyCache = new LinkedHashMap<ByteBuffer, PublicKey>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, PublicKey> eldest) {
+                return size() > PUBLIC_KEY_CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * @return par de chaves do processo, completo quando sua geração terminar
+     */
+    CompletableFuture<KeyPair> getKeyPair() {
+        return keyPair;
+    }
+
+    /**
+     * Recupera chave pública do processo, aguardando sua geração se necessário
+     * @return chave pública do processo
+     */
+    PublicKey getPublicKey() {
+        return awaitKeyPair().getPublic();
+    }
+
+    /**
+     * Converte bytes codificados (X.509) de uma chave pública para a chave correspondente.
+     * Bytes já convertidos retornam a mesma instância de chave
+     * @param encoded bytes da chave codificada
+     * @return chave pública correspondente
+     */
+    PublicKey decodePublicKey(byte[] encoded) {
+        ByteBuffer fingerprint = ByteBuffer.wrap(encoded.clone());
+        synchronized (publicKeyCache) {
+            PublicKey cached = publicKeyCache.get(fingerprint);
+            if (cached != null)
+                return cached;
+        }
+        PublicKey decoded;
+        try {
+            decoded = suite.decodePublicKey(encoded);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(String.format("Expected valid encoded bytes for key generation (found %d bytes)", encoded.length), e);
+        }
+        synchronized (publicKeyCache) {
+            PublicKey cached = publicKeyCache.putIfAbsent(fingerprint, decoded);
+            return cached != null ? cached : decoded;
+        }
+    }
+
+    /**
+     * Calcula a impressão digital (resumo dos bytes codificados) de uma chave pública
+     * @param publicKey chave pública
+     * @return impressão digital da chave
+     */
+    byte[] fingerprint(Key publicKey) {
+        try {
+            return MessageDigest.getInstance(FINGERPRINT_ALGORITHM).digest(publicKey.getEncoded());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Expected "+ FINGERPRINT_ALGORITHM +" algorithm for fingerprints", e);
+        }
+    }
+
+    /**
+     * Descarta os recursos mantidos e a chave memorizada de uma parte oposta (por exemplo, quando deixa a rede)
+     * @param publicKey chave pública da parte oposta
+     */
+    void forget(Key publicKey) {
+        if (publicKey == null)
+            return;
+        suite.forget(publicKey);
+        synchronized (publicKeyCache) {
+            publicKeyCache.remove(ByteBuffer.wrap(publicKey.getEncoded()));
+        }
+    }
+
+    /**
+     * Gera nova chave de sessão (simétrica)
+     * @return chave de sessão
+     * @throws GeneralSecurityException caso algoritmo não esteja disponível
+     */
+    SecretKey generateSessionKey() throws GeneralSecurityException {
+        return suite.generateSessionKey();
+    }
+
+    /**
+     * Cifra uma chave de sessão com a chave pública da parte oposta
+     * @param publicKey chave pública da parte oposta
+     * @param sessionKey chave de sessão
+     * @return chave de sessão cifrada
+     * @throws GeneralSecurityException caso não seja possível cifrar a chave
+     */
+    byte[] wrapSessionKey(Key publicKey, SecretKey sessionKey) throws GeneralSecurityException {
+        return encrypt(publicKey, sessionKey.getEncoded());
+    }
+
+    /**
+     * Decifra com a chave privada do processo uma chave de sessão recebida
+     * @param wrapped chave de sessão cifrada
+     * @return chave de sessão
+     * @throws GeneralSecurityException caso não seja possível decifrar a chave
+     */
+    SecretKey unwrapSessionKey(byte[] wrapped) throws GeneralSecurityException {
+        return suite.decodeSessionKey(decrypt(null, wrapped));
+    }
+
+    /**
+     * Cifra dados. Com uma chave de sessão (simétrica), os dados são cifrados com a cifra autenticada
+     * do conjunto; com uma chave pública, apenas o dono da chave privada correspondente pode decifrá-los
+     * @param key chave de sessão ou chave pública da parte oposta
+     * @param plain dados
+     * @return dados cifrados
+     * @throws GeneralSecurityException caso não seja possível cifrar os dados
+     */
+    byte[] encrypt(Key key, byte[] plain) throws GeneralSecurityException {
+        if (key instanceof SecretKey)
+            return suite.encrypt((SecretKey) key, plain);
+        if (key instanceof PublicKey)
+            return suite.seal((PublicKey) key, plain);
+        throw new InvalidKeyException("Expected session or public key (found " + key.getClass().getName() + ")");
+    }
+
+    /**
+     * Decifra dados. Sem chave de sessão, os dados foram cifrados com a chave pública deste processo
+     * @param sessionKey chave de sessão (null para utilizar a chave privada do processo)
+     * @param data dados cifrados
+     * @return dados decifrados
+     * @throws GeneralSecurityException caso não seja possível decifrar os dados
+     */
+    byte[] decrypt(SecretKey sessionKey, byte[] data) throws GeneralSecurityException {
+        if (sessionKey != null)
+            return suite.decrypt(sessionKey, data);
+        return suite.open(awaitKeyPair().getPrivate(), data);
+    }
+
+    /**
+     * Aguarda a geração do par de chaves do processo
+     * @return par de chaves
+     */
+    private KeyPair awaitKeyPair() {
+        try {
+            return keyPair.join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Expected "+ suite.getKeyAlgorithm() +" key pair for encryption", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dicionário de descrições de items do catálogo do indexador: associa cada descrição distinta a um
+ * identificador inteiro compacto e a uma única instância de texto, compartilhada por todas as ofertas
+ * com aquela descrição.
+ * Cada referência (oferta) é contada: quando a última oferta de uma descrição é removida, a descrição
+ * é descartada e seu identificador reutilizado.
+ * Seguro para acesso concorrente: as operações são sincronizadas no próprio dicionário, que é acessado
+ * brevemente por alterações e consultas de descrições distintas.
+ */
+class DescriptionDictionary {
+    /** Indica descrição desconhecida */
+    static final int NONE = -1;
+
+    /** Identificadores, por descrição */
+    private final Map<String, Integer> ids;
+    /** Descrições, por identificador */
+    private String[] descriptions;
+    /** Número de referências de cada identificador */
+    private int[] referenceCounts;
+    /** Identificadores liberados (pilha encadeada através de {@link #referenceCounts}) */
+    private int freeHead = NONE;
+    /** Número de identificadores já utilizados ao menos uma vez */
+    private int used;
+
+    DescriptionDictionary() {
+        ids = new HashMap<>();
+        descriptions = new String[16];
+        referenceCounts = new int[16];
+    }
+
+    /**
+     * Adiciona uma referência à descrição, registrando-a caso seja desconhecida
+     * @param description descrição
+     * @return identificador da descrição
+     */
+    synchronized int intern(String description) {
+        Integer id = ids.get(description);
+        if (id == null) {
+            id = allocate();
+            descriptions[id] = description;
+            referenceCounts[id] = 0;
+            ids.put(description, id);
+        }
+        referenceCounts[id]++;
+        return id;
+    }
+
+    /**
+     * Remove uma referência da descrição, descartando-a quando não houver mais referências
+     * @param id identificador da descrição
+     */
+    synchronized void release(int id) {
+        if (--referenceCounts[id] > 0)
+            return;
+        ids.remove(descriptions[id]);
+        descriptions[id] = null;
+        referenceCounts[id] = freeHead;
+        freeHead = id;
+    }
+
+    /**
+     * Recupera identificador de uma descrição, sem adicionar referência
+     * @param description descrição
+     * @return identificador, ou {@link #NONE} caso a descrição seja desconhecida
+     */
+    synchronized int lookup(String description) {
+        Integer id = ids.get(description);
+        return id != null ? id : NONE;
+    }
+
+    /**
+     * @param id identificador da descrição
+     * @return instância compartilhada da descrição
+     */
+    synchronized String description(int id) {
+        return descriptions[id];
+    }
+
+    /**
+     * @return número de descrições distintas registradas
+     */
+    synchronized int size() {
+        return ids.size();
+    }
+
+    /**
+     * Recupera identificador livre, aumentando a capacidade dos vetores se necessário
+     */
+    private int allocate() {
+        if (freeHead != NONE) {
+            int id = freeHead;
+            freeHead = referenceCounts[id];
+            return id;
+        }
+        if (used == descriptions.length) {
+            descriptions = Arrays.copyOf(descriptions, used * 2);
+            referenceCounts = Arrays.copyOf(referenceCounts, used * 2);
+        }
+        return used++;
+    }
+}
@@ -0,0 +1,61 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import java.util.Arrays;
+
+/**
+ * Registros de ofertas em vetores primitivos paralelos no heap (um vetor por campo)
+ */
+class HeapOfferRecords implements IOfferRecords {
+    /** Preço de cada registro */
+    private long[] prices;
+    /** Campos inteiros, um vetor por campo */
+    private final int[][] fields;
+
+    HeapOfferRecords(int capacity) {
+        prices = new long[capacity];
+        fields = new int[INT_FIELDS][capacity];
+    }
+
+    @Override
+    public OfferStoreType getType() {
+        return OfferStoreType.HEAP;
+    }
+
+    @Override
+    public long getPrice(int slot) {
+        return prices[slot];
+    }
+
+    @Override
+    public void setPrice(int slot, long price) {
+        prices[slot] = price;
+    }
+
+    @Override
+    public int getInt(int slot, int field) {
+        return fields[field][slot];
+    }
+
+    @Override
+    public void setInt(int slot, int field, int value) {
+        fields[field][slot] = value;
+    }
+
+    @Override
+    public int capacity() {
+        return prices.length;
+    }
+
+    @Override
+    public void grow(int capacity) {
+        if (capacity <= prices.length)
+            return;
+        prices = Arrays.copyOf(prices, capacity);
+        for (int field = 0; field < INT_FIELDS; field++)
+            fields[field] = Arrays.copyOf(fields[field], capacity);
+    }
+
+    @Override
+    public void close() {
+    }
+}
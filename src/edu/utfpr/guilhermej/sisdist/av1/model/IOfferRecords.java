@@ -0,0 +1,46 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import java.io.Closeable;
+
+/**
+ * Registros de tamanho fixo das ofertas de {@link OfferStore}: cada posição (slot) possui um preço e
+ * campos inteiros (vendedor e descrição). Permite manter os registros no heap
+ * ou fora dele, sem alterar os algoritmos do armazenamento.
+ */
+interface IOfferRecords extends Closeable {
+    /** Identificador do vendedor */
+    int SELLER = 0;
+    /** Identificador da descrição (ou próxima posição livre) */
+    int DESCRIPTION = 1;
+    /** Número de campos inteiros de um registro */
+    int INT_FIELDS = 2;
+
+    /**
+     * @return tipo de armazenamento dos registros
+     */
+    OfferStoreType getType();
+
+    long getPrice(int slot);
+
+    void setPrice(int slot, long price);
+
+    /**
+     * @param slot posição do registro
+     * @param field campo inteiro (ex.: {@link #SELLER})
+     * @return valor do campo
+     */
+    int getInt(int slot, int field);
+
+    void setInt(int slot, int field, int value);
+
+    /**
+     * @return número de registros comportados
+     */
+    int capacity();
+
+    /**
+     * Aumenta a capacidade, mantendo os registros existentes
+     * @param capacity capacidade mínima desejada
+     */
+    void grow(int capacity);
+}
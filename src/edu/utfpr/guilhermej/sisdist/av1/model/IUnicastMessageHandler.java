@@ -0,0 +1,20 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import edu.utfpr.guilhermej.sisdist.av1.network.UnicastMessage;
+
+import java.io.IOException;
+
+/**
+ * Processador de um tipo de mensagem unicast, dentro de uma sessão (requisição)
+ */
+@FunctionalInterface
+interface IUnicastMessageHandler {
+    /**
+     * Processa uma mensagem da sessão
+     * @param message mensagem recebida
+     * @param context contexto (estado) da sessão
+     * @return true caso a mensagem encerre a sessão (OK ou FINISH)
+     * @throws IOException caso o envio de resposta falhe ou a parte oposta envie um erro
+     */
+    boolean handle(UnicastMessage message, UnicastCommunicationContext context) throws IOException;
+}
@@ -0,0 +1,109 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Registros de ofertas em um arquivo mapeado em memória: os registros ficam fora do heap (não são
+ * percorridos pelo coletor de lixo) e suas páginas são mantidas em memória pelo sistema operacional.
+ * O arquivo é mapeado em segmentos de tamanho fixo, acrescentados conforme o catálogo cresce, e
+ * seu conteúdo é descartado ao abrir (o catálogo é reconstruído a partir dos pares).
+ * Registro: preço (8 bytes) seguido dos campos inteiros (4 bytes cada), na ordem de bytes nativa.
+ */
+class MappedOfferRecords implements IOfferRecords {
+    /** Tamanho de um registro, em bytes */
+    static final int RECORD_SIZE = Long.BYTES + INT_FIELDS * Integer.BYTES;
+    /** Registros por segmento (potência de 2) */
+    private static final int SEGMENT_SHIFT = 20;
+    private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_RECORDS - 1;
+
+    /** Arquivo mapeado */
+    private final Path path;
+    /** Canal do arquivo */
+    private final FileChannel channel;
+    /** Segmentos mapeados do arquivo */
+    private ByteBuffer[] segments;
+
+    /**
+     * Cria (ou trunca) o arquivo e mapeia o primeiro segmento
+     * @param path caminho do arquivo
+     * @throws IOException caso não seja possível criar ou mapear o arquivo
+     */
+    MappedOfferRecords(Path path) throws IOException {
+        this.path = path;
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null)
+            Files.createDirectories(directory);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segments = new ByteBuffer[0];
+        grow(1);
+    }
+
+    @Override
+    public OfferStoreType getType() {
+        return OfferStoreType.MAPPED;
+    }
+
+    @Override
+    public long getPrice(int slot) {
+        return segments[slot >>> SEGMENT_SHIFT].getLong(offset(slot));
+    }
+
+    @Override
+    public void setPrice(int slot, long price) {
+        segments[slot >>> SEGMENT_SHIFT].putLong(offset(slot), price);
+    }
+
+    @Override
+    public int getInt(int slot, int field) {
+        return segments[slot >>> SEGMENT_SHIFT].getInt(offset(slot) + Long.BYTES + field * Integer.BYTES);
+    }
+
+    @Override
+    public void setInt(int slot, int field, int value) {
+        segments[slot >>> SEGMENT_SHIFT].putInt(offset(slot) + Long.BYTES + field * Integer.BYTES, value);
+    }
+
+    @Override
+    public int capacity() {
+        return segments.length * SEGMENT_RECORDS;
+    }
+
+    @Override
+    public void grow(int capacity) {
+        int count = (capacity + SEGMENT_MASK) >>> SEGMENT_SHIFT;
+        if (count <= segments.length)
+            return;
+        ByteBuffer[] grown = Arrays.copyOf(segments, count);
+        try {
+            for (int i = segments.length; i < count; i++)
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * SEGMENT_RECORDS * RECORD_SIZE,
+                        (long) SEGMENT_RECORDS * RECORD_SIZE).order(ByteOrder.nativeOrder());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Expected mappable catalog file " + path, e);
+        }
+        segments = grown;
+    }
+
+    /**
+     * Fecha o arquivo. Os segmentos permanecem mapeados até serem coletados, e não devem mais ser acessados
+     */
+    @Override
+    public void close() throws IOException {
+        segments = new ByteBuffer[0];
+        channel.close();
+    }
+
+    private static int offset(int slot) {
+        return (slot & SEGMENT_MASK) * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,261 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import java.util.Arrays;
+
+/**
+ * Índice ordenado de ofertas, mantido por {@link OfferStore}: entradas (preço, identificador, posição) em ordem
+ * crescente, distribuídas em blocos de vetores primitivos ordenados (árvore B+ de dois níveis). No índice de uma
+ * descrição o identificador é o do vendedor; no índice de um vendedor, o da descrição.
+ * Localizar, inserir e remover uma entrada exige uma busca binária entre os blocos e outra dentro do bloco,
+ * e deslocar no máximo {@link #BLOCK_SIZE} entradas; as consultas percorrem os blocos em ordem, a partir de
+ * um preço, sem acessar os registros das ofertas.
+ * Não é seguro para acesso concorrente: o acesso é controlado por {@link CatalogIndex}.
+ */
+class OfferOrder {
+    /** Número máximo de entradas de um bloco (um bloco cheio é dividido ao meio) */
+    static final int BLOCK_SIZE = 128;
+    /** Capacidade inicial de um bloco (descrições com poucas ofertas não ocupam blocos inteiros) */
+    private static final int INITIAL_BLOCK_CAPACITY = 4;
+
+    /** Preços das entradas, por bloco */
+    private long[][] prices;
+    /** Identificadores (vendedor ou descrição) das entradas, por bloco */
+    private int[][] ids;
+    /** Posições (slots) das entradas, por bloco */
+    private int[][] slots;
+    /** Número de entradas de cada bloco */
+    private int[] counts;
+    /** Número de blocos */
+    private int blocks;
+    /** Número de entradas */
+    private int size;
+
+    OfferOrder() {
+        prices = new long[4][];
+        ids = new int[4][];
+        slots = new int[4][];
+        counts = new int[4];
+    }
+
+    /**
+     * Insere entrada de uma oferta
+     * @param price preço em centavos
+     * @param id identificador do vendedor ou da descrição
+     * @param slot posição da oferta
+     */
+    void insert(long price, int id, int slot) {
+        int block;
+        if (blocks == 0) {
+            insertBlock(0, INITIAL_BLOCK_CAPACITY);
+            block = 0;
+        }
+        else
+            block = Math.min(findBlock(price, id, slot), blocks - 1);
+        if (counts[block] == BLOCK_SIZE) {
+            split(block);
+            if (compare(price, id, slot, block, counts[block] - 1) > 0)
+                block++;
+        }
+        int count = counts[block];
+        if (count == prices[block].length) {
+            int capacity = Math.min(BLOCK_SIZE, count * 2);
+            prices[block] = Arrays.copyOf(prices[block], capacity);
+            ids[block] = Arrays.copyOf(ids[block], capacity);
+            slots[block] = Arrays.copyOf(slots[block], capacity);
+        }
+        int index = findIndex(block, price, id, slot);
+        System.arraycopy(prices[block], index, prices[block], index + 1, count - index);
+        System.arraycopy(ids[block], index, ids[block], index + 1, count - index);
+        System.arraycopy(slots[block], index, slots[block], index + 1, count - index);
+        prices[block][index] = price;
+        ids[block][index] = id;
+        slots[block][index] = slot;
+        counts[block]++;
+        size++;
+    }
+
+    /**
+     * Localiza uma oferta com um preço e um identificador
+     * @param price preço em centavos
+     * @param id identificador do vendedor ou da descrição
+     * @return posição da oferta, ou {@link OfferStore#NONE} caso não exista
+     */
+    int find(long price, int id) {
+        int block = findBlock(price, id, Integer.MIN_VALUE);
+        if (block == blocks)
+            return OfferStore.NONE;
+        int index = findIndex(block, price, id, Integer.MIN_VALUE);
+        if (prices[block][index] != price || ids[block][index] != id)
+            return OfferStore.NONE;
+        return slots[block][index];
+    }
+
+    /**
+     * Remove entrada de uma oferta
+     * @param price preço em centavos
+     * @param id identificador do vendedor ou da descrição
+     * @param slot posição da oferta
+     * @return true caso a entrada existisse
+     */
+    boolean remove(long price, int id, int slot) {
+        int block = findBlock(price, id, slot);
+        if (block == blocks)
+            return false;
+        int index = findIndex(block, price, id, slot);
+        if (slots[block][index] != slot || prices[block][index] != price)
+            return false;
+        int count = --counts[block];
+        System.arraycopy(prices[block], index + 1, prices[block], index, count - index);
+        System.arraycopy(ids[block], index + 1, ids[block], index, count - index);
+        System.arraycopy(slots[block], index + 1, slots[block], index, count - index);
+        if (count == 0)
+            removeBlock(block);
+        size--;
+        return true;
+    }
+
+    /**
+     * @return número de entradas
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param price preço mínimo
+     * @return cursor posicionado na primeira entrada com preço maior ou igual
+     */
+    Cursor seek(long price) {
+        int block = findBlock(price, Integer.MIN_VALUE, Integer.MIN_VALUE);
+        int index = block < blocks ? findIndex(block, price, Integer.MIN_VALUE, Integer.MIN_VALUE) : 0;
+        return new Cursor(block, index);
+    }
+
+    /**
+     * Primeiro bloco cuja última entrada é maior ou igual à chave ({@link #blocks} caso nenhum)
+     */
+    private int findBlock(long price, int id, int slot) {
+        int low = 0;
+        int high = blocks;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(price, id, slot, middle, counts[middle] - 1) > 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Primeira entrada do bloco maior ou igual à chave
+     */
+    private int findIndex(int block, long price, int id, int slot) {
+        int low = 0;
+        int high = counts[block];
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(price, id, slot, block, middle) > 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Compara chave (preço, identificador, posição) com uma entrada
+     */
+    private int compare(long price, int id, int slot, int block, int index) {
+        int result = Long.compare(price, prices[block][index]);
+        if (result == 0)
+            result = Integer.compare(id, ids[block][index]);
+        if (result == 0)
+            result = Integer.compare(slot, slots[block][index]);
+        return result;
+    }
+
+    /**
+     * Divide bloco cheio, movendo a segunda metade de suas entradas para um novo bloco seguinte
+     */
+    private void split(int block) {
+        insertBlock(block + 1, BLOCK_SIZE);
+        int half = BLOCK_SIZE / 2;
+        System.arraycopy(prices[block], half, prices[block + 1], 0, BLOCK_SIZE - half);
+        System.arraycopy(ids[block], half, ids[block + 1], 0, BLOCK_SIZE - half);
+        System.arraycopy(slots[block], half, slots[block + 1], 0, BLOCK_SIZE - half);
+        counts[block + 1] = BLOCK_SIZE - half;
+        counts[block] = half;
+    }
+
+    private void insertBlock(int block, int capacity) {
+        if (blocks == counts.length) {
+            prices = Arrays.copyOf(prices, blocks * 2);
+            ids = Arrays.copyOf(ids, blocks * 2);
+            slots = Arrays.copyOf(slots, blocks * 2);
+            counts = Arrays.copyOf(counts, blocks * 2);
+        }
+        System.arraycopy(prices, block, prices, block + 1, blocks - block);
+        System.arraycopy(ids, block, ids, block + 1, blocks - block);
+        System.arraycopy(slots, block, slots, block + 1, blocks - block);
+        System.arraycopy(counts, block, counts, block + 1, blocks - block);
+        prices[block] = new long[capacity];
+        ids[block] = new int[capacity];
+        slots[block] = new int[capacity];
+        counts[block] = 0;
+        blocks++;
+    }
+
+    private void removeBlock(int block) {
+        blocks--;
+        System.arraycopy(prices, block + 1, prices, block, blocks - block);
+        System.arraycopy(ids, block + 1, ids, block, blocks - block);
+        System.arraycopy(slots, block + 1, slots, block, blocks - block);
+        System.arraycopy(counts, block + 1, counts, block, blocks - block);
+        prices[blocks] = null;
+        ids[blocks] = null;
+        slots[blocks] = null;
+    }
+
+    /**
+     * Percorre as entradas em ordem crescente. Invalidado por qualquer alteração do índice
+     */
+    class Cursor {
+        private int block;
+        private int index;
+
+        private Cursor(int block, int index) {
+            this.block = block;
+            this.index = index;
+        }
+
+        /**
+         * @return false caso todas as entradas tenham sido percorridas
+         */
+        boolean valid() {
+            return block < blocks;
+        }
+
+        long price() {
+            return prices[block][index];
+        }
+
+        int id() {
+            return ids[block][index];
+        }
+
+        int slot() {
+            return slots[block][index];
+        }
+
+        /**
+         * Avança para a próxima entrada
+         */
+        void next() {
+            if (++index == counts[block]) {
+                block++;
+                index = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import edu.utfpr.guilhermej.sisdist.av1.util.Pair;
+
+import java.util.List;
+
+/**
+ * Página de uma pesquisa das melhores ofertas do {@link CatalogIndex}, com o cursor da página seguinte
+ */
+class OfferPage {
+    /** Ofertas da página, da melhor para a pior */
+    private final List<Pair<PeerOpponent, SaleItem>> offers;
+    /** Cursor da página seguinte (null caso não haja mais ofertas) */
+    private final SearchCursor next;
+
+    OfferPage(List<Pair<PeerOpponent, SaleItem>> offers, SearchCursor next) {
+        this.offers = offers;
+        this.next = next;
+    }
+
+    List<Pair<PeerOpponent, SaleItem>> getOffers() {
+        return offers;
+    }
+
+    SearchCursor getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,210 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Armazenamento primitivo das ofertas do catálogo do indexador: cada oferta ocupa uma posição (slot)
+ * em registros de tamanho fixo ({@link IOfferRecords}), com preço (centavos), vendedor e descrição
+ * identificados por inteiros atribuídos por {@link CatalogIndex}. Os registros são mantidos em vetores
+ * paralelos no heap ou em um arquivo mapeado em memória, fora do heap.
+ * As ofertas de uma descrição são mantidas em um índice ordenado por preço ({@link OfferOrder}), de forma que
+ * inserir, localizar e remover uma oferta tenha custo logarítmico e as melhores ofertas sejam as primeiras
+ * percorridas; as ofertas de um vendedor são mantidas em outro índice ordenado, por preço e descrição
+ * (multiconjunto descrição/preço do vendedor), de forma que localizar uma oferta de um vendedor tenha custo
+ * logarítmico no número de ofertas dele, e remover todas elas não percorra o catálogo.
+ * Posições liberadas são reutilizadas.
+ * O acesso é controlado por {@link CatalogIndex}: os vetores são aumentados ({@link #grow(int, int)}) com
+ * acesso exclusivo; as demais operações são concorrentes, serializadas por descrição (índice da descrição) e
+ * por vendedor (índice do vendedor). A alocação de posições é sincronizada no próprio armazenamento.
+ */
+class OfferStore implements Closeable {
+    /** Indica ausência de posição (fim de lista) */
+    static final int NONE = -1;
+    /** Capacidade inicial dos registros no heap */
+    static final int INITIAL_CAPACITY = 64;
+
+    /** Registros das ofertas */
+    private final IOfferRecords records;
+    /** Índice ordenado das ofertas de cada descrição (null caso a descrição não possua ofertas) */
+    private OfferOrder[] descriptionOrders;
+    /** Índice ordenado das ofertas de cada vendedor (null caso o vendedor não possua ofertas) */
+    private OfferOrder[] sellerOrders;
+    /** Primeira posição livre (posições livres são encadeadas por {@link IOfferRecords#DESCRIPTION}) */
+    private int freeHead = NONE;
+    /** Número de posições já utilizadas ao menos uma vez */
+    private int used;
+    /** Número de ofertas armazenadas */
+    private int size;
+
+    /**
+     * Armazenamento no heap
+     */
+    OfferStore() {
+        this(new HeapOfferRecords(INITIAL_CAPACITY));
+    }
+
+    /**
+     * @param records registros das ofertas (inicialmente vazios)
+     */
+    OfferStore(IOfferRecords records) {
+        this.records = records;
+        descriptionOrders = new OfferOrder[0];
+        sellerOrders = new OfferOrder[0];
+    }
+
+    /**
+     * Recupera posição livre para uma oferta, sem aumentar os vetores
+     * @param description identificador da descrição da oferta
+     * @param seller identificador do vendedor da oferta
+     * @return posição livre, ou {@link #NONE} caso os vetores devam ser aumentados ({@link #grow(int, int)})
+     */
+    synchronized int allocate(int description, int seller) {
+        if (description >= descriptionOrders.length || seller >= sellerOrders.length)
+            return NONE;
+        if (freeHead != NONE) {
+            int slot = freeHead;
+            freeHead = records.getInt(slot, IOfferRecords.DESCRIPTION);
+            size++;
+            return slot;
+        }
+        if (used == records.capacity())
+            return NONE;
+        size++;
+        return used++;
+    }
+
+    /**
+     * Aumenta os vetores para comportar uma nova oferta da descrição e do vendedor.
+     * Deve ser chamado com acesso exclusivo ao armazenamento
+     * @param description identificador da descrição
+     * @param seller identificador do vendedor
+     */
+    void grow(int description, int seller) {
+        if (used == records.capacity())
+            records.grow(used * 2);
+        if (description >= descriptionOrders.length)
+            descriptionOrders = Arrays.copyOf(descriptionOrders, capacity(descriptionOrders.length, description));
+        if (seller >= sellerOrders.length)
+            sellerOrders = Arrays.copyOf(sellerOrders, capacity(sellerOrders.length, seller));
+    }
+
+    /**
+     * Insere oferta em uma posição alocada ({@link #allocate(int, int)})
+     * @param slot posição da oferta
+     * @param description identificador da descrição
+     * @param seller identificador do vendedor
+     * @param price preço em centavos
+     */
+    void insert(int slot, int description, int seller, long price) {
+        records.setPrice(slot, price);
+        records.setInt(slot, IOfferRecords.SELLER, seller);
+        records.setInt(slot, IOfferRecords.DESCRIPTION, description);
+
+        OfferOrder order = descriptionOrders[description];
+        if (order == null)
+            order = descriptionOrders[description] = new OfferOrder();
+        order.insert(price, seller, slot);
+
+        OfferOrder sellerOrder = sellerOrders[seller];
+        if (sellerOrder == null)
+            sellerOrder = sellerOrders[seller] = new OfferOrder();
+        sellerOrder.insert(price, description, slot);
+    }
+
+    /**
+     * Localiza uma oferta de um vendedor, pelo índice do vendedor
+     * @param description identificador da descrição
+     * @param seller identificador do vendedor
+     * @param price preço em centavos
+     * @return posição da oferta, ou {@link #NONE} caso não exista
+     */
+    int find(int description, int seller, long price) {
+        OfferOrder order = sellerOrder(seller);
+        return order != null ? order.find(price, description) : NONE;
+    }
+
+    /**
+     * Remove oferta, liberando sua posição
+     * @param slot posição da oferta
+     */
+    void remove(int slot) {
+        int description = records.getInt(slot, IOfferRecords.DESCRIPTION);
+        int seller = records.getInt(slot, IOfferRecords.SELLER);
+        OfferOrder order = descriptionOrders[description];
+        order.remove(records.getPrice(slot), seller, slot);
+        if (order.size() == 0)
+            descriptionOrders[description] = null;
+
+        OfferOrder sellerOrder = sellerOrders[seller];
+        sellerOrder.remove(records.getPrice(slot), description, slot);
+        if (sellerOrder.size() == 0)
+            sellerOrders[seller] = null;
+
+        free(slot);
+    }
+
+    /**
+     * @param description identificador da descrição
+     * @return índice ordenado das ofertas da descrição, ou null caso não existam
+     */
+    OfferOrder order(int description) {
+        return description < descriptionOrders.length ? descriptionOrders[description] : null;
+    }
+
+    /**
+     * @param seller identificador do vendedor
+     * @return índice ordenado (por preço e descrição) das ofertas do vendedor, ou null caso não existam
+     */
+    OfferOrder sellerOrder(int seller) {
+        return seller < sellerOrders.length ? sellerOrders[seller] : null;
+    }
+
+    int description(int slot) {
+        return records.getInt(slot, IOfferRecords.DESCRIPTION);
+    }
+
+    long price(int slot) {
+        return records.getPrice(slot);
+    }
+
+    int seller(int slot) {
+        return records.getInt(slot, IOfferRecords.SELLER);
+    }
+
+    /**
+     * @return tipo de armazenamento dos registros
+     */
+    OfferStoreType getType() {
+        return records.getType();
+    }
+
+    /**
+     * @return número de ofertas armazenadas
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Devolve posição à lista de posições livres
+     */
+    private synchronized void free(int slot) {
+        records.setInt(slot, IOfferRecords.DESCRIPTION, freeHead);
+        freeHead = slot;
+        size--;
+    }
+
+    /**
+     * Nova capacidade de um vetor para comportar um índice
+     */
+    private static int capacity(int length, int index) {
+        return Math.max(index + 1, Math.max(16, length * 2));
+    }
+
+    @Override
+    public void close() throws IOException {
+        records.close();
+    }
+}
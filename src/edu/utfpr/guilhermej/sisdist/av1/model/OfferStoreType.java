@@ -0,0 +1,11 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+/**
+ * Formas de armazenamento das ofertas do catálogo do indexador
+ */
+public enum OfferStoreType {
+    /** Vetores primitivos no heap */
+    HEAP,
+    /** Arquivo mapeado em memória, fora do heap (catálogos muito grandes) */
+    MAPPED
+}
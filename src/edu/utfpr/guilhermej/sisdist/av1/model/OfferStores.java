@@ -0,0 +1,40 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Fábrica de armazenamentos das ofertas do catálogo
+ */
+class OfferStores {
+    private OfferStores() {
+    }
+
+    /**
+     * Cria armazenamento do tipo solicitado. Caso o arquivo mapeado não possa ser criado,
+     * utiliza armazenamento no heap
+     * @param type tipo de armazenamento desejado
+     * @param path arquivo do armazenamento mapeado (null para um arquivo temporário)
+     * @return armazenamento criado
+     */
+    static OfferStore create(OfferStoreType type, Path path) {
+        switch (type) {
+            case MAPPED:
+                try {
+                    if (path == null) {
+                        path = Files.createTempFile("sisdist-catalog", ".dat");
+                        path.toFile().deleteOnExit();
+                    }
+                    return new OfferStore(new MappedOfferRecords(path));
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                    System.out.println("Memory-mapped catalog not available, using heap catalog");
+                }
+                return new OfferStore();
+            case HEAP:
+            default:
+                return new OfferStore();
+        }
+    }
+}
@@ -1,22 +1,30 @@
 package edu.utfpr.guilhermej.sisdist.av1.model;
 
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.ITaskExecutor;
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.TaskExecutionMode;
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.TaskExecutors;
+import edu.utfpr.guilhermej.sisdist.av1.crypto.CryptoSuiteType;
+import edu.utfpr.guilhermej.sisdist.av1.crypto.CryptoSuites;
+import edu.utfpr.guilhermej.sisdist.av1.crypto.ICryptoSuite;
 import edu.utfpr.guilhermej.sisdist.av1.event.ItemListEvent;
 import edu.utfpr.guilhermej.sisdist.av1.event.ItemProposalEvent;
 import edu.utfpr.guilhermej.sisdist.av1.listener.*;
 import edu.utfpr.guilhermej.sisdist.av1.network.*;
 import edu.utfpr.guilhermej.sisdist.av1.util.Pair;
 
-import javax.crypto.*;
-import javax.xml.bind.DatatypeConverter;
+import javax.crypto.SecretKey;
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.InetAddress;
-import java.net.SocketException;
-import java.nio.charset.StandardCharsets;
-import java.security.*;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.X509EncodedKeySpec;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Esta classe representa o participante no processo, e seus objetos se
@@ -32,38 +40,94 @@ public class Peer {
     //<editor-fold desc="Constantes">
     /** Timeout durante comunicação síncrona, para evitar falhas de comunicação. */
     private static final int TCP_TIMEOUT = 5000;
+    /** Tempo máximo que uma conexão unicast persistente pode permanecer ociosa do lado do servidor */
+    private static final int TCP_KEEP_ALIVE = 30000;
+    /** Utiliza servidor TCP não bloqueante (propriedade de sistema "sisdist.tcp.nio") */
+    private static final boolean NIO_TCP_SERVER = Boolean.parseBoolean(System.getProperty("sisdist.tcp.nio", "true"));
+    /** Modo de execução de tarefas assíncronas (propriedade de sistema "sisdist.execution") */
+    private static final TaskExecutionMode EXECUTION_MODE =
+            TaskExecutionMode.valueOf(System.getProperty("sisdist.execution", TaskExecutionMode.VIRTUAL.name()));
+    /** Janela (ms) de acumulo de adições e remoções de items antes do envio ao indexador (propriedade de sistema "sisdist.batch.window") */
+    private static final long CATALOG_BATCH_WINDOW = Long.getLong("sisdist.batch.window", 200);
+    /** Número de adições e remoções de items que provoca envio imediato ao indexador (propriedade de sistema "sisdist.batch.size") */
+    private static final int CATALOG_BATCH_SIZE = Integer.getInteger("sisdist.batch.size", 256);
+    /** Número máximo de alterações do catálogo mantidas para reenvio parcial a um novo indexador */
+    private static final int CATALOG_LOG_SIZE = Integer.getInteger("sisdist.catalog.log", 4096);
+    /** Número máximo de items (melhores ofertas) retornados pelo indexador em uma página de busca (propriedade de sistema "sisdist.search.limit") */
+    private static final int SEARCH_RESULT_LIMIT = Math.max(1, Integer.getInteger("sisdist.search.limit", 10));
+    /** Arquivo com identidade (ID e par de chaves) reutilizada entre execuções (propriedade de sistema "sisdist.keystore", ausente para nova identidade a cada execução) */
+    private static final String KEY_STORE_PATH = System.getProperty("sisdist.keystore");
+    /** Armazenamento das ofertas do catálogo quando indexador (propriedade de sistema "sisdist.catalog.store") */
+    private static final OfferStoreType OFFER_STORE =
+            OfferStoreType.valueOf(System.getProperty("sisdist.catalog.store", OfferStoreType.HEAP.name()));
+    /** Arquivo do catálogo mapeado em memória (propriedade de sistema "sisdist.catalog.file", ausente para arquivo temporário) */
+    private static final String OFFER_STORE_PATH = System.getProperty("sisdist.catalog.file");
+    /** Diretório do registro durável do catálogo do índice (null para não registrar) */
+    private static final String CATALOG_JOURNAL_PATH = System.getProperty("sisdist.catalog.journal");
+    /** Número de alterações registradas após o qual um novo snapshot do catálogo é gravado */
+    private static final int CATALOG_SNAPSHOT_INTERVAL = Integer.getInteger("sisdist.catalog.snapshot", 100000);
+    /** Diretório do registro local de items à venda e saldo deste processo (null para não registrar) */
+    private static final String SELLER_LEDGER_PATH = System.getProperty("sisdist.ledger");
     /** Minimo de pares necessário para iniciar eleição do indexador. */
     private static final int MIN_INDEXER_PEERS = 3;
+    /** Número de indexadores eleitos, cada um responsável por um fragmento do catálogo (propriedade de sistema "sisdist.indexer.shards"), deve ser o mesmo em todos os pares */
+    private static final int INDEXER_SHARDS = Math.max(1, Integer.getInteger("sisdist.indexer.shards", 1));
+    /** Número de ciclos sem anúncio após o qual um indexador eleito é considerado desconectado (modo fragmentado) */
+    private static final int INDEXER_SILENT_CYCLES = 3;
     /**  Numero de tentativas para reconexão depois de haver falha */
     private static final int RECONNECTION_TRIES = 3;
-    /** Tamanho da chave criptografica utilizada */
-    private static final int KEY_LENGTH = 1024;
-    /** Algoritmo de criptografia (assimetrica) */
-    private static final String CRYPTO_ALGORITHM = "RSA";
+    /** Código de erro de delta do catálogo recusado: versão base diferente da conhecida pelo indexador */
+    private static final int CATALOG_VERSION_MISMATCH = 80;
+    /** Conjunto de algoritmos criptográficos (propriedade de sistema "sisdist.crypto"), deve ser o mesmo em todos os pares */
+    private static final CryptoSuiteType CRYPTO_SUITE =
+            CryptoSuiteType.valueOf(System.getProperty("sisdist.crypto", CryptoSuiteType.RSA.name()));
     /** IP multicast */
     private static final String MULTICAST_IP_ADD = "233.32.31.30";
     /** Intervalo de tempo em que um indexador envia mensagens */
     private static final int DELTA = 2500;
-    /** Valor inicial de dinheiro {@link #money}*/
-    public static final float INITIAL_MONEY = 1000f;
+    /** Valor inicial de dinheiro {@link #money}, em centavos */
+    public static final long INITIAL_MONEY = 1000 * SaleItem.PRICE_SCALE;
     //</editor-fold>
 
     //<editor-fold desc="Objetos Membro">
     /** Identificador do processo */
     private UUID uuid;
-    /** Par de chaves assimetricas para criptografia */
-    private KeyPair keyPair;
+    /** Par de chaves assimetricas do processo e operações de criptografia */
+    private CryptoService cryptoService;
+    /**
+     * Codificadores das mensagens cifradas e replicadas, um por thread (buffers reutilizados). Cada sessão
+     * é processada sincronamente em uma única thread, então as mensagens de uma sessão compartilham o seu
+     */
+    private final ThreadLocal<UnicastMessageCodec> messageCodec = ThreadLocal.withInitial(UnicastMessageCodec::new);
+    /** Executor de todo trabalho assíncrono do processo (requisições, eventos e sessões) */
+    private final ITaskExecutor taskExecutor;
     /** Representa uma conexão multicast do processo */
     private MulticastPeer multicastPeer;
     /** Representa um servidor unicast do processo */
-    private TcpServer tcpServer;
-
-    /** Ultimo processo que atuou como indexador é armazenado aqui */
-    private PeerOpponent lastActiveIndexer;
-    /** Mapa de identificadores para respectivos pares */
-    private final Map<UUID, PeerOpponent> peerMap;
+    private ITcpServer tcpServer;
+    /** Conexões unicast persistentes com outros pares (em geral, com o indexador) */
+    private TcpConnectionPool connectionPool;
+    /** Acumula adições e remoções de items deste processo para envio em lote ao indexador */
+    private CatalogUpdateBatcher catalogUpdateBatcher;
+    /** Replica as alterações do catálogo ao indexador reserva, quando este processo é o indexador */
+    private CatalogReplicator catalogReplicator;
+    /** Registro durável do catálogo do índice (null caso não configurado) */
+    private CatalogJournal catalogJournal;
+    /** Registro local de items à venda e saldo deste processo (null caso não configurado) */
+    private SellerLedger sellerLedger;
+
+    /** Indexadores ativos (o ultimo processo que atuou como indexador, ou um por fragmento do catálogo) */
+    private ShardRing indexerRing;
+    /** Indexadores que se anunciaram desde a última verificação da thread de controle (modo fragmentado) */
+    private final Set<UUID> announcedIndexers;
+    /** Ciclos consecutivos sem anúncio de cada indexador eleito (modo fragmentado, acessado apenas pela thread de controle) */
+    private final Map<UUID, Integer> silentIndexers;
+    /** Pares conhecidos, por identificador, e índice de items à venda por eles (utilizado quando indexador) */
+    private final PeerRegistry peerRegistry;
     /** Lista de items para venda por esse processo */
     private final List<SaleItem> saleItemList;
+    /** Tabela de processadores de mensagens unicast, por tipo de mensagem */
+    private final Map<UnicastMessage.Type, IUnicastMessageHandler> tcpMessageHandlers;
     //</editor-fold>
 
     //<editor-fold desc="Lista de Observadores">
@@ -74,7 +138,7 @@ public class Peer {
     /** Observadores de eventos de conexão de indexador (quando se conecta com um indexador ou desconecta) */
     private final List<ITriggerEventListener> indexerConnectionEventListeners;
     /** Observadores de eventos de alteração do dinheiro */
-    private final List<IFloatEventListener> moneyEventListener;
+    private final List<ILongEventListener> moneyEventListener;
     /** Observadores de eventos de transação de items (procura, compra e venda) */
     private final List<IItemProposalEventListener> itemProposalEventListeners;
     /** Observadores de eventos de items adicionados, removidos ou alterados*/
@@ -82,8 +146,14 @@ public class Peer {
     //</editor-fold>
 
     //<editor-fold desc="Variaveis membro">
-    /** Dinheiro total do par */
-    private float money = INITIAL_MONEY;
+    /** Dinheiro total do par, em centavos */
+    private volatile long money = INITIAL_MONEY;
+    /** Versão do catálogo deste processo: incrementada a cada requisição de alteração enviada a um indexador */
+    private final AtomicLong catalogVersion = new AtomicLong();
+    /** Alterações do catálogo deste processo enviadas ao indexador, por versão */
+    private final CatalogMutationLog catalogLog = new CatalogMutationLog(CATALOG_LOG_SIZE);
+    /** Última versão do catálogo deste processo confirmada por cada indexador (base dos próximos deltas) */
+    private final Map<UUID, Long> indexedCatalogVersions = new ConcurrentHashMap<>();
     /** Porta TCP do servidor unicast */
     private int tcpPort;
     /** Indica finalização da classe (utilizado para sair corretamente de threads que estão em loop) */
@@ -115,11 +185,16 @@ public class Peer {
      */
     public Peer(){
         //<editor-fold desc="Inicialização de listas, mapas e trancas">
-        peerMap = new HashMap<>();
+        peerRegistry = new PeerRegistry(new CatalogIndex(OfferStores.create(OFFER_STORE,
+                OFFER_STORE_PATH != null ? Paths.get(OFFER_STORE_PATH) : null)));
         saleItemList = new ArrayList<>();
+        indexerRing = new ShardRing(Collections.emptyList());
+        announcedIndexers = ConcurrentHashMap.newKeySet();
+        silentIndexers = new HashMap<>();
 
         indexerUpLock = new Object();
         moneyLock = new Object();
+        tcpMessageHandlers = buildTcpMessageHandlers();
         //</editor-fold>
 
         //<editor-fold desc="Inicialização Observadores">
@@ -130,30 +205,50 @@ public class Peer {
         itemListEventListeners = new ArrayList<>();
         //</editor-fold>
 
-        //Gerado novo identificador universal aleatório
-        uuid = UUID.randomUUID();
-        keyPair = buildKeyPair(KEY_LENGTH, CRYPTO_ALGORITHM);
-        multicastPeer = new MulticastPeer(MULTICAST_IP_ADD);
+        taskExecutor = TaskExecutors.create(EXECUTION_MODE);
+        //Items à venda e saldo são recuperados do registro local, caso configurado, e enviados
+        //ao indexador em uma única requisição quando ele for encontrado
+        if (SELLER_LEDGER_PATH != null)
+            sellerLedger = openSellerLedger(Paths.get(SELLER_LEDGER_PATH));
+        //Recupera identidade armazenada ou gera nova (par de chaves gerado em segundo plano)
+        initIdentity();
+        multicastPeer = new MulticastPeer(MULTICAST_IP_ADD, taskExecutor);
         //Adiciona função de processamento de mensagens multicast como observador de mensagens do par multicast
         multicastPeer.addMessageListener(this::processMulticastMessage);
 
         //Porta TCP é um inteiro entre 60000 e 65535
         tcpPort = 60000 + new Random().nextInt(5535);
         try{
-            tcpServer = new TcpServer(tcpPort);
+            tcpServer = NIO_TCP_SERVER ?
+                    new NioTcpServer(tcpPort, TCP_KEEP_ALIVE, taskExecutor) :
+                    new TcpServer(tcpPort, TCP_KEEP_ALIVE, taskExecutor);
         }catch (IOException e){
             e.printStackTrace();
         }
-        //Adiciona função como observador de conexões de clientes do servidor TCP.
-        //Este observador criará uma thread que receberá e processará as requisições do novo cliente
+        //Adiciona função como observador de requisições de clientes do servidor TCP.
+        //Este observador receberá e processará cada requisição em uma thread do servidor
         tcpServer.addTcpConnectionListener(this::onTcpClientConnect);
-
-        //Adiciona a si mesmo na lista de pares conhecidos
-        peerMap.put(uuid,
-                new PeerOpponent()
+        //Conexões ociosas expiram antes do servidor da parte oposta encerrá-las,
+        //e são verificadas com uma requisição vazia quando ficam ociosas por mais de DELTA ms
+        connectionPool = new TcpConnectionPool(TCP_TIMEOUT, TCP_KEEP_ALIVE / 2, DELTA, this::tcpPing, taskExecutor);
+        //Alterações na lista de items são enviadas ao indexador em lotes
+        catalogUpdateBatcher = new CatalogUpdateBatcher(CATALOG_BATCH_WINDOW, CATALOG_BATCH_SIZE,
+                this::sendCatalogUpdate, taskExecutor);
+        //Quando indexador, alterações do catálogo são replicadas continuamente ao próximo par na ordem de eleição
+        catalogReplicator = new CatalogReplicator(CATALOG_BATCH_WINDOW, CATALOG_BATCH_SIZE,
+                this::sendReplicaBatch, this::replicateCatalog, taskExecutor);
+
+        //Adiciona a si mesmo na lista de pares conhecidos, com sua chave quando ela estiver pronta
+        PeerOpponent self = new PeerOpponent()
                 .setPortTcp(tcpPort)
-                .setUuid(uuid)
-                .setKey(keyPair.getPublic()));
+                .setUuid(uuid);
+        peerRegistry.register(uuid, peerUuid -> self);
+        cryptoService.getKeyPair().thenAccept(keyPair -> self
+                .setKey(keyPair.getPublic())
+                .setKeyFingerprint(cryptoService.fingerprint(keyPair.getPublic())));
+        //Catálogo do índice é recuperado do registro durável, caso configurado
+        if (CATALOG_JOURNAL_PATH != null)
+            catalogJournal = openCatalogJournal(Paths.get(CATALOG_JOURNAL_PATH));
 
         //habilita sua propria conexão
         executionEnable = true;
@@ -172,19 +267,29 @@ public class Peer {
 
     /**
      * Retorna dinheiro atual do par
-     * @return dinheiro atual do par
+     * @return dinheiro atual do par, em centavos
      */
-    public float getMoney() {
+    public long getMoney() {
         return money;
     }
 
+    /**
+     * Retorna items à venda por este par (ex.: recuperados do registro local ao iniciar)
+     * @return cópia da lista de items à venda
+     */
+    public List<SaleItem> getSaleItems() {
+        synchronized (saleItemList) {
+            return new ArrayList<>(saleItemList);
+        }
+    }
+
     /**
      * Armazena novo valor de dinheiro.
      * Caso seja um valor diferente do anterior, lança evento para observadores.
-     * @param money dinheiro
+     * @param money dinheiro, em centavos
      * @return este objeto (para construção encadeada)
      */
-    public Peer setMoney(float money) {
+    public Peer setMoney(long money) {
         if(this.money != money) {
             this.money = money;
             onMoneyEventAsync(money);
@@ -211,18 +316,19 @@ public class Peer {
         //Primeiramente adiciona item à lista local, e envia um evento de item criado
         synchronized (saleItemList) {
             saleItemList.add(item);
+            if (sellerLedger != null)
+                sellerLedger.add(item);
             onItemListEventAsync(new ItemListEvent(item, ItemListEvent.ItemListEventType.ADDED));
         }
-        //Se não for indexador, envia mensagem unicast para atualizar lista do indexador
-        if(!indexing) {
+        //Se não for o indexador responsável pela descrição, agenda envio (em lote) de mensagem unicast
+        //para atualizar lista do indexador
+        if(!isIndexerFor(item.getDescription())) {
             if (indexerUp)
-                sendAddSaleItem(item, lastActiveIndexer);
+                catalogUpdateBatcher.add(item);
         }
-        //Se for indexador, apenas adciona item ao seu objeto no mapa de pares
+        //Se for, apenas adciona item ao seu objeto no mapa de pares (e ao índice)
         else {
-            synchronized (peerMap) {
-                peerMap.get(uuid).addItem(item);
-            }
+            applyCatalogMutation(uuid, UnicastMessage.add(item.getDescription(), item.getPrice()));
         }
     }
 
@@ -232,15 +338,16 @@ public class Peer {
      */
     public void searchItemDescription(String description) {
         //Não deve ser executado caso não exista indexador ativo
-        if(!indexerUp)
+        PeerOpponent indexer = indexerRing.indexerFor(description);
+        if(!indexerUp || indexer == null)
             return;
-        //Se não for indexador, envia mensagem unicast para indexador para pesquisa
-        if(!indexing){
-            sendSearchItemByDescription(description, lastActiveIndexer);
+        //Se não for o indexador responsável pela descrição, envia mensagem unicast para ele para pesquisa
+        if(!uuid.equals(indexer.getUuid())){
+            sendSearchItemByDescription(description, indexer);
         }
         //Se for, realiza busca localmente e lança evento de transação de item (item encontrado/não encontrado)
         else{
-            Pair<PeerOpponent, SaleItem> pair = getPairPeerItemByPriceAndReputation(getPeerBySaleItemDescription(uuid, description));
+            Pair<PeerOpponent, SaleItem> pair = peerRegistry.getBestOffer(description, uuid);
             if(pair != null)
                 onItemProposalEventAsync(ItemProposalEvent.itemFound(pair.getRight(), pair.getLeft(), this::sendBuyItem));
             else
@@ -255,8 +362,21 @@ public class Peer {
     public void disconnect() {
         multicastLeavingMessage();
         executionEnable = false;
+        catalogUpdateBatcher.shutdown();
+        catalogReplicator.shutdown();
+        connectionPool.disconnect();
         tcpServer.disconnect();
         multicastPeer.disconect();
+        taskExecutor.shutdown();
+        try {
+            if (sellerLedger != null)
+                sellerLedger.close();
+            if (catalogJournal != null)
+                catalogJournal.close();
+            peerRegistry.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
     //</editor-fold>
 
@@ -282,12 +402,12 @@ public class Peer {
     }
 
     /** Adiciona observador de alteração no dinheiro */
-    public void addMoneyListener(IFloatEventListener listener){
+    public void addMoneyListener(ILongEventListener listener){
         moneyEventListener.add(listener);
     }
 
     /** Remove observador de alteração no dinheiro */
-    public void removeMoneyListener(IFloatEventListener listener){
+    public void removeMoneyListener(ILongEventListener listener){
         moneyEventListener.remove(listener);
     }
 
@@ -325,39 +445,57 @@ public class Peer {
     //Inicio de funções privadas
 
     /**
-     * Cria um par de chaves assimétricas aleatório
-     * @param length tamanho das chaves em bits
-     * @param algorithm algoritmo utilizado para geração de chaves
-     * @return um par de chaves assimétricas
+     * Inicializa identificador e serviço de criptografia do processo.
+     * Caso um arquivo de identidade esteja configurado e exista, o identificador e o par de chaves são
+     * reutilizados; caso contrário, um novo identificador é gerado e o par de chaves é gerado em segundo
+     * plano (requisições que dependem dele aguardam sua geração), sendo armazenado no arquivo configurado
      */
-    private KeyPair buildKeyPair(int length, String algorithm){
-        try{
-            KeyPairGenerator keyGen;
-            keyGen = KeyPairGenerator.getInstance(algorithm);
-            keyGen.initialize(length, new SecureRandom());
-            return keyGen.generateKeyPair();
-        }catch (NoSuchAlgorithmException e){
-            e.printStackTrace();
+    private void initIdentity(){
+        ICryptoSuite suite = CryptoSuites.create(CRYPTO_SUITE);
+        PeerKeyStore keyStore = KEY_STORE_PATH != null ? new PeerKeyStore(Paths.get(KEY_STORE_PATH), suite.getKeyAlgorithm()) : null;
+        Pair<UUID, KeyPair> identity = keyStore != null ? keyStore.load() : null;
+        if(identity != null) {
+            uuid = identity.getLeft();
+            cryptoService = new CryptoService(suite, identity.getRight());
+            return;
+        }
+        //Gerado novo identificador universal aleatório
+        uuid = UUID.randomUUID();
+        cryptoService = new CryptoService(suite, taskExecutor);
+        if(keyStore != null) {
+            UUID storedUuid = uuid;
+            cryptoService.getKeyPair().thenAccept(keyPair -> {
+                try {
+                    keyStore.save(storedUuid, keyPair);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
         }
-        return null;
     }
 
     /**
      * Inicializa thread de controle do indexador e eleição
      */
     private void initIndexerControlThread(){
-        Thread peerThread = new Thread(() -> {
+        taskExecutor.start("Indexer Control Thread", () -> {
             //Envia mensagem introdutória à todos os participantes
             multicastGreetingMessage();
             delay();
             //Enquanto não desconectar objeto, executa controle de indexador/ eleição
             while(executionEnable){
                 //Caso número mínimo de pares tenha sido atingido ...
-                if(peerMap.size() > MIN_INDEXER_PEERS) {
-                    //... verifica se este objeto é o indexador ...
-                    if (indexing) {
+                if(peerRegistry.size() > MIN_INDEXER_PEERS) {
+                    //... no modo fragmentado, vários indexadores são eleitos e verificados de uma só vez ...
+                    if (INDEXER_SHARDS > 1) {
+                        controlShardedIndexers();
+                    }
+                    //... caso contrário, verifica se este objeto é o indexador ...
+                    else if (indexing) {
                         //... se for, anuncia sua disponibilidade ...
                         multicastIndexingMessage();
+                        //... atualiza o reserva que recebe a replicação do catálogo ...
+                        refreshStandby();
                         // ... e indica que indexador esta ativo ...
                         if(!indexerUp)
                             setIndexerUp(true);
@@ -376,10 +514,7 @@ public class Peer {
                         }
                         else{
                             //... se um indexador nao se anunciou, inicia processo de eleição ...
-                            List<PeerOpponent> peers = null;
-                            synchronized (peerMap){
-                                peers = new ArrayList<>(peerMap.values());
-                            }
+                            List<PeerOpponent> peers = peerRegistry.getPeers();
                             //... com a lista de processos conhecidos ordenados por ID ...
                             peers.sort(Comparator.comparing(PeerOpponent::getUuid));
                             //... recupera primeiro da lista e verifica se é o objeto atual ...
@@ -402,9 +537,7 @@ public class Peer {
                                 //... se ninguem se anunciar, retira o primeiro processo da lista,
                                 // pois ele deve ter perdido conexão ...
                                 if (!indexerAnounced) {
-                                    synchronized (peerMap) {
-                                        peerMap.remove(peers.get(0).getUuid());
-                                    }
+                                    removePeer(peers.get(0).getUuid());
                                     //... e reinicia o ciclo antecipadamente para evitar esperas desnecessárias.
                                     continue;
                                 }
@@ -423,8 +556,55 @@ public class Peer {
                 delay();
             }
         });
-        peerThread.setName("Indexer Control Thread");
-        peerThread.start();
+    }
+
+    /**
+     * Controle dos indexadores no modo fragmentado, executado a cada ciclo da thread de controle.
+     * Os {@link #INDEXER_SHARDS} pares conhecidos de menor ID são eleitos indexadores; este objeto indexa
+     * (e se anuncia) caso seja um deles. Indexadores eleitos passam a receber items e pesquisas após seu
+     * primeiro anúncio, e são retirados da lista de pares após {@link #INDEXER_SILENT_CYCLES} ciclos sem anúncio,
+     * para que outro par seja eleito no ciclo seguinte.
+     */
+    private void controlShardedIndexers() {
+        //Lista de processos conhecidos ordenados por ID, cujos primeiros são os indexadores eleitos
+        List<PeerOpponent> peers = peerRegistry.getPeers();
+        peers.sort(Comparator.comparing(PeerOpponent::getUuid));
+        List<PeerOpponent> elected = peers.subList(0, Math.min(INDEXER_SHARDS, peers.size()));
+        //Recupera e reinicia anúncios recebidos durante a espera
+        Set<UUID> announced = new HashSet<>(announcedIndexers);
+        announcedIndexers.removeAll(announced);
+        List<PeerOpponent> active = new ArrayList<>();
+        boolean electedSelf = false;
+        for (PeerOpponent peer : elected) {
+            UUID peerUuid = peer.getUuid();
+            if (uuid.equals(peerUuid)) {
+                electedSelf = true;
+                active.add(peer);
+            }
+            else if (announced.contains(peerUuid)) {
+                silentIndexers.remove(peerUuid);
+                active.add(peer);
+            }
+            else if (silentIndexers.merge(peerUuid, 1, Integer::sum) >= INDEXER_SILENT_CYCLES) {
+                //Indexador deve ter perdido conexão
+                silentIndexers.remove(peerUuid);
+                removePeer(peerUuid);
+            }
+            else if (indexerRing.contains(peerUuid)) {
+                //Indexador ativo que ainda não perdeu anúncios suficientes continua recebendo requisições
+                active.add(peer);
+            }
+        }
+        silentIndexers.keySet().removeIf(peerUuid -> elected.stream().noneMatch(peer -> peer.getUuid().equals(peerUuid)));
+        //Anuncia disponibilidade caso este objeto seja um dos indexadores
+        setIndexing(electedSelf);
+        if (electedSelf)
+            multicastIndexingMessage();
+        //Atualiza fragmentos caso o conjunto de indexadores ativos tenha sido alterado
+        if (!indexerRing.hasMembers(active))
+            refreshIndexers(active);
+        if (indexerUp != !active.isEmpty())
+            setIndexerUp(!active.isEmpty());
     }
 
     /**
@@ -434,32 +614,217 @@ public class Peer {
      * @param indexerUuid identificador do novo indexador
      */
     private void refreshIndexer(UUID indexerUuid) {
-        synchronized (peerMap){
-            setLastActiveIndexer(peerMap.get(indexerUuid));
+        PeerOpponent indexer = peerRegistry.get(indexerUuid);
+        if (indexer != null)
+            refreshIndexers(Collections.singletonList(indexer));
+    }
 
+    /**
+     * Método atualiza estado interno quando o conjunto de indexadores é alterado, redistribuindo
+     * os fragmentos do catálogo: cada indexador recebe a chave deste processo e a lista completa
+     * dos items à venda por ele cujas descrições são de seu fragmento (substituindo os enviados antes).
+     * Items do fragmento deste processo, caso seja indexador, são adicionados diretamente ao índice.
+     * @param indexers novos indexadores ativos
+     */
+    private void refreshIndexers(List<PeerOpponent> indexers) {
+        ShardRing ring = new ShardRing(indexers);
+        //Conexões persistentes com indexadores antigos não serão mais utilizadas
+        for (PeerOpponent indexer : indexerRing.getMembers())
+            if (!ring.contains(indexer.getUuid()))
+                connectionPool.evict(indexer.getUuid());
+        setIndexerRing(ring);
+        //Índice deste processo não é mais consultado caso ele não seja indexador
+        if (!ring.contains(uuid))
+            peerRegistry.removeOffersExcept(uuid);
+        //No modo fragmentado, a lista completa será enviada, tornando alterações pendentes desnecessárias
+        if (INDEXER_SHARDS > 1)
+            catalogUpdateBatcher.clear();
+        //Copia lista antes de alterar o índice, mantendo a ordem de trancas utilizada na venda de items
+        List<SaleItem> ownItems;
+        synchronized (saleItemList) {
+            ownItems = new ArrayList<>(saleItemList);
         }
-        if(!indexing) {
-            sendKey(keyPair.getPublic(), lastActiveIndexer);
-            if (!saleItemList.isEmpty())
-                sendAddSaleItemList(saleItemList, lastActiveIndexer);
-            synchronized (peerMap){
-                peerMap.forEach((key, value) -> {
-                    if (!key.equals(uuid)) {
-                        value.clearItems();
-                    }
-                });
+        ring.partition(ownItems).forEach((indexer, items) -> {
+            if (uuid.equals(indexer.getUuid())) {
+                applyCatalogMutation(uuid, UnicastMessage.clear());
+                items.forEach(item -> applyCatalogMutation(uuid, UnicastMessage.add(item.getDescription(), item.getPrice())));
+            }
+            //Indexador único pode ser o antigo reserva, que já possui o catálogo deste processo
+            else if (INDEXER_SHARDS == 1) {
+                syncCatalog(indexer);
+            }
+            else {
+                sendKey(cryptoService.getPublicKey(), indexer);
+                sendAddSaleItemList(items, indexer);
+            }
+        });
+    }
+
+    /**
+     * Atualiza o indexador reserva, que recebe a replicação do catálogo: o primeiro par
+     * (além deste processo) na ordem de eleição, ou seja, o próximo indexador caso este processo caia
+     */
+    private void refreshStandby() {
+        List<PeerOpponent> peers = peerRegistry.getPeers();
+        peers.sort(Comparator.comparing(PeerOpponent::getUuid));
+        PeerOpponent standby = peers.stream()
+                .filter(peer -> !uuid.equals(peer.getUuid()))
+                .findFirst()
+                .orElse(null);
+        catalogReplicator.setStandby(standby);
+    }
+
+    /**
+     * Aplica ao índice uma alteração do catálogo de um vendedor e, caso este processo seja o indexador,
+     * a replica ao indexador reserva. Alteração e replicação são realizadas sob a tranca do vendedor,
+     * assim como o registro do estado completo do vendedor ({@link #replicateCatalog()}), de forma que
+     * o reserva receba as alterações de cada vendedor na ordem em que foram aplicadas
+     * @param sellerUuid identificador do vendedor
+     * @param mutation alteração (ADD, REMOVE, CLEAR, KEY ou VERSION)
+     * @return false caso o vendedor não seja conhecido
+     */
+    private boolean applyCatalogMutation(UUID sellerUuid, UnicastMessage mutation) {
+        PeerOpponent seller = peerRegistry.get(sellerUuid);
+        if (seller == null)
+            return false;
+        synchronized (seller) {
+            switch (mutation.getType()) {
+                case ADD:
+                    if (!peerRegistry.addOffer(sellerUuid, new SaleItem()
+                            .setDescription(mutation.getDescription())
+                            .setPrice(mutation.getPrice())))
+                        return false;
+                    break;
+                case REMOVE:
+                    peerRegistry.removeOffer(sellerUuid, new SaleItem()
+                            .setDescription(mutation.getDescription())
+                            .setPrice(mutation.getPrice()));
+                    break;
+                case CLEAR:
+                    peerRegistry.removeOffers(sellerUuid);
+                    break;
+                case KEY:
+                    Key publicKey = cryptoService.decodePublicKey(mutation.getData());
+                    seller.setKey(publicKey)
+                            .setKeyFingerprint(cryptoService.fingerprint(publicKey));
+                    break;
+                case VERSION:
+                    seller.setCatalogVersion(mutation.getCatalogVersion());
+                    break;
+                default:
+                    return false;
             }
+            if (indexing)
+                catalogReplicator.replicate(sellerUuid, mutation);
+            //Items deste processo não são registrados (são reenviados por ele ao indexador)
+            if (catalogJournal != null && !uuid.equals(sellerUuid))
+                catalogJournal.append(seller, mutation);
         }
-        else {
-            synchronized (peerMap) {
-                PeerOpponent indexerInMap = peerMap.get(indexerUuid);
-                synchronized (saleItemList) {
-                    saleItemList.forEach(indexerInMap::addItem);
-                }
+        return true;
+    }
+
+    /**
+     * Aplica ao índice um delta do catálogo de um vendedor, somente se a versão do catálogo do vendedor
+     * conhecida pelo índice for a versão base do delta. Alterações e verificação são realizadas sob a tranca
+     * do vendedor, de forma que o delta seja aplicado por inteiro ou recusado
+     * @param sellerUuid identificador do vendedor
+     * @param baseVersion versão do catálogo a que o delta se aplica
+     * @param mutations alterações do delta (ADD, REMOVE e VERSION), na ordem recebida
+     * @return false caso o vendedor não seja conhecido ou a versão base não seja a conhecida pelo índice
+     */
+    private boolean applyCatalogDelta(UUID sellerUuid, long baseVersion, List<UnicastMessage> mutations) {
+        PeerOpponent seller = peerRegistry.get(sellerUuid);
+        if (seller == null)
+            return false;
+        synchronized (seller) {
+            if (baseVersion == PeerOpponent.NO_CATALOG_VERSION || seller.getCatalogVersion() != baseVersion)
+                return false;
+            for (UnicastMessage mutation : mutations)
+                applyCatalogMutation(sellerUuid, mutation);
+        }
+        return true;
+    }
+
+    /**
+     * Recupera items à venda e saldo deste processo armazenados em um diretório e inicia seu registro local
+     * @param directory diretório do registro
+     * @return registro, ou null caso não seja possível utilizá-lo
+     */
+    private SellerLedger openSellerLedger(Path directory) {
+        try {
+            SellerLedger ledger = new SellerLedger(directory, INITIAL_MONEY, CATALOG_BATCH_WINDOW);
+            //Estado recuperado não gera eventos: observadores ainda não foram adicionados (ver getSaleItems)
+            saleItemList.addAll(ledger.getItems());
+            money = ledger.getMoney();
+            ledger.start(taskExecutor);
+            return ledger;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Recupera o catálogo do índice armazenado em um diretório e inicia seu registro durável
+     * @param directory diretório do registro
+     * @return registro, ou null caso não seja possível utilizá-lo
+     */
+    private CatalogJournal openCatalogJournal(Path directory) {
+        CatalogJournal journal = new CatalogJournal(directory, CATALOG_BATCH_WINDOW, CATALOG_SNAPSHOT_INTERVAL);
+        try {
+            //Alterações recuperadas não são registradas novamente (registro ainda não está ativo)
+            journal.recover(peer -> peerRegistry.register(peer.getUuid(), peerUuid -> peer),
+                    this::applyCatalogMutation,
+                    this::removePeer);
+            journal.start(this::snapshotCatalog, taskExecutor);
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Grava o estado completo do catálogo do índice no registro durável. Executado pela thread do registro
+     * após um número de alterações
+     */
+    private void snapshotCatalog() {
+        List<PeerOpponent> sellers = peerRegistry.getPeers();
+        sellers.removeIf(peer -> uuid.equals(peer.getUuid()));
+        catalogJournal.writeSnapshot(sellers, seller ->
+                peerRegistry.get(seller.getUuid()) == seller ? peerRegistry.getOffers(seller.getUuid()) : null);
+    }
+
+    /**
+     * Registra no replicador o estado completo do catálogo: para cada vendedor, descarta o que o reserva
+     * possuía e envia items, chave e versão do catálogo. Executado pela thread do replicador ao definir
+     * um novo reserva, ou após falha de envio de um lote
+     */
+    private void replicateCatalog() {
+        for (PeerOpponent seller : peerRegistry.getPeers()) {
+            UUID sellerUuid = seller.getUuid();
+            synchronized (seller) {
+                catalogReplicator.replicate(sellerUuid, UnicastMessage.clear());
+                for (SaleItem item : peerRegistry.getOffers(sellerUuid))
+                    catalogReplicator.replicate(sellerUuid, UnicastMessage.add(item.getDescription(), item.getPrice()));
+                if (seller.getKey() != null)
+                    catalogReplicator.replicate(sellerUuid, UnicastMessage.key(seller.getKey().getEncoded()));
+                if (seller.getCatalogVersion() != PeerOpponent.NO_CATALOG_VERSION)
+                    catalogReplicator.replicate(sellerUuid, UnicastMessage.version(seller.getCatalogVersion()));
             }
         }
     }
 
+    /**
+     * Verifica se este processo é o indexador responsável por uma descrição
+     * @param description descrição do item
+     * @return true caso a descrição pertença ao fragmento deste processo
+     */
+    private boolean isIndexerFor(String description) {
+        PeerOpponent indexer = indexerRing.indexerFor(description);
+        return indexer != null && uuid.equals(indexer.getUuid());
+    }
+
     //<editor-fold desc="Métodos para envio de eventos observáveis">
     /**
      * Envia um evento de mensagem recebida (unicast e multicast) à todos respectivos observadores
@@ -474,17 +839,15 @@ public class Peer {
      * @param message mensagem do evento
      */
     private void onMessageEventAsync(String message) {
-        Thread onMessageThread = new Thread(()->onMessageEvent(message));
-        onMessageThread.setName("Asynchronous Message Event");
-        onMessageThread.start();
+        taskExecutor.execute("Asynchronous Message Event", ()->onMessageEvent(message));
     }
 
     /**
      * Envia um evento de alteração do valor de dinheiro à todos respectivos observadores
      * @param value novo valor de dinheiro
      */
-    private void onMoneyEvent(float value){
-        moneyEventListener.forEach(listener -> listener.onFloatEvent(value));
+    private void onMoneyEvent(long value){
+        moneyEventListener.forEach(listener -> listener.onLongEvent(value));
     }
 
     /**
@@ -492,10 +855,8 @@ public class Peer {
      * (notificação de observadores faz parte de uma thread separada)
      * @param value novo valor de dinheiro
      */
-    private void onMoneyEventAsync(float value){
-        Thread onMoneyEventThread = new Thread(() -> onMoneyEvent(value));
-        onMoneyEventThread.setName("Money Event Thread");
-        onMoneyEventThread.start();
+    private void onMoneyEventAsync(long value){
+        taskExecutor.execute("Money Event Thread", () -> onMoneyEvent(value));
     }
 
     /**
@@ -512,9 +873,7 @@ public class Peer {
      * @param event evento de proposta/ transação de item
      */
     private void onItemProposalEventAsync(ItemProposalEvent event){
-        Thread onItemFoundEventThread = new Thread(()-> onItemProposalEvent(event));
-        onItemFoundEventThread.setName("Item Found Event Thread");
-        onItemFoundEventThread.start();
+        taskExecutor.execute("Item Found Event Thread", ()-> onItemProposalEvent(event));
     }
 
     /**
@@ -531,9 +890,7 @@ public class Peer {
      * @param event evento de lista de item
      */
     private void onItemListEventAsync(ItemListEvent event){
-        Thread onItemListEventThread = new Thread(()->onItemListEvent(event));
-        onItemListEventThread.setName("Item List Event Thread");
-        onItemListEventThread.start();
+        taskExecutor.execute("Item List Event Thread", ()->onItemListEvent(event));
     }
 
     /**
@@ -546,109 +903,354 @@ public class Peer {
     //</editor-fold>
 
     /**
-     * Método de Callback para evento de novas conexões com servidor TCP.
-     * Cria uma thread para aguardar uma requisição unicast e processá-la
-     * @param connection nova conexão entre servidor e cliente
+     * Método de Callback para evento de requisição disponível no servidor TCP.
+     * Executado em uma thread do servidor, aguarda o inicio de uma requisição unicast e a processa.
+     * Cada requisição chega em seu próprio fluxo de uma conexão persistente e multiplexada: várias
+     * requisições do mesmo cliente podem estar sendo atendidas ao mesmo tempo, em eventos distintos.
+     * A conexão é encerrada pelo servidor quando permanece ociosa por mais de {@link #TCP_KEEP_ALIVE} ms
+     * @param connection fluxo da requisição entre servidor e cliente
      */
     private void onTcpClientConnect(IUnicastSocketConnection connection){
         try {
+            //Aguarda (sincronamente) inicio de nova requisição até tempo de ociosidade
+            connection.setTimeout(TCP_KEEP_ALIVE);
+            UnicastMessage message = connection.getMessage();
+            //Durante a requisição, utiliza timeout normal
             connection.setTimeout(TCP_TIMEOUT);
-            Thread tcpConnection = new Thread(()->{
-                try {
-                    //Aguarda (sincronamente) conexão até tempo de timeout
-                    String message = connection.getMessage();
-                    //Processa mensagem recebida
-                    processTcpMessage(message, new UnicastCommunicationContext(connection, null, null));
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }finally {
-                    //Finaliza conexão ao final de requisição ou exceção
-                    connection.disconnect();
-                }
-            });
-            tcpConnection.setName("TCP Server Side Client Connection");
-            tcpConnection.start();
-        } catch (SocketException e) {
+            //Processa requisição, cada uma com seu próprio contexto
+            processTcpMessage(message, new UnicastCommunicationContext(connection, null, null));
+        } catch (SocketTimeoutException | EOFException e) {
+            //Conexão ociosa por muito tempo ou encerrada pelo cliente
+            connection.disconnect();
+        } catch (IOException e) {
             e.printStackTrace();
+            //Finaliza conexão em caso de exceção
+            connection.disconnect();
         }
     }
 
     //<editor-fold desc="Métodos para requisições assíncronas Unicast">
     /**
-     * Envia requisição de adição de item para venda por este processo
-     * @param item item para venda
-     * @param peer par para ser realizada requisição
+     * Envia aos indexadores um lote de adições e remoções de items para venda por este processo,
+     * com uma única requisição para cada indexador responsável por parte dos items.
+     * Items do fragmento deste processo, caso seja indexador, são alterados diretamente no índice.
+     * Executado sincronamente pela thread de {@link CatalogUpdateBatcher},
+     * para que lotes cheguem aos indexadores na ordem em que foram gerados
+     * @param addedItems items adicionados
+     * @param removedItems items removidos
      */
-    private void sendAddSaleItem(SaleItem item, PeerOpponent peer){
-        Thread sendSaleItemList = new Thread(()-> {
-            TcpSynchroClient connection = null;
-            //Realizar uma série de tentativas de reconexão se alguma falhar
-            for(int i = 0; i < RECONNECTION_TRIES; i++) {
-                try {
-                    //Nova conexão com par em questão
-                    connection = new TcpSynchroClient(peer.getIpAddress(), peer.getPortTcp());
-                    connection.setTimeout(TCP_TIMEOUT);
-                    //Introduz o ID deste processo ao servidor
-                    tcpIntroductMessage(connection, null);
-                    //Envia item para adicionar
-                    tcpAddMessage(connection, null, item);
-                    //Encerra requisição
-                    tcpFinishMessage(connection, null);
-                    //Espera um OK do servidor
-                    String response = connection.getMessage();
-                    if(processTcpMessage(response, new UnicastCommunicationContext(connection, peer.getUuid(), null)))
-                        break;
-                } catch (IOException e) {
-                    e.printStackTrace();
-                } finally {
-                    if (connection != null)
-                        connection.disconnect();
-                    delay();
+    private void sendCatalogUpdate(List<SaleItem> addedItems, List<SaleItem> removedItems){
+        //Sem indexador disponível, a lista completa será enviada quando um for encontrado
+        if(!indexerUp)
+            return;
+        ShardRing ring = indexerRing;
+        Map<PeerOpponent, List<SaleItem>> addedByIndexer = ring.partition(addedItems);
+        Map<PeerOpponent, List<SaleItem>> removedByIndexer = ring.partition(removedItems);
+        for (PeerOpponent indexer : ring.getMembers()) {
+            List<SaleItem> added = addedByIndexer.get(indexer);
+            List<SaleItem> removed = removedByIndexer.get(indexer);
+            if (uuid.equals(indexer.getUuid())) {
+                added.forEach(item -> applyCatalogMutation(uuid, UnicastMessage.add(item.getDescription(), item.getPrice())));
+                removed.forEach(item -> applyCatalogMutation(uuid, UnicastMessage.remove(item.getDescription(), item.getPrice())));
+            }
+            else if (!added.isEmpty() || !removed.isEmpty())
+                sendCatalogUpdate(added, removed, indexer);
+        }
+    }
+
+    /**
+     * Envia a um indexador, em uma única requisição, um lote de adições e remoções de items
+     * para venda por este processo
+     * @param addedItems items adicionados
+     * @param removedItems items removidos
+     * @param peer indexador
+     */
+    private void sendCatalogUpdate(List<SaleItem> addedItems, List<SaleItem> removedItems, PeerOpponent peer){
+        long version;
+        long baseVersion;
+        //Versão e registro de alterações são atualizados sob a tranca; o envio é realizado após liberá-la
+        synchronized (catalogLog) {
+            version = catalogVersion.incrementAndGet();
+            catalogLog.append(version, addedItems, removedItems);
+            baseVersion = indexedCatalogVersions.getOrDefault(peer.getUuid(), PeerOpponent.NO_CATALOG_VERSION);
+        }
+        //Delta recusado ou não entregue: catálogo do indexador deve ser sincronizado
+        if (baseVersion == PeerOpponent.NO_CATALOG_VERSION || !sendCatalogDelta(
+                Collections.singletonList(new CatalogMutationLog.Entry(version, addedItems, removedItems)),
+                baseVersion, version, peer))
+            resyncCatalog(peer);
+    }
+
+    /**
+     * Sincroniza o catálogo deste processo conhecido por um indexador que não aceitou ou não recebeu um delta:
+     * com um único indexador, por troca de versões (ver {@link #syncCatalog(PeerOpponent)}); no modo fragmentado,
+     * reenviando chave e lista completa dos items do fragmento do indexador
+     * @param peer indexador
+     */
+    private void resyncCatalog(PeerOpponent peer){
+        if (INDEXER_SHARDS == 1) {
+            syncCatalog(peer);
+            return;
+        }
+        List<SaleItem> items;
+        synchronized (saleItemList) {
+            items = new ArrayList<>(saleItemList);
+        }
+        List<SaleItem> shard = indexerRing.partition(items).get(peer);
+        if (shard == null)
+            return;
+        sendKey(cryptoService.getPublicKey(), peer);
+        sendAddSaleItemList(shard, peer);
+    }
+
+    /**
+     * Envia a um indexador, em uma única requisição, lotes de adições e remoções de items para venda
+     * por este processo, precedidos da versão do catálogo a que se aplicam e seguidos da versão após eles.
+     * O indexador aplica o delta somente ao fim da requisição, e somente se possuir a versão base:
+     * uma requisição interrompida não é aplicada, e uma repetição de um delta já aplicado é recusada
+     * @param delta lotes de alterações, do mais antigo para o mais recente
+     * @param baseVersion versão do catálogo conhecida pelo indexador, à qual as alterações se aplicam
+     * @param version versão do catálogo após as alterações
+     * @param peer indexador
+     * @return true caso o indexador tenha confirmado as alterações; false caso as tenha recusado
+     *  (versão base diferente da sua), todas as tentativas tenham falhado ou a confirmação tenha chegado
+     *  após a de uma versão mais recente (ver {@link #confirmIndexedVersion(PeerOpponent, long)})
+     */
+    private boolean sendCatalogDelta(List<CatalogMutationLog.Entry> delta, long baseVersion, long version, PeerOpponent peer){
+        //Realizar uma série de tentativas de reconexão se alguma falhar
+        for(int i = 0; i < RECONNECTION_TRIES && executionEnable; i++) {
+            IUnicastSocketConnection connection = null;
+            UnicastCommunicationContext context = null;
+            boolean succeeded = false;
+            try {
+                //Conexão persistente (ou nova, se não houver) com par em questão
+                connection = connectionPool.acquire(peer.getUuid(), peer.getIpAddress(), peer.getPortTcp());
+                //Introduz o ID deste processo ao servidor
+                tcpIntroductMessage(connection, null);
+                //Informa versão a que as alterações se aplicam
+                tcpDeltaMessage(connection, null, baseVersion);
+                //Envia todas as alterações dos lotes, na ordem em que foram geradas
+                for (CatalogMutationLog.Entry entry : delta) {
+                    for (SaleItem item : entry.added)
+                        tcpAddMessage(connection, null, item);
+                    for (SaleItem item : entry.removed)
+                        tcpRemoveMessage(connection, null, item);
                 }
+                //Informa versão do catálogo após as alterações
+                tcpVersionMessage(connection, null, version);
+                //Encerra requisição
+                tcpFinishMessage(connection, null);
+                //Espera OK do servidor
+                UnicastMessage response = connection.getMessage();
+                context = new UnicastCommunicationContext(connection, peer.getUuid(), null);
+                succeeded = processTcpMessage(response, context);
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                //Encerra o fluxo; a conexão permanece no pool (descartada no próximo uso se indisponível)
+                connectionPool.release(connection);
             }
-        });
-        sendSaleItemList.setName("TCP Client Send Sale Item");
-        sendSaleItemList.start();
+            if(succeeded)
+                return confirmIndexedVersion(peer, version);
+            //Delta recusado não é repetido
+            if(context != null && context.getErrorCode() == CATALOG_VERSION_MISMATCH)
+                break;
+            delay();
+        }
+        indexedCatalogVersions.remove(peer.getUuid());
+        return false;
     }
 
     /**
-     * Envia requisição de adição de uma lista de items para venda por este processo
+     * Envia requisição de substituição dos items para venda por este processo conhecidos pelo par
+     * (remove os enviados anteriormente e adiciona os da lista)
      * @param itemList lista de items para venda
      * @param peer par para ser realizada requisição
      */
     private void sendAddSaleItemList(List<SaleItem> itemList, PeerOpponent peer){
-        Thread sendSaleItemList = new Thread(()-> {
-            TcpSynchroClient connection = null;
-            //Realizar uma série de tentativas de reconexão se alguma falhar
-            for(int i = 0; i < RECONNECTION_TRIES; i++) {
-                try {
-                    //Nova conexão com par em questão
-                    connection = new TcpSynchroClient(peer.getIpAddress(), peer.getPortTcp());
-                    connection.setTimeout(TCP_TIMEOUT);
-                    //Introduz o ID deste processo ao servidor
-                    tcpIntroductMessage(connection, null);
-                    //Envia todos os items da lista
-                    synchronized (itemList) {
-                        for (SaleItem item : itemList)
-                            tcpAddMessage(connection, null, item);
-                    }
-                    //Encerra requisição
-                    tcpFinishMessage(connection, null);
-                    String response = connection.getMessage();
-                    //Espera OK do servidor
-                    if(processTcpMessage(response, new UnicastCommunicationContext(connection, peer.getUuid(), null)))
-                        break;
-                } catch (IOException e) {
-                    e.printStackTrace();
-                } finally {
-                    if (connection != null)
-                        connection.disconnect();
-                    delay();
+        taskExecutor.execute("TCP Client Send Sale Item List", ()-> sendSaleItemList(itemList, peer));
+    }
+
+    /**
+     * Envia requisição de substituição dos items para venda por este processo conhecidos pelo par,
+     * sincronamente. Alterações registradas anteriormente deixam de ser necessárias
+     * @param itemList lista de items para venda
+     * @param peer par para ser realizada requisição
+     * @return true caso o par tenha confirmado a lista
+     */
+    private boolean sendSaleItemList(List<SaleItem> itemList, PeerOpponent peer){
+        long version;
+        //Versão e registro de alterações são atualizados sob a tranca; o envio é realizado após liberá-la
+        synchronized (catalogLog) {
+            version = catalogVersion.incrementAndGet();
+            catalogLog.reset(version);
+        }
+        //Realizar uma série de tentativas de reconexão se alguma falhar
+        for(int i = 0; i < RECONNECTION_TRIES; i++) {
+            IUnicastSocketConnection connection = null;
+            boolean succeeded = false;
+            try {
+                //Conexão persistente (ou nova, se não houver) com par em questão
+                connection = connectionPool.acquire(peer.getUuid(), peer.getIpAddress(), peer.getPortTcp());
+                //Introduz o ID deste processo ao servidor
+                tcpIntroductMessage(connection, null);
+                //Descarta items enviados anteriormente (ex.: de outro fragmento ou indexador)
+                tcpClearMessage(connection, null);
+                //Envia todos os items da lista
+                synchronized (itemList) {
+                    for (SaleItem item : itemList)
+                        tcpAddMessage(connection, null, item);
                 }
+                //Informa versão do catálogo enviado
+                tcpVersionMessage(connection, null, version);
+                //Encerra requisição
+                tcpFinishMessage(connection, null);
+                UnicastMessage response = connection.getMessage();
+                //Espera OK do servidor
+                succeeded = processTcpMessage(response, new UnicastCommunicationContext(connection, peer.getUuid(), null));
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                //Encerra o fluxo; a conexão permanece no pool (descartada no próximo uso se indisponível)
+                connectionPool.release(connection);
+            }
+            if(succeeded) {
+                if (confirmIndexedVersion(peer, version))
+                    return true;
+                //Lista pode ter substituído uma versão mais recente no indexador
+                resyncCatalog(peer);
+                return false;
+            }
+            delay();
+        }
+        indexedCatalogVersions.remove(peer.getUuid());
+        return false;
+    }
+
+    /**
+     * Registra a versão do catálogo deste processo confirmada por um indexador. Os envios não são serializados
+     * (a tranca do registro de alterações não é mantida durante a comunicação), então a confirmação de um envio
+     * pode chegar após a de um envio mais recente: neste caso a versão do indexador é desconhecida (o envio
+     * antigo pode ter sido aplicado por último) e é descartada, exigindo sincronização
+     * @param peer indexador
+     * @param version versão confirmada
+     * @return false caso uma versão mais recente já tivesse sido confirmada
+     */
+    private boolean confirmIndexedVersion(PeerOpponent peer, long version) {
+        if (indexedCatalogVersions.merge(peer.getUuid(), version, Math::max) == version)
+            return true;
+        indexedCatalogVersions.remove(peer.getUuid());
+        return false;
+    }
+
+    /**
+     * Troca com um novo indexador a versão do catálogo deste processo. Caso o indexador possua uma versão
+     * anterior (ex.: a replicação não alcançou as últimas alterações), envia apenas as alterações seguintes
+     * a ela; caso não possua o catálogo (não era o reserva) ou as alterações já tenham sido descartadas
+     * do registro, envia chave e lista completa de items
+     * @param peer indexador
+     */
+    private void syncCatalog(PeerOpponent peer){
+        taskExecutor.execute("TCP Client Sync Catalog", ()-> {
+            long indexedVersion = sendCatalogSync(peer);
+            long version;
+            List<CatalogMutationLog.Entry> delta;
+            //Alterações são recuperadas sob a tranca; o envio é realizado após liberá-la. Um delta enviado
+            //ao mesmo tempo por outra thread é recusado pelo indexador caso sua versão base deixe de valer
+            synchronized (catalogLog) {
+                version = catalogVersion.get();
+                delta = indexedVersion != PeerOpponent.NO_CATALOG_VERSION ?
+                        catalogLog.since(indexedVersion, version) : null;
+            }
+            if (indexedVersion == version && indexedVersion != PeerOpponent.NO_CATALOG_VERSION) {
+                confirmIndexedVersion(peer, version);
+                return;
             }
+            if (delta != null && sendCatalogDelta(delta, indexedVersion, version, peer))
+                return;
+            //Lista completa será enviada, tornando alterações pendentes desnecessárias
+            catalogUpdateBatcher.clear();
+            List<SaleItem> items;
+            synchronized (saleItemList) {
+                items = new ArrayList<>(saleItemList);
+            }
+            sendKey(cryptoService.getPublicKey(), peer);
+            sendSaleItemList(items, peer);
         });
-        sendSaleItemList.setName("TCP Client Send Sale Item List");
-        sendSaleItemList.start();
+    }
+
+    /**
+     * Envia requisição de troca de versões do catálogo deste processo, em uma única tentativa
+     * (em caso de falha, a lista completa é enviada)
+     * @param peer indexador
+     * @return versão do catálogo deste processo conhecida pelo indexador, ou
+     *  {@link PeerOpponent#NO_CATALOG_VERSION} caso não a possua ou a requisição falhe
+     */
+    private long sendCatalogSync(PeerOpponent peer){
+        IUnicastSocketConnection connection = null;
+        UnicastCommunicationContext context = null;
+        boolean succeeded = false;
+        try {
+            //Conexão persistente (ou nova, se não houver) com par em questão
+            connection = connectionPool.acquire(peer.getUuid(), peer.getIpAddress(), peer.getPortTcp());
+            //Introduz o ID deste processo ao servidor
+            tcpIntroductMessage(connection, null);
+            //Envia versão atual do catálogo deste processo
+            tcpSyncMessage(connection, null, catalogVersion.get());
+            //Encerra requisição
+            tcpFinishMessage(connection, null);
+            //Espera versão conhecida pelo servidor e OK
+            UnicastMessage response = connection.getMessage();
+            context = new UnicastCommunicationContext(connection, peer.getUuid(), null)
+                    .setIndexedCatalogVersion(PeerOpponent.NO_CATALOG_VERSION);
+            succeeded = processTcpMessage(response, context);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            //Encerra o fluxo; a conexão permanece no pool (descartada no próximo uso se indisponível)
+            connectionPool.release(connection);
+        }
+        return succeeded ? context.getIndexedCatalogVersion() : PeerOpponent.NO_CATALOG_VERSION;
+    }
+
+    /**
+     * Envia ao indexador reserva, em uma única requisição, um lote de alterações do catálogo.
+     * Executado sincronamente pela thread de {@link CatalogReplicator}, para que os lotes cheguem
+     * ao reserva na ordem em que foram gerados
+     * @param peer indexador reserva
+     * @param batch alterações (vendedor e mensagem de alteração)
+     * @return true caso o reserva tenha confirmado o lote
+     */
+    private boolean sendReplicaBatch(PeerOpponent peer, List<Pair<UUID, UnicastMessage>> batch){
+        UnicastMessageCodec codec = messageCodec.get();
+        //Realizar uma série de tentativas de reconexão se alguma falhar
+        for(int i = 0; i < RECONNECTION_TRIES && executionEnable; i++) {
+            IUnicastSocketConnection connection = null;
+            boolean succeeded = false;
+            try {
+                //Conexão persistente (ou nova, se não houver) com par em questão
+                connection = connectionPool.acquire(peer.getUuid(), peer.getIpAddress(), peer.getPortTcp());
+                //Introduz o ID deste processo ao servidor
+                tcpIntroductMessage(connection, null);
+                //Envia todas as alterações do lote
+                for (Pair<UUID, UnicastMessage> mutation : batch)
+                    tcpReplicaMessage(connection, null, mutation.getLeft(), codec.encode(mutation.getRight()));
+                //Encerra requisição
+                tcpFinishMessage(connection, null);
+                //Espera OK do servidor
+                UnicastMessage response = connection.getMessage();
+                succeeded = processTcpMessage(response, new UnicastCommunicationContext(connection, peer.getUuid(), null));
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                //Encerra o fluxo; a conexão permanece no pool (descartada no próximo uso se indisponível)
+                connectionPool.release(connection);
+            }
+            if(succeeded)
+                return true;
+            delay();
+        }
+        return false;
     }
 
     /**
@@ -657,38 +1259,45 @@ public class Peer {
      * @param peer par para ser realizada requisição
      */
     private void sendBuyItem(SaleItem item, PeerOpponent peer){
-        Thread sendBuyItem = new Thread(()-> {
-            TcpSynchroClient connection = null;
+        taskExecutor.execute("TCP Client Send Buy Item", ()-> {
+            IUnicastSocketConnection connection = null;
+            boolean succeeded = false;
             //Apenas uma tentativa será realizada, para evitar problemas de persistência
             try {
-                //Nova conexão com par em questão
-                connection = new TcpSynchroClient(peer.getIpAddress(), peer.getPortTcp());
-                connection.setTimeout(TCP_TIMEOUT);
+                //Fluxo próprio na conexão persistente (ou nova, se não houver) com par em questão
+                connection = connectionPool.acquire(peer.getUuid(), peer.getIpAddress(), peer.getPortTcp());
+                //Envia chave de sessão cifrada com a chave pública do vendedor (única operação assimétrica)
+                SecretKey sessionKey = tcpSessionMessage(connection, peer.getKey());
                 //Introduz o ID este processo ao servidor com uma mensagem criptografada
-                tcpIntroductMessage(connection, peer.getKey());
+                tcpIntroductMessage(connection, sessionKey);
                 //Realiza requisição de compra de item com mensagem criptografada
-                tcpBuyMessage(connection, peer.getKey(), item);
+                tcpBuyMessage(connection, sessionKey, item);
                 //Encerra requisição com mensagem criptografada
-                tcpFinishMessage(connection, peer.getKey());
-                //Espera um OK do servidor
-                String response = connection.getMessage();
-                if(processTcpMessage(response, new UnicastCommunicationContext(connection, peer.getUuid(), null))) {
+                tcpFinishMessage(connection, sessionKey);
+                //Espera um OK do servidor (cifrado com a chave de sessão)
+                UnicastMessage response = connection.getMessage();
+                succeeded = processTcpMessage(response, new UnicastCommunicationContext(connection, peer.getUuid(), null)
+                        .setSessionKey(sessionKey));
+                if(succeeded) {
                     //Se servidor confirmar, realize transação
-                    setMoney(money - item.getPrice());
+                    synchronized (moneyLock) {
+                        setMoney(money - item.getPrice());
+                        if (sellerLedger != null)
+                            sellerLedger.balance(money);
+                    }
                     onItemProposalEventAsync(ItemProposalEvent.itemBought(item, peer));
-                    peer.setReputation(peer.getReputation()+1);
+                    //Reputação é alterada através do índice, que reposiciona as ofertas do vendedor
+                    peerRegistry.increaseReputation(peer);
                 }
             } catch (IOException e) {
                 e.printStackTrace();
             } finally {
-                if (connection != null)
-                    connection.disconnect();
+                //Encerra o fluxo; a conexão permanece no pool (descartada no próximo uso se indisponível)
+                connectionPool.release(connection);
                 delay();
             }
 
         });
-        sendBuyItem.setName("TCP Client Send Search Item by Description");
-        sendBuyItem.start();
     }
 
     /**
@@ -697,111 +1306,134 @@ public class Peer {
      * @param peer par para ser realizada requisição
      */
     private void sendKey(Key key, PeerOpponent peer){
-        Thread sendPublicKey = new Thread(()->{
-            TcpSynchroClient connection = null;
+        taskExecutor.execute("TCP Client Send Public Key", ()->{
             //Realizar uma série de tentativas de reconexão se alguma falhar
             for(int i = 0; i < RECONNECTION_TRIES; i++) {
+                IUnicastSocketConnection connection = null;
+                boolean succeeded = false;
                 try {
-                    //Nova conexão com par em questão
-                    connection = new TcpSynchroClient(peer.getIpAddress(), peer.getPortTcp());
-                    connection.setTimeout(TCP_TIMEOUT);
-                    //Transforma a chave em uma string de hexadecimais
-                    String publicKey = keyToHex(key);
+                    //Conexão persistente (ou nova, se não houver) com par em questão
+                    connection = connectionPool.acquire(peer.getUuid(), peer.getIpAddress(), peer.getPortTcp());
                     //Introduz o ID deste processo ao servidor
                     tcpIntroductMessage(connection, null);
                     //Envia chave publica deste processo
-                    tcpKeyMessage(connection, null, publicKey);
+                    tcpKeyMessage(connection, null, key.getEncoded());
                     //Encerra requisição
                     tcpFinishMessage(connection, null);
                     //Espera OK do servidor
-                    String response = connection.getMessage();
-                    if(processTcpMessage(response, new UnicastCommunicationContext(connection, null, null)))
-                        break;
+                    UnicastMessage response = connection.getMessage();
+                    succeeded = processTcpMessage(response, new UnicastCommunicationContext(connection, null, null));
                 } catch (IOException e) {
                     e.printStackTrace();
                 } finally {
-                    if (connection != null)
-                        connection.disconnect();
-                    delay();
+                    //Encerra o fluxo; a conexão permanece no pool (descartada no próximo uso se indisponível)
+                    connectionPool.release(connection);
                 }
+                if(succeeded)
+                    break;
+                delay();
             }
         });
-        sendPublicKey.setName("TCP Client Send Public Key");
-        sendPublicKey.start();
     }
 
     /**
-     * Envia requisição de remoção de item para venda por este processo
-     * @param item item para ser removido
+     * Envia requisição de procura de item para compra por este processo
+     * @param description descrição do item desejado
      * @param peer par para ser realizada requisição
      */
-    private void sendRemoveSaleItem(SaleItem item, PeerOpponent peer){
-        Thread sendSaleItemList = new Thread(()-> {
-            TcpSynchroClient connection = null;
-            //Realizar uma série de tentativas de reconexão se alguma falhar
-            for(int i = 0; i < RECONNECTION_TRIES; i++) {
-                try {
-                    //Nova conexão com par em questão
-                    connection = new TcpSynchroClient(peer.getIpAddress(), peer.getPortTcp());
-                    connection.setTimeout(TCP_TIMEOUT);
-                    //Introduz o ID deste processo ao servidor
-                    tcpIntroductMessage(connection, null);
-                    //Envia item para remoção
-                    tcpRemoveMessage(connection, null, item);
-                    //Encerra requisição
-                    tcpFinishMessage(connection, null);
-                    //Espera OK do servidor
-                    String response = connection.getMessage();
-                    if(processTcpMessage(response, new UnicastCommunicationContext(connection, peer.getUuid(), null)))
-                        break;
-                } catch (IOException e) {
-                    e.printStackTrace();
-                } finally {
-                    if (connection != null)
-                        connection.disconnect();
-                    delay();
-                }
-            }
-        });
-        sendSaleItemList.setName("TCP Client Remove Sale Item");
-        sendSaleItemList.start();
+    private void sendSearchItemByDescription(String description, PeerOpponent peer){
+        sendSearchItemByDescription(description, UnicastMessage.NO_CURSOR, peer);
     }
 
     /**
-     * Envia requisição de procura de item para compra por este processo
+     * Envia requisição de procura de item para compra por este processo, a partir de uma página dos resultados
      * @param description descrição do item desejado
+     * @param cursor cursor recebido na página anterior ({@link UnicastMessage#NO_CURSOR} para a primeira página)
      * @param peer par para ser realizada requisição
      */
-    private void sendSearchItemByDescription(String description, PeerOpponent peer){
-        Thread sendSearchItemByDescriptionThread = new Thread(()-> {
-            TcpSynchroClient connection = null;
+    private void sendSearchItemByDescription(String description, byte[] cursor, PeerOpponent peer){
+        taskExecutor.execute("TCP Client Send Search Item by Description", ()-> {
             //Realizar uma série de tentativas de reconexão se alguma falhar
             for(int i = 0; i < RECONNECTION_TRIES; i++) {
+                IUnicastSocketConnection connection = null;
+                boolean succeeded = false;
                 try {
-                    //Nova conexão com par em questão
-                    connection = new TcpSynchroClient(peer.getIpAddress(), peer.getPortTcp());
-                    connection.setTimeout(TCP_TIMEOUT);
+                    //Conexão persistente (ou nova, se não houver) com par em questão
+                    connection = connectionPool.acquire(peer.getUuid(), peer.getIpAddress(), peer.getPortTcp());
                     //Introduz o ID deste processo ao servidor
                     tcpIntroductMessage(connection, null);
-                    //Envia descrição de item desejado
-                    tcpSearchMessage(connection, null, description);
+                    //Envia descrição de item desejado e tamanho da página de resultados
+                    tcpSearchMessage(connection, null, description, SEARCH_RESULT_LIMIT, cursor);
                     //Encerra requisição
                     tcpFinishMessage(connection, null);
                     //Espera OK do servidor
-                    String response = connection.getMessage();
-                    if(processTcpMessage(response, new UnicastCommunicationContext(connection, peer.getUuid(), null)))
-                        break;
+                    UnicastMessage response = connection.getMessage();
+                    succeeded = processTcpMessage(response, new UnicastCommunicationContext(connection, peer.getUuid(), null)
+                            .setSearchDescription(description));
                 } catch (IOException e) {
                     e.printStackTrace();
                 } finally {
-                    if (connection != null)
-                        connection.disconnect();
-                    delay();
+                    //Encerra o fluxo; a conexão permanece no pool (descartada no próximo uso se indisponível)
+                    connectionPool.release(connection);
                 }
+                if(succeeded)
+                    break;
+                delay();
             }
         });
-        sendSearchItemByDescriptionThread.setName("TCP Client Send Search Item by Description");
-        sendSearchItemByDescriptionThread.start();
+    }
+
+    /**
+     * Solicita ao indexador, em uma única requisição, as chaves públicas de vendedores ainda não conhecidas.
+     * Executado sincronamente pela thread que processa o resultado de uma pesquisa.
+     * As chaves recebidas são associadas aos vendedores e removidas do mapa de chaves pendentes
+     * @param peer indexador
+     * @param pendingKeys impressões digitais esperadas, por vendedor
+     */
+    private void fetchPeerKeys(PeerOpponent peer, Map<UUID, byte[]> pendingKeys){
+        //Realizar uma série de tentativas de reconexão se alguma falhar
+        for(int i = 0; i < RECONNECTION_TRIES && executionEnable && !pendingKeys.isEmpty(); i++) {
+            IUnicastSocketConnection connection = null;
+            boolean succeeded = false;
+            try {
+                //Conexão persistente (ou nova, se não houver) com par em questão
+                connection = connectionPool.acquire(peer.getUuid(), peer.getIpAddress(), peer.getPortTcp());
+                //Introduz o ID deste processo ao servidor
+                tcpIntroductMessage(connection, null);
+                //Solicita todas as chaves pendentes
+                for (UUID sellerUuid : new ArrayList<>(pendingKeys.keySet()))
+                    tcpKeyRequestMessage(connection, null, sellerUuid);
+                //Encerra requisição
+                tcpFinishMessage(connection, null);
+                //Processa chaves recebidas até o OK do servidor
+                UnicastMessage response = connection.getMessage();
+                succeeded = processTcpMessage(response, new UnicastCommunicationContext(connection, peer.getUuid(), null)
+                        .setPendingKeyFingerprints(pendingKeys));
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                //Encerra o fluxo; a conexão permanece no pool (descartada no próximo uso se indisponível)
+                connectionPool.release(connection);
+            }
+            if(succeeded)
+                break;
+            delay();
+        }
+    }
+
+    /**
+     * Verifica se uma conexão persistente ociosa ainda é utilizável, enviando uma requisição vazia
+     * (apenas FINISH) e aguardando o OK da parte oposta
+     * @param connection conexão ociosa
+     * @return true caso a parte oposta tenha respondido corretamente
+     */
+    private boolean tcpPing(IUnicastSocketConnection connection){
+        try {
+            tcpFinishMessage(connection, null);
+            return connection.getMessage().getType() == UnicastMessage.Type.OK;
+        } catch (IOException e) {
+            return false;
+        }
     }
     //</editor-fold>
 
@@ -834,15 +1466,10 @@ public class Peer {
             case "GREETING":
                 //Responde remetente para ele poder adiconar este objeto à sua lista de pares
                 multicastInviteMessage(senderUuid);
-                synchronized (peerMap) {
-                    if(!peerMap.containsKey(senderUuid)){
-                        peerMap.put(senderUuid,
-                                new PeerOpponent()
-                                        .setUuid(senderUuid)
-                                        .setIpAddress(address)
-                                        .setPortTcp(Integer.parseInt(msgTokens[2])));
-                    }
-                }
+                peerRegistry.register(senderUuid, peerUuid -> new PeerOpponent()
+                        .setUuid(peerUuid)
+                        .setIpAddress(address)
+                        .setPortTcp(Integer.parseInt(msgTokens[2])));
                 break;
             //</editor-fold>
 
@@ -852,21 +1479,26 @@ public class Peer {
             //(#indexerAnounced), atualiza indexador se necessário e envia chave + items à venda caso este seja
             //um novo indexador
             case "INDEXING":
+                //No modo fragmentado, apenas registra o anúncio para a thread de controle
+                if(INDEXER_SHARDS > 1) {
+                    peerRegistry.register(senderUuid, peerUuid -> new PeerOpponent()
+                            .setUuid(peerUuid)
+                            .setIpAddress(address)
+                            .setPortTcp(Integer.parseInt(msgTokens[2])));
+                    announcedIndexers.add(senderUuid);
+                    break;
+                }
                 //Indexador foi anunciado e ele não é este objeto
                 setIndexerAnounced(true);
                 setIndexing(false);
-                synchronized (peerMap) {
-                    //Adiciona remetente caso não o conheça
-                    if(!peerMap.containsKey(senderUuid)) {
-                        peerMap.put(senderUuid, new PeerOpponent()
-                                .setUuid(senderUuid)
-                                .setIpAddress(address)
-                                .setPortTcp(Integer.parseInt(msgTokens[2])));
-                    }
-                }
+                //Adiciona remetente caso não o conheça
+                peerRegistry.register(senderUuid, peerUuid -> new PeerOpponent()
+                        .setUuid(peerUuid)
+                        .setIpAddress(address)
+                        .setPortTcp(Integer.parseInt(msgTokens[2])));
                 //Se for o primeiro indexador ativo, ou o indexador antigo foi substituido,
                 //atualiza o indexador
-                if(lastActiveIndexer == null || !senderUuid.equals(lastActiveIndexer.getUuid())) {
+                if(indexerRing.getMembers().size() != 1 || !indexerRing.contains(senderUuid)) {
                     refreshIndexer(senderUuid);
                 }
                 break;
@@ -880,14 +1512,10 @@ public class Peer {
                 UUID invited = UUID.fromString(msgTokens[2]);
                 if(uuid.equals(invited)) {
                     //Se este objeto for o destinatário, adiciona o remetente à lista de pares
-                    synchronized (peerMap) {
-                        if(!peerMap.containsKey(senderUuid)) {
-                            peerMap.put(senderUuid, new PeerOpponent()
-                                    .setIpAddress(address)
-                                    .setPortTcp(Integer.parseInt(msgTokens[3]))
-                                    .setUuid(senderUuid));
-                        }
-                    }
+                    peerRegistry.register(senderUuid, peerUuid -> new PeerOpponent()
+                            .setIpAddress(address)
+                            .setPortTcp(Integer.parseInt(msgTokens[3]))
+                            .setUuid(peerUuid));
                 }
                 break;
             //</editor-fold>
@@ -896,11 +1524,7 @@ public class Peer {
             //<editor-fold desc="Processa 'LEAVING'">
             //Quando mensagem de retirada, retira para remetente da lista de pares ativos
             case "LEAVING":
-                if(peerMap.containsKey(senderUuid)) {
-                    synchronized (peerMap) {
-                        peerMap.remove(senderUuid);
-                    }
-                }
+                removePeer(senderUuid);
                 break;
             //</editor-fold>
             default:
@@ -944,323 +1568,691 @@ public class Peer {
     //</editor-fold>
 
     /**
-     * Processa uma mensagem unicast. Funciona recursivamente, rechamando-se até que OK ou FINISH seja enviado.
-     * Mensagens processáveis:
+     * Processa uma sessão (requisição) unicast a partir de sua primeira mensagem.
+     * Funciona iterativamente: cada mensagem é encaminhada ao processador de seu tipo
+     * ({@link #tcpMessageHandlers}), e a próxima é lida da conexão até que OK ou FINISH seja recebido.
+     * O estado da sessão é mantido no contexto, de forma que sessões longas (ex.: muitos ADD
+     * ou FOUND) são processadas com pilha constante.
+     * Mensagens processáveis (ver {@link UnicastMessage}):
      *   ADD/#ITEM_DESC/#ITEM_PRICE
      *   BUY/#ITEM_DESC/#ITEM_PRICE
+     *   CLEAR
+     *   DELTA/#BASE_CATALOG_VERSION
      *   ENCRYPTED/#ENCRYPTED_MESSAGE
      *   ERROR/#ERROR_CODE/#ERROR_MESSAGE
      *   FINISH
-     *   FOUND/#ITEM_DESC/#ITEM_PRICE/#SELLER_ID/#SELLER_PUBLIC_KEY
+     *   FOUND/#ITEM_DESC/#ITEM_PRICE/#SELLER_ID/#SELLER_KEY_FINGERPRINT
      *   FOUND
      *   INTRODUCE/#SENDER_ID
      *   KEY/#PUBLIC_KEY
+     *   KEY_REQUEST/#PEER_ID
      *   OK
+     *   PEER_KEY/#PEER_ID/#PEER_PUBLIC_KEY
      *   REMOVE/#ITEM_DESC/#ITEM_PRICE
+     *   REPLICA/#SELLER_ID/#CATALOG_MESSAGE
      *   SEARCH/#ITEM_DESC
-     * @param message mensagem à ser processada
+     *   SESSION/#WRAPPED_SESSION_KEY
+     *   SYNC/#CATALOG_VERSION
+     *   VERSION/#CATALOG_VERSION
+     * @param message primeira mensagem da sessão
      * @param context armazena estado da requisição (cadeia de mensagens)
      * @return true caso receba um OK ou um FINISH (OK para cliente e FINISH para servidor)
      * @throws IOException excessões de timeout de leitura de mensagem síncrona
      */
-    private boolean processTcpMessage(String message, UnicastCommunicationContext context)
+    private boolean processTcpMessage(UnicastMessage message, UnicastCommunicationContext context)
             throws IOException {
-        //Envia evento de mensagem à observadores
-        onMessageEvent(String.format("Unicast   [%05d]: %s", context.getConnection().getId(), message));
-        //Particiona mensagem em tokens
-        String[] msgTokens = message.split("/");
-        //Tipo de mensagem
-        String messageType = msgTokens[0];
-        switch (messageType){
-            //ADD/#ITEM_DESC/#ITEM_PRICE
-            //<editor-fold desc="Processa 'ADD'">
-            //Adiciona novos item para venda para o par da parte oposta an conexão
-            case "ADD":
-                //Para adicionar um item, o par deve ter se anunciado antes
-                if(context.getSenderUuid() != null){
-                    //Esta mensagem é processada apenas pelo indexador
-                    if (!indexing) {
-                        tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
-                                "Process is not indexer",
-                                10);
-                    }
-                    //Cria novo item e o adiciona na lista de items vendidos pela parte oposta
-                    SaleItem item = new SaleItem()
-                            .setDescription(msgTokens[1])
-                            .setPrice(Float.parseFloat(msgTokens[2]));
-                    boolean failed = true;
-                    synchronized (peerMap){
-                        if (peerMap.containsKey(context.getSenderUuid())) {
-                            peerMap.get(context.getSenderUuid()).addItem(item);
-                            failed = false;
-                        }
-                    }
-                    //Se indexador nao conhecer par, a requisição falha
-                    if(failed)
-                        tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
-                                "Process don't know requester",
-                                20);
+        while (true) {
+            //Envia evento de mensagem à observadores
+            onMessageEvent(String.format("Unicast   [%05d]: %s", context.getConnection().getId(), message));
+            //Mensagens cifradas são decifradas e processadas como a mensagem original
+            if (message.getType() == UnicastMessage.Type.ENCRYPTED) {
+                UnicastMessage decrypted = decryptTcpMessage(message, context);
+                if (decrypted != null) {
+                    message = decrypted;
+                    continue;
                 }
-                else
-                    tcpErrorMessage(context.getConnection(),null,
-                            "Process have not announced itself", 30);
-                break;
-            //</editor-fold>
-
-            //BUY/#ITEM_DESC/#ITEM_PRICE
-            //<editor-fold desc="Processa 'BUY'">
-            //Realiza a venda de um item para a parte oposta
-            case "BUY":
-                //Cria novo item e filtra lista de items vendidos para procura-lo
-                SaleItem wanted = new SaleItem()
-                        .setDescription(msgTokens[1])
-                        .setPrice(Float.parseFloat(msgTokens[2]));
-                synchronized (saleItemList){
-                    Optional<SaleItem> optional = saleItemList
-                            .stream()
-                            .filter(item -> item.getDescription().equals(wanted.getDescription()) &&
-                                    Float.valueOf(item.getPrice()).equals(wanted.getPrice()))
-                            .findFirst();
-                    if(optional.isPresent()) {
-                        //Se o item for encontrado, remove ele da lista, armazena novo valor de
-                        //dinheiro e envia requisição de remoção do item ao indexador
-                        SaleItem item = optional.get();
-                        synchronized (moneyLock) {
-                            if(saleItemList.remove(item)) {
-                                setMoney(money + wanted.getPrice());
-                                if(!indexing)
-                                    sendRemoveSaleItem(item, lastActiveIndexer);
-                                else
-                                    peerMap.get(uuid).removeItem(item);
-                                //Por fim, lança evento aos observadores de items e transsação
-                                onItemProposalEventAsync(ItemProposalEvent.itemSold(item, peerMap.get(context.getSenderUuid())));
-                                onItemListEventAsync(new ItemListEvent(item, ItemListEvent.ItemListEventType.REMOVED));
-                            }
-                            else
-                                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(), "Transaction refused: internal problem", 60);
-                        }
+            }
+            else {
+                IUnicastMessageHandler handler = tcpMessageHandlers.get(message.getType());
+                if (handler != null && handler.handle(message, context))
+                    return true;
+            }
+            //Lê próxima mensagem até que OK ou FINISH recebidos
+            message = context.getConnection().getMessage();
+        }
+    }
+
+    /**
+     * Constrói tabela de processadores de mensagens unicast, por tipo de mensagem
+     * @return tabela de processadores
+     */
+    private Map<UnicastMessage.Type, IUnicastMessageHandler> buildTcpMessageHandlers() {
+        Map<UnicastMessage.Type, IUnicastMessageHandler> handlers = new EnumMap<>(UnicastMessage.Type.class);
+        handlers.put(UnicastMessage.Type.ADD, this::processTcpAdd);
+        handlers.put(UnicastMessage.Type.BUY, this::processTcpBuy);
+        handlers.put(UnicastMessage.Type.CLEAR, this::processTcpClear);
+        handlers.put(UnicastMessage.Type.DELTA, this::processTcpDelta);
+        handlers.put(UnicastMessage.Type.ERROR, this::processTcpError);
+        handlers.put(UnicastMessage.Type.FINISH, this::processTcpFinish);
+        handlers.put(UnicastMessage.Type.FOUND, this::processTcpFound);
+        handlers.put(UnicastMessage.Type.FOUND_END, this::processTcpFound);
+        handlers.put(UnicastMessage.Type.INTRODUCE, this::processTcpIntroduce);
+        handlers.put(UnicastMessage.Type.KEY, this::processTcpKey);
+        handlers.put(UnicastMessage.Type.KEY_REQUEST, this::processTcpKeyRequest);
+        handlers.put(UnicastMessage.Type.OK, this::processTcpOk);
+        handlers.put(UnicastMessage.Type.PEER_KEY, this::processTcpPeerKey);
+        handlers.put(UnicastMessage.Type.REMOVE, this::processTcpRemove);
+        handlers.put(UnicastMessage.Type.REPLICA, this::processTcpReplica);
+        handlers.put(UnicastMessage.Type.SEARCH, this::processTcpSearch);
+        handlers.put(UnicastMessage.Type.SESSION, this::processTcpSession);
+        handlers.put(UnicastMessage.Type.SYNC, this::processTcpSync);
+        handlers.put(UnicastMessage.Type.VERSION, this::processTcpVersion);
+        return handlers;
+    }
+
+    //<editor-fold desc="Processadores de mensagens unicast">
+    /**
+     * Processa 'ADD'.
+     * Adiciona novo item para venda para o par da parte oposta na conexão
+     *   ADD/#ITEM_DESC/#ITEM_PRICE
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpAdd(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        //Para adicionar um item, o par deve ter se anunciado antes
+        if(context.getSenderUuid() != null){
+            //Esta mensagem é processada apenas pelo indexador
+            if (!indexing) {
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process is not indexer",
+                        10);
+            }
+            //Alterações de um delta são aplicadas ao fim da requisição (ver 'DELTA')
+            if(context.getDeltaMutations() != null)
+                context.getDeltaMutations().add(message);
+            //Adiciona item à lista de items vendidos pela parte oposta
+            //Se indexador nao conhecer par, a requisição falha
+            else if(!applyCatalogMutation(context.getSenderUuid(), message))
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process don't know requester",
+                        20);
+        }
+        else
+            tcpErrorMessage(context.getConnection(),null,
+                    "Process have not announced itself", 30);
+        return false;
+    }
+
+    /**
+     * Processa 'BUY'.
+     * Realiza a venda de um item para a parte oposta
+     *   BUY/#ITEM_DESC/#ITEM_PRICE
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpBuy(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        //Cria novo item e filtra lista de items vendidos para procura-lo
+        SaleItem wanted = new SaleItem()
+                .setDescription(message.getDescription())
+                .setPrice(message.getPrice());
+        synchronized (saleItemList){
+            Optional<SaleItem> optional = saleItemList
+                    .stream()
+                    .filter(item -> item.getDescription().equals(wanted.getDescription()) &&
+                            item.getPrice() == wanted.getPrice())
+                    .findFirst();
+            if(optional.isPresent()) {
+                //Se o item for encontrado, remove ele da lista, armazena novo valor de
+                //dinheiro e envia requisição de remoção do item ao indexador
+                SaleItem item = optional.get();
+                synchronized (moneyLock) {
+                    if(saleItemList.remove(item)) {
+                        setMoney(money + wanted.getPrice());
+                        //Remoção do item e novo saldo são registrados juntos
+                        if (sellerLedger != null)
+                            sellerLedger.sell(item, money);
+                        if(!isIndexerFor(item.getDescription()))
+                            catalogUpdateBatcher.remove(item);
+                        else
+                            applyCatalogMutation(uuid, UnicastMessage.remove(item.getDescription(), item.getPrice()));
+                        //Por fim, lança evento aos observadores de items e transsação
+                        onItemProposalEventAsync(ItemProposalEvent.itemSold(item, peerRegistry.get(context.getSenderUuid())));
+                        onItemListEventAsync(new ItemListEvent(item, ItemListEvent.ItemListEventType.REMOVED));
                     }
                     else
-                        tcpErrorMessage(context.getConnection(), context.getEncryptionKey(), "Transaction refused: item not found", 60);
+                        tcpErrorMessage(context.getConnection(), context.getEncryptionKey(), "Transaction refused: internal problem", 60);
                 }
-                break;
-            //</editor-fold>
+            }
+            else
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(), "Transaction refused: item not found", 60);
+        }
+        return false;
+    }
 
-            //ENCRYPTED/#ENCRYPTED_MESSAGE
-            //<editor-fold desc="Processa 'ENCRYPTED'">
-            //Decifra mensagem utilizando chave privada e reprocessa-a utilizando este método
-            case "ENCRYPTED":
-                try {
-                    Cipher cipher = Cipher.getInstance(CRYPTO_ALGORITHM);
-                    cipher.init(Cipher.DECRYPT_MODE, keyPair.getPrivate());
-                    String decrypted = new String(cipher.doFinal(DatatypeConverter.parseHexBinary(msgTokens[1])), StandardCharsets.UTF_8);
-                    processTcpMessage(decrypted, context);
-                } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | BadPaddingException | IllegalBlockSizeException e) {
-                    e.printStackTrace();
-                }
-                break;
-            //</editor-fold>
+    /**
+     * Processa 'CLEAR'.
+     * Remove do índice todos os items para venda pelo par da parte oposta na conexão,
+     * que em seguida envia sua lista completa
+     *   CLEAR
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpClear(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        //Para remover items, o par deve ter se anunciado antes
+        if(context.getSenderUuid() != null){
+            //Esta mensagem é processada apenas pelo indexador
+            if (!indexing) {
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process is not indexer",
+                        10);
+            }
+            if(!applyCatalogMutation(context.getSenderUuid(), message))
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process don't know requester",
+                        20);
+        }
+        else
+            tcpErrorMessage(context.getConnection(),null,
+                    "Process have not announced itself", 30);
+        return false;
+    }
 
-            //ERROR/#ERROR_CODE/#ERROR_MESSAGE
-            //<editor-fold desc="Processa 'ERROR'">
-            //Lança uma exceção contendo a mensagem de erro e o código como parâmetro
-            case "ERROR":
-                String errorMsg = msgTokens[2];
-                int errorCode = Integer.parseInt(msgTokens[1]);
-                String e;
-                if(context.getSenderUuid() != null)
-                    e = String.format("ERROR %d: %s send \"%s\"", errorCode, context.getSenderUuid().toString(), errorMsg);
-                else
-                    e = String.format("ERROR %d: %s", errorCode, errorMsg);
-                System.out.println(e);
-                throw new IOException(e);
-                //</editor-fold>
-
-            //FINISH
-            //<editor-fold desc="Processa 'FINISH'">
-            //Envia OK ao remetente para confirmar finalização de requisição,
-            //e retorna true para indicar execução bem sucedida
-            case "FINISH":
-                tcpOkMessage(context.getConnection(), context.getEncryptionKey());
-                return true;
-            //</editor-fold>
+    /**
+     * Processa 'DELTA'.
+     * Inicia delta do catálogo da parte oposta: as alterações e a versão seguintes são mantidas no contexto e
+     * aplicadas ao fim da requisição ('FINISH'), somente se o índice possuir a versão base do delta
+     *   DELTA/#BASE_CATALOG_VERSION
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpDelta(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        //Parte oposta deve ter se anunciado anteriormente
+        if(context.getSenderUuid() != null) {
+            //Esta mensagem é processada apenas pelo indexador
+            if (!indexing) {
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process is not indexer",
+                        10);
+            }
+            if (peerRegistry.get(context.getSenderUuid()) == null)
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process don't know requester",
+                        20);
+            else
+                context.setDeltaBaseVersion(message.getCatalogVersion())
+                        .setDeltaMutations(new ArrayList<>());
+        }
+        else
+            tcpErrorMessage(context.getConnection(),null,
+                    "Process have not announced itself", 30);
+        return false;
+    }
 
-            //FOUND/#ITEM_DESC/#ITEM_PRICE/#SELLER_ID/#SELLER_PUBLIC_KEY
-            //FOUND
-            //<editor-fold desc="Processa 'FOUND'">
-            //Armazena no contexto desta conexão os items encontrados após uma requisição de procura.
-            //Ao receber o token sem parâmetros, inicializa requisição com proprietário do item
-            //mais barato e de melhor reputação para compra
-            case "FOUND":
-                //Verifica se o parte oposta foi indentificada e ela é o indexador
-                if(indexerUp && context.getSenderUuid() != null && context.getSenderUuid().equals(lastActiveIndexer.getUuid())) {
-                    //Caso tenha sido enviado um item
-                    if (msgTokens.length > 1) {
-                        //Cria o item para compra
-                        SaleItem saleItem = new SaleItem()
-                                .setDescription(msgTokens[1])
-                                .setPrice(Float.parseFloat(msgTokens[2]));
-                        //Recupera ID do vendedor do item
-                        UUID sellerUuid = UUID.fromString(msgTokens[3]);
-                        //Recupera chave pública do vendedor
-                        Key sellerKey = hexToPublicKey(msgTokens[4]);
-                        //Se a lista do contexto não tiver sido inicializada, inicialize-a
-                        if(context.getPeerItemPairList() == null)
-                            context.setPeerItemPairList(new ArrayList<>());
-                        boolean failed = true;
-                        //Atualzia chave do item e adiciona ao contexto um par vendedor/item
-                        synchronized (peerMap) {
-                            if (peerMap.containsKey(sellerUuid)) {
-                                failed = false;
-                                PeerOpponent peer = peerMap.get(sellerUuid);
-                                peer.setKey(sellerKey);
-                                context.getPeerItemPairList().add(new Pair<>(peer, saleItem));
-                            }
-                        }
-                        if(failed)
-                            tcpErrorMessage(context.getConnection(),null, String.format("Identifier \"%s\" not known by peer", uuid.toString()),50);
-                    }
-                    //Caso tenha sido enviado uma indicação de fim de lista de items encontrados
-                    //Verifica a lista esta vazia (ou seja, se o item pesquisado existe)
-                    else if(context.getPeerItemPairList() != null && !context.getPeerItemPairList().isEmpty()){
-                        //Se existir o item pesquisado, filtra a lista do contexto para encontrar o item mais barato
-                        //do vendedor de maior reputação
-                        Pair<PeerOpponent, SaleItem> pair = getPairPeerItemByPriceAndReputation(context.getPeerItemPairList());
-                        //Lança envento de item encontrado para compra
-                        //Obs.: Callback para requisição de compra é enviado junto com evento, para caso o usuário
-                        //aceitar compra seja possível iniciar esta requisição.
-                        if(pair != null)
-                            onItemProposalEventAsync(ItemProposalEvent.itemFound(pair.getRight(),pair.getLeft(), this::sendBuyItem));
-                    }
-                    else
-                        onItemProposalEventAsync(ItemProposalEvent.itemNotFound());
-                }
-                else
-                    tcpErrorMessage(context.getConnection(),null, "Client have not requested search", 40);
-                break;
-            //</editor-fold>
+    /**
+     * Processa 'ERROR'.
+     * Lança uma exceção contendo a mensagem de erro e o código como parâmetro
+     *   ERROR/#ERROR_CODE/#ERROR_MESSAGE
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return nunca retorna normalmente
+     * @throws IOException sempre, com código e mensagem do erro
+     */
+    private boolean processTcpError(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        String errorMsg = message.getErrorMessage();
+        int errorCode = message.getCode();
+        context.setErrorCode(errorCode);
+        String e;
+        if(context.getSenderUuid() != null)
+            e = String.format("ERROR %d: %s send \"%s\"", errorCode, context.getSenderUuid().toString(), errorMsg);
+        else
+            e = String.format("ERROR %d: %s", errorCode, errorMsg);
+        System.out.println(e);
+        throw new IOException(e);
+    }
 
-            //INTRODUCE/#SENDER_ID
-            //<editor-fold desc="Processa 'INTRODUCE'">
-            //Atualiza contexto da comunicação para incluir ID da parte oposta
-            case "INTRODUCE":
-                context.setSenderUuid(UUID.fromString(msgTokens[1]));
-                break;
-            //</editor-fold>
+    /**
+     * Processa 'FINISH'.
+     * Envia OK ao remetente para confirmar finalização de requisição. Caso a requisição seja um delta
+     * do catálogo (ver 'DELTA'), aplica suas alterações antes, ou responde com erro caso a versão
+     * base não seja a conhecida pelo índice
+     *   FINISH
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return true caso a mensagem encerre a sessão
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpFinish(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        if (context.getDeltaMutations() != null &&
+                !applyCatalogDelta(context.getSenderUuid(), context.getDeltaBaseVersion(), context.getDeltaMutations())) {
+            tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                    "Catalog version mismatch", CATALOG_VERSION_MISMATCH);
+            return true;
+        }
+        tcpOkMessage(context.getConnection(), context.getEncryptionKey());
+        return true;
+    }
 
-            //KEY/#PUBLIC_KEY
-            //<editor-fold desc="Processa 'KEY'">
-            //Associa à parte oposta da conexão a chave enviada
-            case "KEY":
-                //Parte oposta deve ter se anunciado anteriormente
-                if(context.getSenderUuid() != null) {
-                    if (!indexing) {
-                        tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
-                                "Process is not indexer",
-                                10);
+    /**
+     * Processa 'FOUND' (item encontrado ou fim de lista).
+     * Armazena no contexto desta conexão os items encontrados após uma requisição de procura.
+     * Cada item traz apenas a impressão digital da chave do vendedor; chaves ainda não conhecidas
+     * são solicitadas ao indexador em uma única requisição ao fim da lista.
+     * Ao receber a indicação de fim de lista, inicializa requisição com proprietário do item
+     * mais barato e de melhor reputação para compra. Caso nenhuma oferta da página possa ser comprada
+     * e existam mais resultados, solicita a próxima página
+     *   FOUND/#ITEM_DESC/#ITEM_PRICE/#SELLER_ID/#SELLER_KEY_FINGERPRINT
+     *   FOUND/#NEXT_CURSOR
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpFound(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        //Verifica se o parte oposta foi indentificada e ela é um dos indexadores
+        PeerOpponent indexer = context.getSenderUuid() != null ? indexerRing.get(context.getSenderUuid()) : null;
+        if(indexerUp && indexer != null) {
+            //Caso tenha sido enviado um item
+            if (message.getType() == UnicastMessage.Type.FOUND) {
+                //Cria o item para compra
+                SaleItem saleItem = new SaleItem()
+                        .setDescription(message.getDescription())
+                        .setPrice(message.getPrice());
+                //Recupera ID do vendedor do item
+                UUID sellerUuid = message.getUuid();
+                //Recupera impressão digital da chave pública do vendedor
+                byte[] sellerKeyFingerprint = message.getData();
+                //Se a lista do contexto não tiver sido inicializada, inicialize-a
+                if(context.getPeerItemPairList() == null)
+                    context.setPeerItemPairList(new ArrayList<>());
+                //Adiciona ao contexto um par vendedor/item, registrando chave desconhecida (ou alterada) do vendedor
+                PeerOpponent peer = peerRegistry.get(sellerUuid);
+                if (peer != null) {
+                    if (!Arrays.equals(peer.getKeyFingerprint(), sellerKeyFingerprint)) {
+                        if (context.getPendingKeyFingerprints() == null)
+                            context.setPendingKeyFingerprints(new HashMap<>());
+                        context.getPendingKeyFingerprints().put(sellerUuid, sellerKeyFingerprint);
                     }
-                    //Converte chave de string
-                    String hexString = msgTokens[1];
-                    Key publicKey = hexToPublicKey(hexString);
-                    boolean failed = true;
-                    //Realiza associação entre chave e o par que a enviou
-                    synchronized (peerMap){
-                        if (peerMap.containsKey(context.getSenderUuid())) {
-                            peerMap.get(context.getSenderUuid()).setKey(publicKey);
-                            tcpOkMessage(context.getConnection(), context.getEncryptionKey());
-                            failed = false;
-                        }
+                    context.getPeerItemPairList().add(new Pair<>(peer, saleItem));
+                }
+                else
+                    tcpErrorMessage(context.getConnection(),null, String.format("Identifier \"%s\" not known by peer", uuid.toString()),50);
+            }
+            //Caso tenha sido enviado uma indicação de fim de lista de items encontrados
+            else {
+                Pair<PeerOpponent, SaleItem> pair = null;
+                //Verifica a lista esta vazia (ou seja, se o item pesquisado existe)
+                List<Pair<PeerOpponent, SaleItem>> pairList = context.getPeerItemPairList();
+                if(pairList != null && !pairList.isEmpty()) {
+                    //Solicita ao indexador, de uma só vez, as chaves desconhecidas e descarta vendedores
+                    //cuja chave não pôde ser obtida (não é possível comprar deles)
+                    Map<UUID, byte[]> pendingKeys = context.getPendingKeyFingerprints();
+                    if(pendingKeys != null) {
+                        fetchPeerKeys(indexer, pendingKeys);
+                        pairList.removeIf(offer -> pendingKeys.containsKey(offer.getLeft().getUuid()));
                     }
-                    if(failed)
-                        tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
-                                "Process don't know requester",
-                                20);
+                    //Se existir o item pesquisado, filtra a lista do contexto para encontrar o item mais barato
+                    //do vendedor de maior reputação
+                    pair = getPairPeerItemByPriceAndReputation(pairList);
                 }
+                //Lança envento de item encontrado para compra
+                //Obs.: Callback para requisição de compra é enviado junto com evento, para caso o usuário
+                //aceitar compra seja possível iniciar esta requisição.
+                if(pair != null)
+                    onItemProposalEventAsync(ItemProposalEvent.itemFound(pair.getRight(),pair.getLeft(), this::sendBuyItem));
+                //Nenhuma oferta da página pode ser comprada: solicita a próxima, caso exista
+                else if(message.getCursor().length > 0 && context.getSearchDescription() != null)
+                    sendSearchItemByDescription(context.getSearchDescription(), message.getCursor(), indexer);
                 else
-                    tcpErrorMessage(context.getConnection(),null,
-                            "Process have not announced itself", 30);
-                break;
-            //</editor-fold>
+                    onItemProposalEventAsync(ItemProposalEvent.itemNotFound());
+            }
+        }
+        else
+            tcpErrorMessage(context.getConnection(),null, "Client have not requested search", 40);
+        return false;
+    }
 
-            //OK
-            //<editor-fold desc="Processa 'OK'">
-            //Resposta bem sucedida de uma mensagem de finalização de requisição
-            case "OK":
-                return true;
-            //</editor-fold>
+    /**
+     * Processa 'INTRODUCE'.
+     * Atualiza contexto da comunicação para incluir ID da parte oposta
+     *   INTRODUCE/#SENDER_ID
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpIntroduce(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        context.setSenderUuid(message.getUuid());
+        return false;
+    }
 
-            //REMOVE/#ITEM_DESC/#ITEM_PRICE
-            //<editor-fold desc="Processa 'REMOVE'">
-            //Remove item para venda para o par da parte oposta na conexão
-            case "REMOVE":
-                //Para adicionar um item, o par deve ter se anunciado antes
-                if(context.getSenderUuid() != null){
-                    //Esta mensagem é processada apenas pelo indexador
-                    if (!indexing) {
-                        tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
-                                "Process is not indexer",
-                                10);
-                    }
-                    //Cria novo item e o remove da lista de items vendidos pela parte oposta
-                    SaleItem item = new SaleItem()
-                            .setDescription(msgTokens[1])
-                            .setPrice(Float.parseFloat(msgTokens[2]));
-                    boolean failed = true;
-                    synchronized (peerMap){
-                        if (peerMap.containsKey(context.getSenderUuid())) {
-                            peerMap.get(context.getSenderUuid()).removeItem(item);
-                            failed = false;
-                        }
-                    }
-                    if(failed)
-                        tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
-                                "Process don't know requester",
-                                20);
+    /**
+     * Processa 'KEY'.
+     * Associa à parte oposta da conexão a chave enviada
+     *   KEY/#PUBLIC_KEY
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpKey(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        //Parte oposta deve ter se anunciado anteriormente
+        if(context.getSenderUuid() != null) {
+            if (!indexing) {
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process is not indexer",
+                        10);
+            }
+            //Realiza associação entre chave e o par que a enviou
+            if (applyCatalogMutation(context.getSenderUuid(), message)) {
+                tcpOkMessage(context.getConnection(), context.getEncryptionKey());
+            }
+            else
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process don't know requester",
+                        20);
+        }
+        else
+            tcpErrorMessage(context.getConnection(),null,
+                    "Process have not announced itself", 30);
+        return false;
+    }
+
+    /**
+     * Processa 'KEY_REQUEST'.
+     * Responde com a chave pública de um par conhecido pelo indexador. Pares desconhecidos, ou cuja chave
+     * ainda não foi recebida, não geram resposta
+     *   KEY_REQUEST/#PEER_ID
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpKeyRequest(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        //Parte oposta deve ter se anunciado anteriormente
+        if(context.getSenderUuid() != null) {
+            //Esta mensagem só pode ser processada pelo indexador
+            if (!indexing) {
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process is not indexer",
+                        10);
+            }
+            PeerOpponent peer = peerRegistry.get(message.getUuid());
+            Key peerKey = peer != null ? peer.getKey() : null;
+            if (peerKey != null)
+                tcpPeerKeyMessage(context.getConnection(), context.getEncryptionKey(), message.getUuid(), peerKey.getEncoded());
+        }
+        else
+            tcpErrorMessage(context.getConnection(),null,
+                    "Process have not announced itself", 30);
+        return false;
+    }
+
+    /**
+     * Processa 'OK'.
+     * Resposta bem sucedida de uma mensagem de finalização de requisição
+     *   OK
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return true caso a mensagem encerre a sessão
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpOk(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        return true;
+    }
+
+    /**
+     * Processa 'PEER_KEY'.
+     * Associa a um vendedor a chave solicitada ao indexador, caso corresponda à impressão digital
+     * recebida na pesquisa
+     *   PEER_KEY/#PEER_ID/#PEER_PUBLIC_KEY
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpPeerKey(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        Map<UUID, byte[]> pendingKeys = context.getPendingKeyFingerprints();
+        //Verifica se a chave foi solicitada ao indexador
+        if(indexerUp && pendingKeys != null && pendingKeys.containsKey(message.getUuid())) {
+            Key peerKey = cryptoService.decodePublicKey(message.getData());
+            byte[] fingerprint = cryptoService.fingerprint(peerKey);
+            if (Arrays.equals(fingerprint, pendingKeys.get(message.getUuid()))) {
+                PeerOpponent peer = peerRegistry.get(message.getUuid());
+                if (peer != null) {
+                    peer.setKey(peerKey)
+                            .setKeyFingerprint(fingerprint);
+                    pendingKeys.remove(message.getUuid());
                 }
-                else
-                    tcpErrorMessage(context.getConnection(),null,
-                            "Process have not announced itself", 30);
-                break;
-            //</editor-fold>
+            }
+        }
+        else
+            tcpErrorMessage(context.getConnection(),null, "Client have not requested key", 40);
+        return false;
+    }
 
-            //SEARCH/#ITEM_DESC
-            //<editor-fold desc="Processa 'SEARCH'">
-            //Realiza uma busca por items que contenham descrição passada e responde remetente
-            //com lista de items encontrados
-            case "SEARCH":
-                //Parte oposta deve ter se anunciado anteriormente
-                if(context.getSenderUuid() != null) {
-                    //Esta mensagem só pode ser processada pelo indexador
-                    if (!indexing) {
-                        tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
-                                "Process is not indexer",
-                                10);
-                    }
-                    //Recupera lista de items por descrição
-                    List<Pair<PeerOpponent, SaleItem>> pairList = getPeerBySaleItemDescription(context.getSenderUuid(), msgTokens[1]);
-                    if(pairList != null) {
-                        //Para cada item da lista responde o remetente com o item passado
-                        for (Pair<PeerOpponent, SaleItem> pair: pairList) {
-                            PeerOpponent peer = pair.getLeft();
-                            String key = keyToHex(peer.getKey());
-                            SaleItem item = pair.getRight();
-                            tcpFoundMessage(context.getConnection(), context.getEncryptionKey(), peer, item, key);
-                        }
-                    }
-                    //Envia uma ultima mensagem para indicar fim da lista
-                    tcpFoundMessage(context.getConnection(), context.getEncryptionKey());
+    /**
+     * Processa 'REMOVE'.
+     * Remove item para venda para o par da parte oposta na conexão
+     *   REMOVE/#ITEM_DESC/#ITEM_PRICE
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpRemove(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        //Para adicionar um item, o par deve ter se anunciado antes
+        if(context.getSenderUuid() != null){
+            //Esta mensagem é processada apenas pelo indexador
+            if (!indexing) {
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process is not indexer",
+                        10);
+            }
+            //Alterações de um delta são aplicadas ao fim da requisição (ver 'DELTA')
+            if(context.getDeltaMutations() != null)
+                context.getDeltaMutations().add(message);
+            //Remove item da lista de items vendidos pela parte oposta
+            else if(!applyCatalogMutation(context.getSenderUuid(), message))
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process don't know requester",
+                        20);
+        }
+        else
+            tcpErrorMessage(context.getConnection(),null,
+                    "Process have not announced itself", 30);
+        return false;
+    }
+
+    /**
+     * Processa 'REPLICA'.
+     * Aplica ao índice deste processo (indexador reserva) uma alteração do catálogo de um vendedor,
+     * replicada pelo indexador ativo. Alterações de vendedores desconhecidos são ignoradas
+     *   REPLICA/#SELLER_ID/#CATALOG_MESSAGE
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe ou a alteração replicada seja inválida
+     */
+    private boolean processTcpReplica(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        //Somente o indexador ativo replica seu catálogo
+        if(context.getSenderUuid() != null && !indexing && indexerRing.contains(context.getSenderUuid())) {
+            byte[] mutation = message.getData();
+            applyCatalogMutation(message.getUuid(), messageCodec.get().decode(mutation, 0, mutation.length));
+        }
+        else
+            tcpErrorMessage(context.getConnection(), null, "Process is not indexer standby", 90);
+        return false;
+    }
+
+    /**
+     * Processa 'SEARCH'.
+     * Realiza uma busca por items que contenham descrição passada e responde remetente
+     * com uma página das melhores ofertas encontradas (até o limite solicitado, no máximo
+     * {@link #SEARCH_RESULT_LIMIT}), após o cursor (última oferta da página anterior), seguida do cursor
+     * da próxima página
+     *   SEARCH/#ITEM_DESC/#LIMIT/#CURSOR
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpSearch(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        //Parte oposta deve ter se anunciado anteriormente
+        if(context.getSenderUuid() != null) {
+            //Esta mensagem só pode ser processada pelo indexador
+            if (!indexing) {
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process is not indexer",
+                        10);
+            }
+            int limit = message.getLimit() > 0 ? Math.min(message.getLimit(), SEARCH_RESULT_LIMIT) : SEARCH_RESULT_LIMIT;
+            //Recupera página de items por descrição, após a última oferta da página anterior
+            OfferPage page = getPeerBySaleItemDescription(context.getSenderUuid(),
+                    message.getDescription(), SearchCursor.decode(message.getCursor()), limit);
+            byte[] nextCursor = UnicastMessage.NO_CURSOR;
+            if(page != null) {
+                //Para cada item da lista responde o remetente com o item passado
+                for (Pair<PeerOpponent, SaleItem> pair: page.getOffers()) {
+                    PeerOpponent peer = pair.getLeft();
+                    tcpFoundMessage(context.getConnection(), context.getEncryptionKey(), peer, pair.getRight(), peer.getKeyFingerprint());
                 }
-                else
-                    tcpErrorMessage(context.getConnection(),null,
-                            "Process have not announced itself", 30);
-                break;
-            //</editor-fold>
-            default:
+                if(page.getNext() != null)
+                    nextCursor = page.getNext().encode();
+            }
+            //Envia uma ultima mensagem para indicar fim da lista, com o cursor da próxima página
+            tcpFoundMessage(context.getConnection(), context.getEncryptionKey(), nextCursor);
         }
-        //Rechama este método até que OK ou FINISH recebidos
-        return processTcpMessage(context.getConnection().getMessage(), context);
+        else
+            tcpErrorMessage(context.getConnection(),null,
+                    "Process have not announced itself", 30);
+        return false;
+    }
+
+    /**
+     * Processa 'SESSION'.
+     * Decifra com a chave privada a chave simétrica enviada pela parte oposta, que passa a ser utilizada
+     * para decifrar as mensagens seguintes da sessão e para cifrar as respostas
+     *   SESSION/#WRAPPED_SESSION_KEY
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpSession(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        try {
+            SecretKey sessionKey = cryptoService.unwrapSessionKey(message.getData());
+            context.setSessionKey(sessionKey)
+                    .setEncryptionKey(sessionKey);
+        } catch (GeneralSecurityException e) {
+            e.printStackTrace();
+            tcpErrorMessage(context.getConnection(), null, "Invalid session key", 70);
+        }
+        return false;
     }
 
+    /**
+     * Processa 'SYNC'.
+     * Responde com a versão do catálogo da parte oposta conhecida pelo índice (por exemplo, recebido
+     * por replicação enquanto este processo era o reserva), a partir da qual a parte oposta envia as
+     * alterações seguintes. Caso o índice não possua o catálogo, responde com
+     * {@link PeerOpponent#NO_CATALOG_VERSION} e a parte oposta envia sua lista completa
+     *   SYNC/#CATALOG_VERSION
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpSync(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        //Parte oposta deve ter se anunciado anteriormente
+        if(context.getSenderUuid() != null) {
+            //Esta mensagem só pode ser processada pelo indexador
+            if (!indexing) {
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process is not indexer",
+                        10);
+            }
+            PeerOpponent peer = peerRegistry.get(context.getSenderUuid());
+            if (peer == null)
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process don't know requester",
+                        20);
+            //Versão posterior à informada indica índice inconsistente (ex.: parte oposta reiniciada)
+            else if (peer.getKey() == null || peer.getCatalogVersion() > message.getCatalogVersion())
+                tcpVersionMessage(context.getConnection(), context.getEncryptionKey(), PeerOpponent.NO_CATALOG_VERSION);
+            else
+                tcpVersionMessage(context.getConnection(), context.getEncryptionKey(), peer.getCatalogVersion());
+        }
+        else
+            tcpErrorMessage(context.getConnection(),null,
+                    "Process have not announced itself", 30);
+        return false;
+    }
+
+    /**
+     * Processa 'VERSION'.
+     * Registra a versão do catálogo da parte oposta após as alterações da requisição.
+     * Em resposta a 'SYNC', armazena no contexto a versão do catálogo deste processo conhecida pelo indexador
+     *   VERSION/#CATALOG_VERSION
+     * @param message mensagem recebida
+     * @param context contexto da requisição
+     * @return false (sessão continua)
+     * @throws IOException caso o envio de resposta falhe
+     */
+    private boolean processTcpVersion(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        //Resposta do indexador a 'SYNC' enviado por este processo
+        if(context.getIndexedCatalogVersion() != null) {
+            context.setIndexedCatalogVersion(message.getCatalogVersion());
+        }
+        //Parte oposta deve ter se anunciado anteriormente
+        else if(context.getSenderUuid() != null) {
+            //Esta mensagem é processada apenas pelo indexador
+            if (!indexing) {
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process is not indexer",
+                        10);
+            }
+            //Versão de um delta é aplicada ao fim da requisição, com as alterações (ver 'DELTA')
+            if(context.getDeltaMutations() != null)
+                context.getDeltaMutations().add(message);
+            else if(!applyCatalogMutation(context.getSenderUuid(), message))
+                tcpErrorMessage(context.getConnection(), context.getEncryptionKey(),
+                        "Process don't know requester",
+                        20);
+        }
+        else
+            tcpErrorMessage(context.getConnection(),null,
+                    "Process have not announced itself", 30);
+        return false;
+    }
+
+    /**
+     * Decifra mensagem 'ENCRYPTED'. Caso a sessão tenha uma chave simétrica (ver 'SESSION'), ela é utilizada;
+     * caso contrário a mensagem foi cifrada diretamente com a chave pública deste processo
+     *   ENCRYPTED/#ENCRYPTED_MESSAGE
+     * @param message mensagem cifrada
+     * @param context contexto da requisição
+     * @return mensagem original, ou null caso não seja possível decifrá-la
+     * @throws IOException caso a mensagem decifrada seja inválida
+     */
+    private UnicastMessage decryptTcpMessage(UnicastMessage message, UnicastCommunicationContext context) throws IOException {
+        try {
+            byte[] decrypted = cryptoService.decrypt(context.getSessionKey(), message.getData());
+            return messageCodec.get().decode(decrypted, 0, decrypted.length);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+    //</editor-fold>
+
     //<editor-fold desc="Métodos para envio de mensagens unicast">
 
     /**
@@ -1274,7 +2266,7 @@ public class Peer {
                                Key key,
                                SaleItem item)
             throws IOException {
-        String message = String.format("ADD/%s/%.2f", item.getDescription(), item.getPrice());
+        UnicastMessage message = UnicastMessage.add(item.getDescription(), item.getPrice());
         if(key != null)
             tcpEncryptedMessage(connection, key, message);
         else
@@ -1292,7 +2284,7 @@ public class Peer {
                                Key key,
                                SaleItem item)
             throws IOException {
-        String message = String.format("BUY/%s/%.02f", item.getDescription(), item.getPrice());
+        UnicastMessage message = UnicastMessage.buy(item.getDescription(), item.getPrice());
         if(key != null)
             tcpEncryptedMessage(connection, key, message);
         else
@@ -1300,7 +2292,41 @@ public class Peer {
     }
 
     /**
-     * Envia à parte oposta da conexão mensagem criptografada
+     * Envia à parte oposta da conexão mensagem para remover todos os items à venda por este processo
+     * @param connection conexão para enviar mensagem
+     * @param key chave para encriptar mensagem (null para não realizar criptografia)
+     * @throws IOException caso conexão tenha sido interrompida
+     */
+    private void tcpClearMessage(IUnicastSocketConnection connection,
+                                 Key key)
+            throws IOException {
+        UnicastMessage message = UnicastMessage.clear();
+        if(key != null)
+            tcpEncryptedMessage(connection, key, message);
+        else
+            connection.sendMessage(message);
+    }
+
+    /**
+     * Envia à parte oposta da conexão mensagem de início de delta do catálogo deste processo
+     * @param connection conexão para enviar mensagem
+     * @param key chave para encriptar mensagem (null para não realizar criptografia)
+     * @param baseVersion versão do catálogo a que as alterações seguintes se aplicam
+     * @throws IOException caso conexão tenha sido interrompida
+     */
+    private void tcpDeltaMessage(IUnicastSocketConnection connection,
+                                 Key key,
+                                 long baseVersion)
+            throws IOException {
+        UnicastMessage message = UnicastMessage.delta(baseVersion);
+        if(key != null)
+            tcpEncryptedMessage(connection, key, message);
+        else
+            connection.sendMessage(message);
+    }
+
+    /**
+     * Envia à parte oposta da conexão mensagem criptografada (ver {@link CryptoService#encrypt(Key, byte[])})
      * @param connection conexão para enviar mensagem
      * @param key chave para encriptar mensagem (deve ser diferente de null)
      * @param message mensagem que se deseja criptografar
@@ -1308,20 +2334,38 @@ public class Peer {
      */
     private void tcpEncryptedMessage(IUnicastSocketConnection connection,
                                      Key key,
-                                     String message)
+                                     UnicastMessage message)
             throws IOException{
         if(key != null) {
             try {
-                Cipher cipher = Cipher.getInstance(CRYPTO_ALGORITHM);
-                cipher.init(Cipher.ENCRYPT_MODE, key);
-                String encrypted = DatatypeConverter.printHexBinary(cipher.doFinal(message.getBytes(StandardCharsets.UTF_8)));
-                connection.sendMessage(String.format("ENCRYPTED/%s",encrypted));
-            } catch (NoSuchAlgorithmException | IllegalBlockSizeException | BadPaddingException | InvalidKeyException | NoSuchPaddingException e) {
+                byte[] encrypted = cryptoService.encrypt(key, messageCodec.get().encode(message));
+                connection.sendMessage(UnicastMessage.encrypted(encrypted));
+            } catch (GeneralSecurityException e) {
                 e.printStackTrace();
             }
         }
     }
 
+    /**
+     * Gera nova chave de sessão e a envia à parte oposta da conexão, cifrada com sua chave pública.
+     * As mensagens seguintes da sessão devem ser cifradas com a chave retornada
+     * @param connection conexão para enviar mensagem
+     * @param key chave pública da parte oposta
+     * @return chave de sessão gerada
+     * @throws IOException caso a conexão tenha sido interrompida ou não seja possível cifrar a chave
+     */
+    private SecretKey tcpSessionMessage(IUnicastSocketConnection connection,
+                                        Key key)
+            throws IOException {
+        try {
+            SecretKey sessionKey = cryptoService.generateSessionKey();
+            connection.sendMessage(UnicastMessage.session(cryptoService.wrapSessionKey(key, sessionKey)));
+            return sessionKey;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Could not establish session key", e);
+        }
+    }
+
     /**
      * Envia à parte oposta da conexão mensagem de erro
      * @param connection conexão para enviar mensagem
@@ -1335,7 +2379,45 @@ public class Peer {
                                  String errorMessage,
                                  int errorCode)
             throws IOException {
-        String message = String.format("ERROR/%d/%s", errorCode, errorMessage);
+        UnicastMessage message = UnicastMessage.error(errorCode, errorMessage);
+        if(key != null)
+            tcpEncryptedMessage(connection, key, message);
+        else
+            connection.sendMessage(message);
+    }
+
+    /**
+     * Envia à parte oposta da conexão mensagem solicitando a chave pública de um par
+     * @param connection conexão para enviar mensagem
+     * @param key chave para encriptar mensagem (null para não realizar criptografia)
+     * @param peerUuid identificador do par
+     * @throws IOException caso conexão tenha sido interrompida
+     */
+    private void tcpKeyRequestMessage(IUnicastSocketConnection connection,
+                                      Key key,
+                                      UUID peerUuid)
+            throws IOException {
+        UnicastMessage message = UnicastMessage.keyRequest(peerUuid);
+        if(key != null)
+            tcpEncryptedMessage(connection, key, message);
+        else
+            connection.sendMessage(message);
+    }
+
+    /**
+     * Envia à parte oposta da conexão a chave pública de um par solicitada
+     * @param connection conexão para enviar mensagem
+     * @param key chave para encriptar mensagem (null para não realizar criptografia)
+     * @param peerUuid identificador do par
+     * @param peerKey chave pública (codificada) do par
+     * @throws IOException caso conexão tenha sido interrompida
+     */
+    private void tcpPeerKeyMessage(IUnicastSocketConnection connection,
+                                   Key key,
+                                   UUID peerUuid,
+                                   byte[] peerKey)
+            throws IOException {
+        UnicastMessage message = UnicastMessage.peerKey(peerUuid, peerKey);
         if(key != null)
             tcpEncryptedMessage(connection, key, message);
         else
@@ -1351,7 +2433,7 @@ public class Peer {
     private void tcpFinishMessage(IUnicastSocketConnection connection,
                                   Key key)
             throws IOException {
-        String message = String.format("FINISH");
+        UnicastMessage message = UnicastMessage.finish();
         if(key != null)
             tcpEncryptedMessage(connection, key, message);
         else
@@ -1364,16 +2446,16 @@ public class Peer {
      * @param key chave para encriptar mensagem (null para não realizar criptografia)
      * @param peer vendedor do item solicitado
      * @param item item solicitado
-     * @param peerKey chave pública do vendedor
+     * @param peerKeyFingerprint impressão digital da chave pública do vendedor
      * @throws IOException caso conexão tenha sido interrompida
      */
     private void tcpFoundMessage(IUnicastSocketConnection connection,
                                  Key key,
                                  PeerOpponent peer,
                                  SaleItem item,
-                                 String peerKey)
+                                 byte[] peerKeyFingerprint)
             throws IOException {
-        String message = String.format("FOUND/%s/%.02f/%s/%s", item.getDescription(), item.getPrice(), peer.getUuid(), peerKey);
+        UnicastMessage message = UnicastMessage.found(item.getDescription(), item.getPrice(), peer.getUuid(), peerKeyFingerprint);
         if(key != null)
             tcpEncryptedMessage(connection, key, message);
         else
@@ -1384,12 +2466,14 @@ public class Peer {
      * Envia à parte oposta da conexão mensagem de finalização de lista de items encontrados
      * @param connection conexão para enviar mensagem
      * @param key chave para encriptar mensagem (null para não realizar criptografia)
+     * @param nextCursor cursor da próxima página ({@link UnicastMessage#NO_CURSOR} caso não haja)
      * @throws IOException caso a conexão tenha sido interrompida
      */
     private void tcpFoundMessage(IUnicastSocketConnection connection,
-                                 Key key)
+                                 Key key,
+                                 byte[] nextCursor)
             throws IOException {
-        String message = "FOUND";
+        UnicastMessage message = UnicastMessage.foundEnd(nextCursor);
         if(key != null)
             tcpEncryptedMessage(connection, key, message);
         else
@@ -1405,7 +2489,7 @@ public class Peer {
     private void tcpIntroductMessage(IUnicastSocketConnection connection,
                                      Key key)
             throws IOException {
-        String message = String.format("INTRODUCE/%s", uuid.toString());
+        UnicastMessage message = UnicastMessage.introduce(uuid);
         if(key != null)
             tcpEncryptedMessage(connection, key, message);
         else
@@ -1416,14 +2500,14 @@ public class Peer {
      * Envia à parte oposta da conexão mensagem contendo chave
      * @param connection conexão para enviar mensagem
      * @param key chave para encriptar mensagem (null para não realizar criptografia)
-     * @param encryptionKey chave anunciada
+     * @param encryptionKey chave anunciada (codificada)
      * @throws IOException caso conexão tenha sido interrompida
      */
     private void tcpKeyMessage(IUnicastSocketConnection connection,
                                Key key,
-                               String encryptionKey)
+                               byte[] encryptionKey)
             throws IOException {
-        String message = String.format("KEY/%s", encryptionKey);
+        UnicastMessage message = UnicastMessage.key(encryptionKey);
         if(key != null)
             tcpEncryptedMessage(connection, key, message);
         else
@@ -1439,7 +2523,7 @@ public class Peer {
     private void tcpOkMessage(IUnicastSocketConnection connection,
                               Key key)
             throws IOException {
-        String message = String.format("OK");
+        UnicastMessage message = UnicastMessage.ok();
         if(key != null)
             tcpEncryptedMessage(connection, key, message);
         else
@@ -1457,7 +2541,27 @@ public class Peer {
                                Key key,
                                SaleItem item)
             throws IOException {
-        String message = String.format("REMOVE/%s/%.2f", item.getDescription(), item.getPrice());
+        UnicastMessage message = UnicastMessage.remove(item.getDescription(), item.getPrice());
+        if(key != null)
+            tcpEncryptedMessage(connection, key, message);
+        else
+            connection.sendMessage(message);
+    }
+
+    /**
+     * Envia à parte oposta da conexão (indexador reserva) mensagem com uma alteração replicada do catálogo de um vendedor
+     * @param connection conexão para enviar mensagem
+     * @param key chave para encriptar mensagem (null para não realizar criptografia)
+     * @param seller identificador do vendedor
+     * @param catalogMessage mensagem de alteração do catálogo, codificada
+     * @throws IOException caso conexão tenha sido interrompida
+     */
+    private void tcpReplicaMessage(IUnicastSocketConnection connection,
+                                   Key key,
+                                   UUID seller,
+                                   byte[] catalogMessage)
+            throws IOException {
+        UnicastMessage message = UnicastMessage.replica(seller, catalogMessage);
         if(key != null)
             tcpEncryptedMessage(connection, key, message);
         else
@@ -1469,13 +2573,53 @@ public class Peer {
      * @param connection conexão para enviar mensagem
      * @param key chave para encriptar mensagem (null para não realizar criptografia)
      * @param description descrição do item desejado
+     * @param limit número máximo de ofertas retornadas
+     * @param cursor cursor da página anterior, após o qual as ofertas são retornadas
      * @throws IOException caso a conexão tenha sido interrompida
      */
     private void tcpSearchMessage(IUnicastSocketConnection connection,
                                   Key key,
-                                  String description)
+                                  String description,
+                                  int limit,
+                                  byte[] cursor)
+            throws IOException {
+        UnicastMessage message = UnicastMessage.search(description, limit, cursor);
+        if(key != null)
+            tcpEncryptedMessage(connection, key, message);
+        else
+            connection.sendMessage(message);
+    }
+
+    /**
+     * Envia à parte oposta da conexão mensagem de confirmação da versão do catálogo deste processo
+     * @param connection conexão para enviar mensagem
+     * @param key chave para encriptar mensagem (null para não realizar criptografia)
+     * @param version versão do catálogo
+     * @throws IOException caso conexão tenha sido interrompida
+     */
+    private void tcpSyncMessage(IUnicastSocketConnection connection,
+                                Key key,
+                                long version)
+            throws IOException {
+        UnicastMessage message = UnicastMessage.sync(version);
+        if(key != null)
+            tcpEncryptedMessage(connection, key, message);
+        else
+            connection.sendMessage(message);
+    }
+
+    /**
+     * Envia à parte oposta da conexão mensagem com a versão do catálogo deste processo após as alterações enviadas
+     * @param connection conexão para enviar mensagem
+     * @param key chave para encriptar mensagem (null para não realizar criptografia)
+     * @param version versão do catálogo
+     * @throws IOException caso conexão tenha sido interrompida
+     */
+    private void tcpVersionMessage(IUnicastSocketConnection connection,
+                                   Key key,
+                                   long version)
             throws IOException {
-        String message = String.format("SEARCH/%s", description);
+        UnicastMessage message = UnicastMessage.version(version);
         if(key != null)
             tcpEncryptedMessage(connection, key, message);
         else
@@ -1484,70 +2628,56 @@ public class Peer {
     //</editor-fold>
 
     /**
-     * Retorna uma lista de items que contenham a descrição solicitada associado com seus respectivos vendedores
+     * Retorna uma página das melhores ofertas de items que contenham a descrição solicitada
+     * associados com seus respectivos vendedores, da melhor para a pior.
+     * Utiliza o índice do catálogo, já ordenado, percorrendo apenas os items até o fim da página.
+     * Vendedores cuja chave ainda não foi recebida não são retornados (não é possível comprar deles),
+     * nem contam para o limite da página
      * @param requester id do solicitante (será ignorado na pesquisa)
      * @param saleItemDescription descrição do item desejado
-     * @return uma lista contendo items que batem com a descrição associado aos seus respectivos vendedores
-     */
-    private List<Pair<PeerOpponent, SaleItem>> getPeerBySaleItemDescription(UUID requester, String saleItemDescription){
-        synchronized (peerMap) {
-            if(!peerMap.containsKey(requester))
-                return null;
-
-            return peerMap
-                    .entrySet()
-                    .parallelStream()
-                    .filter( pair -> !requester.equals(pair.getKey()) ) //filtra items que sejam vendidos pelo solicitante
-                    .flatMap(
-                            pair ->
-                            pair.getValue().getItems(saleItemDescription) //filtra por descrição de item
-                            .parallelStream()
-                            .map( item -> new Pair<>(pair.getValue(), item)) //associa vendedor ao item vendido
-                    )
-                    .collect( Collectors.toList() );
+     * @param after cursor da página anterior (null para a primeira página)
+     * @param limit número máximo de ofertas retornadas
+     * @return página contendo items que batem com a descrição associado aos seus respectivos vendedores,
+     *  ou null caso o solicitante não seja conhecido
+     */
+    private OfferPage getPeerBySaleItemDescription(UUID requester, String saleItemDescription,
+                                                   SearchCursor after, int limit){
+        if(!peerRegistry.contains(requester))
+            return null;
+        return peerRegistry.getBestOffers(saleItemDescription, requester, after, limit,
+                seller -> seller.getKeyFingerprint() != null);
+    }
+
+    /**
+     * Remove par do registro de pares (e seus items do índice do catálogo), descartando sua chave
+     * @param peerUuid identificador do par
+     */
+    private void removePeer(UUID peerUuid) {
+        PeerOpponent removed = peerRegistry.remove(peerUuid);
+        if (removed != null) {
+            cryptoService.forget(removed.getKey());
+            if (catalogJournal != null)
+                catalogJournal.remove(peerUuid);
         }
     }
 
     /**
-     * Filtra lista de items/ vendores por item de menor preço (vendido pelo vendedor com melhor reputação)
+     * Filtra lista de items/ vendores por item de menor preço (vendido pelo vendedor com melhor reputação).
+     * Utilizado pelo cliente sobre as poucas ofertas retornadas pelo indexador, reordenadas segundo as
+     * reputações conhecidas por este processo
      * @param pairList lista para ser filtrada, contém pares item/ vendedor do item
      * @return par item/ vendedor contendo item de menor preço vendido pelo (vendedor com melhor reputação)
      */
     private Pair<PeerOpponent, SaleItem> getPairPeerItemByPriceAndReputation(List<Pair<PeerOpponent, SaleItem>> pairList) {
         return pairList
-               .parallelStream()
-               .min((o1, o2) -> Float.valueOf(o1.getRight().getPrice()).equals(o2.getRight().getPrice()) ? //Caso preços sejam iguais ...
+               .stream()
+               .min((o1, o2) -> o1.getRight().getPrice() == o2.getRight().getPrice() ? //Caso preços sejam iguais ...
                        Integer.compare(o2.getLeft().getReputation(), o1.getLeft().getReputation()): //... realiza comparação de reputação ...
-                       Float.compare(o1.getRight().getPrice(), o2.getRight().getPrice()) //... caso contrário realiza comparação de preços
+                       Long.compare(o1.getRight().getPrice(), o2.getRight().getPrice()) //... caso contrário realiza comparação de preços
                )
                .orElse(null);
     }
 
-    /**
-     * Transforma uma chave em string (converte bytes da chave em strings hexadecimais)
-     * @param key chave para conversão
-     * @return string representando chave passada
-     */
-    private String keyToHex(Key key) {
-        return DatatypeConverter.printHexBinary(key.getEncoded());
-    }
-
-    /**
-     * Converte uma string de bytes impressa em hexadecimal para uma chave pública
-     * @param hex string de bytes em hexadecimal
-     * @return chave pública correspondente
-     */
-    private Key hexToPublicKey(String hex){
-        try {
-            return KeyFactory.getInstance(CRYPTO_ALGORITHM)
-                    .generatePublic(new X509EncodedKeySpec(DatatypeConverter.parseHexBinary(hex)));
-        } catch (InvalidKeySpecException e) {
-            throw new RuntimeException(String.format("Expected valid string of printed bytes for key generation (found: %s)",hex), e);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Expected "+ CRYPTO_ALGORITHM +" algorithm for encryption", e);
-        }
-    }
-
     /**
      * Modifica valor de flag (sincrono) e envia evento de estado do indexador
      * @param indexerUp novo valor de flag
@@ -1566,6 +2696,9 @@ public class Peer {
      */
     private synchronized void setIndexing(boolean indexing){
         this.indexing = indexing;
+        //Somente o indexador replica o catálogo
+        if(!indexing)
+            catalogReplicator.setStandby(null);
     }
 
     /**
@@ -1577,11 +2710,11 @@ public class Peer {
     }
 
     /**
-     * Método sincrono para modificar {@link #lastActiveIndexer}
-     * @param lastActiveIndexer novo valor de referência ao indexador
+     * Método sincrono para modificar {@link #indexerRing}
+     * @param indexerRing novos indexadores ativos
      */
-    private synchronized void setLastActiveIndexer(PeerOpponent lastActiveIndexer) {
-        this.lastActiveIndexer = lastActiveIndexer;
+    private synchronized void setIndexerRing(ShardRing indexerRing) {
+        this.indexerRing = indexerRing;
     }
 
     /**
@@ -0,0 +1,100 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import edu.utfpr.guilhermej.sisdist.av1.util.Pair;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.UUID;
+
+/**
+ * Arquivo com a identidade de um {@link Peer} (identificador e par de chaves assimétricas), permitindo
+ * que um processo reiniciado reutilize a mesma identidade sem gerar novas chaves.
+ * Formato: número mágico, identificador, algoritmo, chave pública (X.509) e chave privada (PKCS#8).
+ * O arquivo é substituído atomicamente e, quando suportado, legível apenas pelo dono.
+ */
+class PeerKeyStore {
+    /** Número mágico (e versão) do arquivo */
+    private static final int MAGIC = 0x53444B31;
+
+    /** Caminho do arquivo */
+    private final Path path;
+    /** Algoritmo esperado das chaves */
+    private final String algorithm;
+
+    /**
+     * Construtor padrão
+     * @param path caminho do arquivo
+     * @param algorithm algoritmo esperado das chaves (arquivos com outro algoritmo são ignorados)
+     */
+    PeerKeyStore(Path path, String algorithm) {
+        this.path = path;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Recupera identidade armazenada
+     * @return par identificador/ par de chaves, ou null caso o arquivo não exista ou seja inválido
+     */
+    Pair<UUID, KeyPair> load() {
+        if (!Files.exists(path))
+            return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Invalid key store file: " + path);
+            UUID uuid = new UUID(in.readLong(), in.readLong());
+            if (!algorithm.equals(in.readUTF()))
+                return null;
+            byte[] publicKey = new byte[in.readInt()];
+            in.readFully(publicKey);
+            byte[] privateKey = new byte[in.readInt()];
+            in.readFully(privateKey);
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm);
+            return new Pair<>(uuid, new KeyPair(
+                    keyFactory.generatePublic(new X509EncodedKeySpec(publicKey)),
+                    keyFactory.generatePrivate(new PKCS8EncodedKeySpec(privateKey))));
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Armazena identidade, substituindo a anterior
+     * @param uuid identificador do processo
+     * @param keyPair par de chaves do processo
+     * @throws IOException caso não seja possível escrever o arquivo
+     */
+    void save(UUID uuid, KeyPair keyPair) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try {
+                Files.setPosixFilePermissions(temporary, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                //Sistema de arquivos sem permissões POSIX
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                byte[] publicKey = keyPair.getPublic().getEncoded();
+                byte[] privateKey = keyPair.getPrivate().getEncoded();
+                out.writeInt(MAGIC);
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+                out.writeUTF(algorithm);
+                out.writeInt(publicKey.length);
+                out.write(publicKey);
+                out.writeInt(privateKey.length);
+                out.write(privateKey);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
@@ -2,30 +2,33 @@ package edu.utfpr.guilhermej.sisdist.av1.model;
 
 import java.net.InetAddress;
 import java.security.Key;
-import java.util.*;
-import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.UUID;
 
 /**
  * Classe representa pares satelites à {@link Peer}
  */
 public class PeerOpponent implements Comparable<PeerOpponent>{
+    /** Versão do catálogo de um par do qual o indexador não recebeu catálogo */
+    public static final long NO_CATALOG_VERSION = -1;
+
     /** ID do par */
     private UUID uuid;
     /** Endereço IP do par */
     private InetAddress ipAddress;
-    /** Chave pública do par */
-    private Key key;
+    /** Chave pública do par (alterada sem trancas, ao receber nova chave) */
+    private volatile Key key;
+    /** Impressão digital da chave pública do par (identifica a chave sem enviá-la) */
+    private volatile byte[] keyFingerprint;
     /** Porta TCP do servidor unicast do par */
     private int portTcp;
-    /** Reputação do par */
-    private int reputation;
-
-    private List<SaleItem> saleItemList;
+    /** Reputação do par (lida sem trancas pelas consultas ao índice do catálogo) */
+    private volatile int reputation;
+    /** Última versão do catálogo do par recebida pelo indexador ({@link #NO_CATALOG_VERSION} caso nenhuma) */
+    private volatile long catalogVersion;
 
     public PeerOpponent(){
-        saleItemList = new ArrayList<>();
         reputation = 0;
+        catalogVersion = NO_CATALOG_VERSION;
     }
 
     public UUID getUuid() {
@@ -55,6 +58,15 @@ public class PeerOpponent implements Comparable<PeerOpponent>{
         return this;
     }
 
+    public byte[] getKeyFingerprint() {
+        return keyFingerprint;
+    }
+
+    public PeerOpponent setKeyFingerprint(byte[] keyFingerprint) {
+        this.keyFingerprint = keyFingerprint;
+        return this;
+    }
+
     public int getPortTcp() {
         return portTcp;
     }
@@ -73,41 +85,12 @@ public class PeerOpponent implements Comparable<PeerOpponent>{
         return this;
     }
 
-    public SaleItem getItem (int index){
-        return saleItemList.get(index);
-    }
-
-    public List<SaleItem> getItems (String description){
-        return saleItemList
-                .stream()
-                .filter( i -> i.getDescription().equals(description) )
-                .collect( Collectors.toList() );
-    }
-
-    public int countItems(){
-        return saleItemList.size();
-    }
-
-    public PeerOpponent addItem(SaleItem item){
-        saleItemList.add(item);
-        return this;
-    }
-
-    public boolean removeItem(SaleItem item){
-        return saleItemList.remove(item);
-    }
-
-    public PeerOpponent sortItems(Comparator<SaleItem> comparision){
-        saleItemList.sort(comparision);
-        return this;
-    }
-
-    public void clearItems(){
-        saleItemList.clear();
+    public long getCatalogVersion() {
+        return catalogVersion;
     }
 
-    public PeerOpponent foreachItem(Consumer<? super SaleItem> action) {
-        saleItemList.forEach(action);
+    public PeerOpponent setCatalogVersion(long catalogVersion) {
+        this.catalogVersion = catalogVersion;
         return this;
     }
 
@@ -0,0 +1,201 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import edu.utfpr.guilhermej.sisdist.av1.util.Pair;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Registro dos pares conhecidos por um {@link Peer} e do índice de items à venda por eles (utilizado quando indexador).
+ * Não possui tranca global: o mapa de pares é concorrente, alterações do catálogo de um par são serializadas
+ * pela tranca do próprio par, e o índice ({@link CatalogIndex}) tranca apenas a descrição alterada ou
+ * consultada (leitura/ escrita), de forma que alterações de vendedores distintos e pesquisas sejam
+ * realizadas em paralelo, exceto sobre uma mesma descrição.
+ * Um par removido do registro não recebe novas ofertas, mesmo que uma alteração já estivesse em andamento.
+ */
+class PeerRegistry implements Closeable {
+    /** Pares, por identificador */
+    private final ConcurrentMap<UUID, PeerOpponent> peers;
+    /** Índice de items à venda pelos pares */
+    private final CatalogIndex catalogIndex;
+
+    PeerRegistry() {
+        this(new CatalogIndex());
+    }
+
+    /**
+     * @param catalogIndex índice do catálogo (inicialmente vazio)
+     */
+    PeerRegistry(CatalogIndex catalogIndex) {
+        peers = new ConcurrentHashMap<>();
+        this.catalogIndex = catalogIndex;
+    }
+
+    /**
+     * Recupera par pelo identificador
+     * @param peerUuid identificador do par
+     * @return par, ou null caso desconhecido
+     */
+    PeerOpponent get(UUID peerUuid) {
+        return peers.get(peerUuid);
+    }
+
+    /**
+     * Verifica se um par é conhecido
+     * @param peerUuid identificador do par
+     * @return true caso o par seja conhecido
+     */
+    boolean contains(UUID peerUuid) {
+        return peers.containsKey(peerUuid);
+    }
+
+    /**
+     * @return número de pares conhecidos
+     */
+    int size() {
+        return peers.size();
+    }
+
+    /**
+     * @return cópia da lista de pares conhecidos
+     */
+    List<PeerOpponent> getPeers() {
+        return new ArrayList<>(peers.values());
+    }
+
+    /**
+     * Registra um par, caso ainda não seja conhecido
+     * @param peerUuid identificador do par
+     * @param factory cria o par a ser registrado
+     * @return par registrado (o já conhecido, se houver)
+     */
+    PeerOpponent register(UUID peerUuid, Function<UUID, PeerOpponent> factory) {
+        return peers.computeIfAbsent(peerUuid, factory);
+    }
+
+    /**
+     * Remove par e seus items do índice do catálogo
+     * @param peerUuid identificador do par
+     * @return par removido, ou null caso desconhecido
+     */
+    PeerOpponent remove(UUID peerUuid) {
+        PeerOpponent removed = peers.remove(peerUuid);
+        if (removed != null)
+            catalogIndex.removeSeller(removed);
+        return removed;
+    }
+
+    /**
+     * Adiciona item à venda por um par
+     * @param sellerUuid identificador do vendedor
+     * @param item item à venda
+     * @return false caso o vendedor não seja conhecido
+     */
+    boolean addOffer(UUID sellerUuid, SaleItem item) {
+        PeerOpponent seller = peers.get(sellerUuid);
+        if (seller == null)
+            return false;
+        synchronized (seller) {
+            //Par pode ter sido removido enquanto a tranca era aguardada
+            if (peers.get(sellerUuid) != seller)
+                return false;
+            catalogIndex.addOffer(seller, item);
+        }
+        return true;
+    }
+
+    /**
+     * Remove item à venda por um par
+     * @param sellerUuid identificador do vendedor
+     * @param item item removido
+     * @return false caso o vendedor não seja conhecido
+     */
+    boolean removeOffer(UUID sellerUuid, SaleItem item) {
+        PeerOpponent seller = peers.get(sellerUuid);
+        if (seller == null)
+            return false;
+        catalogIndex.removeOffer(seller, item);
+        return true;
+    }
+
+    /**
+     * Remove todos os items à venda por um par, mantendo-o no registro
+     * @param sellerUuid identificador do vendedor
+     * @return false caso o vendedor não seja conhecido
+     */
+    boolean removeOffers(UUID sellerUuid) {
+        PeerOpponent seller = peers.get(sellerUuid);
+        if (seller == null)
+            return false;
+        catalogIndex.removeSeller(seller);
+        return true;
+    }
+
+    /**
+     * Remove items à venda por todos os pares, exceto um (quando outro processo assume o índice)
+     * @param keptUuid identificador do par cujos items são mantidos
+     */
+    void removeOffersExcept(UUID keptUuid) {
+        peers.forEach((peerUuid, peer) -> {
+            if (!peerUuid.equals(keptUuid))
+                catalogIndex.removeSeller(peer);
+        });
+    }
+
+    /**
+     * Incrementa reputação de um par (após transação bem sucedida)
+     * @param peer par
+     */
+    void increaseReputation(PeerOpponent peer) {
+        catalogIndex.increaseReputation(peer);
+    }
+
+    /**
+     * Recupera uma página das melhores ofertas de items com uma descrição, da melhor para a pior
+     * @param description descrição procurada
+     * @param excludedSeller identificador de vendedor cujas ofertas são ignoradas (em geral o solicitante)
+     * @param after cursor da página anterior (null para a partir da melhor oferta)
+     * @param limit número máximo de ofertas retornadas
+     * @param eligible vendedores cujas ofertas podem ser retornadas
+     * @return página de pares vendedor/item encontrados, com o cursor da página seguinte
+     */
+    OfferPage getBestOffers(String description, UUID excludedSeller, SearchCursor after, int limit,
+                            Predicate<PeerOpponent> eligible) {
+        return catalogIndex.getBestOffers(description, excludedSeller, after, limit, eligible);
+    }
+
+    /**
+     * Recupera todas as ofertas de um par
+     * @param sellerUuid identificador do vendedor
+     * @return items à venda pelo vendedor (vazio caso desconhecido)
+     */
+    List<SaleItem> getOffers(UUID sellerUuid) {
+        PeerOpponent seller = peers.get(sellerUuid);
+        return seller != null ? catalogIndex.getOffers(seller) : new ArrayList<>();
+    }
+
+    /**
+     * Recupera a melhor oferta de items com uma descrição
+     * @param description descrição procurada
+     * @param excludedSeller identificador de vendedor cujas ofertas são ignoradas (em geral o solicitante)
+     * @return par vendedor/item, ou null caso não exista oferta
+     */
+    Pair<PeerOpponent, SaleItem> getBestOffer(String description, UUID excludedSeller) {
+        return catalogIndex.getBestOffer(description, excludedSeller);
+    }
+
+    /**
+     * Libera o índice do catálogo (ao encerrar o processo)
+     */
+    @Override
+    public void close() throws IOException {
+        catalogIndex.close();
+    }
+}
@@ -1,8 +1,14 @@
 package edu.utfpr.guilhermej.sisdist.av1.model;
 
+import java.math.BigDecimal;
+
 public class SaleItem implements Comparable<SaleItem> {
+    /** Fator de escala dos preços (preços são representados em centavos) */
+    public static final int PRICE_SCALE = 100;
+
     private String description;
-    private float price;
+    /** Preço em centavos */
+    private long price;
 
     public String getDescription() {
         return description;
@@ -13,14 +19,45 @@ public class SaleItem implements Comparable<SaleItem> {
         return this;
     }
 
-    public float getPrice() {
+    /**
+     * @return preço em centavos
+     */
+    public long getPrice() {
         return price;
     }
 
-    public SaleItem setPrice(float price) {
+    /**
+     * @param price preço em centavos
+     * @return este objeto
+     */
+    public SaleItem setPrice(long price) {
         this.price = price;
         return this;
     }
+
+    /**
+     * Formata valor em centavos com duas casas decimais (ex.: 1234 -> "12.34")
+     * @param cents valor em centavos
+     * @return valor formatado
+     */
+    public static String formatPrice(long cents) {
+        return String.format("%s%d.%02d", cents < 0 ? "-" : "", Math.abs(cents / PRICE_SCALE), Math.abs(cents % PRICE_SCALE));
+    }
+
+    /**
+     * Converte valor decimal (ex.: "12.34") para centavos, sem perda de precisão
+     * @param text valor decimal, com no máximo duas casas decimais
+     * @return valor em centavos
+     * @throws NumberFormatException caso o texto não seja um valor válido
+     */
+    public static long parsePrice(String text) {
+        try {
+            return new BigDecimal(text.trim()).movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Expected price with at most two decimal places (found \"" + text + "\")");
+        }
+    }
+
     @Override
     public boolean equals(Object obj) {
         if(obj == null)
@@ -29,7 +66,12 @@ public class SaleItem implements Comparable<SaleItem> {
             return false;
         SaleItem item = SaleItem.class.cast(obj);
         return getDescription().equals(item.getDescription()) &&
-                Float.valueOf(getPrice()).equals(item.getPrice());
+                getPrice() == item.getPrice();
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * getDescription().hashCode() + Long.hashCode(getPrice());
     }
 
     @Override
@@ -39,6 +81,6 @@ public class SaleItem implements Comparable<SaleItem> {
 
     @Override
     public String toString() {
-        return String.format("%s / $%3.02f", getDescription(), getPrice());
+        return String.format("%s / $%s", getDescription(), formatPrice(getPrice()));
     }
 }
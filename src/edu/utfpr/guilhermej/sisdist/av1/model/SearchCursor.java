@@ -0,0 +1,78 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Cursor de uma pesquisa paginada: chave (preço, reputação e identificador do vendedor) da última oferta
+ * retornada, na ordem das melhores ofertas do {@link CatalogIndex}. A página seguinte começa estritamente
+ * após essa chave, de forma que ofertas adicionadas ou removidas entre as páginas não provoquem
+ * repetições nem omissões das ofertas restantes.
+ * É enviado nas mensagens como bytes opacos ({@link #encode()}), devolvidos pelo cliente sem interpretação.
+ */
+class SearchCursor {
+    /** Tamanho do cursor codificado, em bytes */
+    private static final int ENCODED_SIZE = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    /** Preço da última oferta retornada, em centavos */
+    private final long price;
+    /** Reputação do vendedor da última oferta, quando retornada */
+    private final int reputation;
+    /** Identificador do vendedor da última oferta */
+    private final UUID sellerUuid;
+
+    SearchCursor(long price, int reputation, UUID sellerUuid) {
+        this.price = price;
+        this.reputation = reputation;
+        this.sellerUuid = sellerUuid;
+    }
+
+    long getPrice() {
+        return price;
+    }
+
+    int getReputation() {
+        return reputation;
+    }
+
+    UUID getSellerUuid() {
+        return sellerUuid;
+    }
+
+    /**
+     * Verifica se uma oferta de mesmo preço que a do cursor vem depois dela na ordem das melhores ofertas
+     * (maior reputação e, em caso de empate, menor identificador do vendedor primeiro)
+     * @param offerReputation reputação do vendedor da oferta
+     * @param offerSellerUuid identificador do vendedor da oferta
+     * @return true caso a oferta venha depois da oferta do cursor
+     */
+    boolean isBefore(int offerReputation, UUID offerSellerUuid) {
+        return offerReputation < reputation ||
+                (offerReputation == reputation && offerSellerUuid.compareTo(sellerUuid) > 0);
+    }
+
+    /**
+     * @return cursor codificado, para envio em mensagens
+     */
+    byte[] encode() {
+        return ByteBuffer.allocate(ENCODED_SIZE)
+                .putLong(price)
+                .putInt(reputation)
+                .putLong(sellerUuid.getMostSignificantBits())
+                .putLong(sellerUuid.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * @param encoded cursor codificado (vazio para o início dos resultados)
+     * @return cursor, ou null caso vazio ou inválido (pesquisa a partir da melhor oferta)
+     */
+    static SearchCursor decode(byte[] encoded) {
+        if (encoded == null || encoded.length != ENCODED_SIZE)
+            return null;
+        ByteBuffer in = ByteBuffer.wrap(encoded);
+        long price = in.getLong();
+        int reputation = in.getInt();
+        return new SearchCursor(price, reputation, new UUID(in.getLong(), in.getLong()));
+    }
+}
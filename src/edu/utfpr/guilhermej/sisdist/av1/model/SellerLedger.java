@@ -0,0 +1,332 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.ITaskExecutor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Registro local do inventário (items à venda) e do saldo de um {@link Peer}, recuperados ao reiniciar o processo.
+ * Cada alteração é acrescentada a um arquivo de registro e gravada em disco (fsync) em lotes, por janela de tempo.
+ * Uma venda (remoção do item e novo saldo) é um único registro, de forma que uma escrita interrompida não
+ * deixe item e saldo inconsistentes. Ao abrir, e após um número de registros, o estado é compactado em um
+ * snapshot, e um novo arquivo de registro (da geração seguinte) é iniciado.
+ * Registro: tamanho, CRC32, tipo e conteúdo (item e/ou saldo).
+ */
+class SellerLedger implements Closeable {
+    /** Número mágico (e versão) do snapshot */
+    private static final int SNAPSHOT_MAGIC = 0x53444C31;
+    /** Arquivo do snapshot */
+    private static final String SNAPSHOT_FILE = "ledger.snapshot";
+    /** Prefixo e sufixo dos arquivos de registro (nomeados pela geração do snapshot) */
+    private static final String LOG_PREFIX = "ledger-";
+    private static final String LOG_SUFFIX = ".log";
+    /** Número de registros após o qual o estado é compactado */
+    private static final int COMPACTION_RECORDS = 65536;
+    /** Tamanho do buffer de escrita */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Tipos de registro */
+    private static final byte ADD = 1;
+    private static final byte SALE = 2;
+    private static final byte BALANCE = 3;
+
+    /** Diretório dos arquivos */
+    private final Path directory;
+    /** Tempo máximo (ms) que uma alteração aguarda antes de ser gravada em disco */
+    private final long window;
+    /** Items à venda, conforme registrados */
+    private final List<SaleItem> items;
+    /** Registros aguardando escrita */
+    private final ByteBuffer buffer;
+
+    /** Saldo, em centavos, conforme registrado */
+    private long money;
+    /** Geração do snapshot atual */
+    private long generation = 0;
+    /** Arquivo de registro atual */
+    private FileChannel log;
+    /** Registros desde a última compactação */
+    private int records = 0;
+    /** flag para indicar finalização da thread de gravação */
+    private boolean executionEnable = false;
+
+    /**
+     * Recupera o estado armazenado no diretório (ou o estado inicial, caso não haja) e o compacta
+     * @param directory diretório dos arquivos
+     * @param initialMoney saldo, em centavos, caso não haja estado armazenado
+     * @param window tempo máximo (ms) que uma alteração aguarda antes de ser gravada em disco
+     * @throws IOException caso não seja possível ler ou escrever os arquivos
+     */
+    SellerLedger(Path directory, long initialMoney, long window) throws IOException {
+        this.directory = directory;
+        this.window = window;
+        items = new ArrayList<>();
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        money = initialMoney;
+        Files.createDirectories(directory);
+        recover();
+        compact();
+        executionEnable = true;
+    }
+
+    /**
+     * @return cópia dos items à venda recuperados
+     */
+    synchronized List<SaleItem> getItems() {
+        return new ArrayList<>(items);
+    }
+
+    /**
+     * @return saldo recuperado, em centavos
+     */
+    synchronized long getMoney() {
+        return money;
+    }
+
+    /**
+     * Registra item adicionado à venda
+     * @param item item
+     */
+    synchronized void add(SaleItem item) {
+        items.add(item);
+        write(ADD, item, 0);
+    }
+
+    /**
+     * Registra venda de um item, com o novo saldo
+     * @param item item vendido
+     * @param balance saldo após a venda, em centavos
+     */
+    synchronized void sell(SaleItem item, long balance) {
+        items.remove(item);
+        money = balance;
+        write(SALE, item, balance);
+    }
+
+    /**
+     * Registra novo saldo (ex.: após uma compra)
+     * @param balance saldo, em centavos
+     */
+    synchronized void balance(long balance) {
+        money = balance;
+        write(BALANCE, null, balance);
+    }
+
+    /**
+     * Inicia thread que grava os registros em disco em lotes
+     * @param taskExecutor executor da thread
+     */
+    void start(ITaskExecutor taskExecutor) {
+        taskExecutor.start("Seller Ledger", () -> {
+            try {
+                while (awaitFlush()) {
+                    synchronized (this) {
+                        if (records >= COMPACTION_RECORDS)
+                            compact();
+                    }
+                }
+            } catch (InterruptedException | IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Grava registros pendentes e encerra a thread de gravação
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!executionEnable)
+            return;
+        executionEnable = false;
+        notifyAll();
+        flush();
+        log.close();
+    }
+
+    /**
+     * Acrescenta um registro ao buffer de escrita (gravado diretamente caso não caiba nele)
+     */
+    private void write(byte type, SaleItem item, long balance) {
+        if (!executionEnable)
+            return;
+        byte[] description = item != null ? item.getDescription().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = Integer.BYTES + 1 + (item != null ? Integer.BYTES + description.length + Long.BYTES : 0) +
+                (type != ADD ? Long.BYTES : 0);
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + length);
+        record.putInt(length).putInt(0).put(type);
+        if (item != null)
+            record.putInt(description.length).put(description).putLong(item.getPrice());
+        if (type != ADD)
+            record.putLong(balance);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 2 * Integer.BYTES, record.capacity() - 2 * Integer.BYTES);
+        record.putInt(Integer.BYTES, (int) crc.getValue());
+        record.flip();
+        try {
+            if (record.remaining() > buffer.remaining())
+                flushBuffer();
+            if (record.remaining() > buffer.remaining())
+                drain(log, record);
+            else
+                buffer.put(record);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        records++;
+    }
+
+    /**
+     * Escreve o buffer no arquivo de registro, sem gravar em disco
+     */
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        drain(log, buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Escreve o buffer e grava o arquivo de registro em disco (fsync)
+     */
+    private void flush() throws IOException {
+        flushBuffer();
+        log.force(false);
+    }
+
+    /**
+     * Aguarda o fim da janela e grava os registros em disco
+     * @return false caso o registro tenha sido encerrado
+     */
+    private synchronized boolean awaitFlush() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + window;
+        long remaining;
+        while (executionEnable && (remaining = deadline - System.currentTimeMillis()) > 0)
+            wait(remaining);
+        if (!executionEnable)
+            return false;
+        try {
+            if (buffer.position() > 0)
+                flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return true;
+    }
+
+    /**
+     * Grava o estado atual em um snapshot da geração seguinte e inicia seu arquivo de registro,
+     * descartando os anteriores. Uma interrupção antes da substituição do snapshot mantém a geração anterior
+     */
+    private void compact() throws IOException {
+        if (log != null) {
+            flush();
+            log.close();
+        }
+        long next = generation + 1;
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+            out.putInt(SNAPSHOT_MAGIC).putLong(next).putLong(money).putInt(items.size());
+            for (SaleItem item : items) {
+                byte[] description = item.getDescription().getBytes(StandardCharsets.UTF_8);
+                if (out.remaining() < Integer.BYTES + description.length + Long.BYTES) {
+                    out.flip();
+                    drain(channel, out);
+                    out = ByteBuffer.allocate(Math.max(BUFFER_SIZE, Integer.BYTES + description.length + Long.BYTES));
+                }
+                out.putInt(description.length).put(description).putLong(item.getPrice());
+            }
+            out.flip();
+            drain(channel, out);
+            channel.force(true);
+        }
+        //Novo arquivo de registro é criado antes do snapshot que o referencia
+        log = FileChannel.open(logPath(next), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation = next;
+        records = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, LOG_PREFIX + "*" + LOG_SUFFIX)) {
+            for (Path path : stream)
+                if (!path.equals(logPath(next)))
+                    Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Recupera snapshot e arquivo de registro de sua geração. A leitura do registro termina no
+     * primeiro registro incompleto ou corrompido (escrita interrompida)
+     */
+    private void recover() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshot))
+            return;
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+        if (in.getInt() != SNAPSHOT_MAGIC)
+            throw new IOException("Invalid ledger snapshot: " + snapshot);
+        generation = in.getLong();
+        money = in.getLong();
+        for (int i = in.getInt(); i > 0; i--)
+            items.add(readItem(in));
+        Path path = logPath(generation);
+        if (!Files.exists(path))
+            return;
+        in = ByteBuffer.wrap(Files.readAllBytes(path));
+        CRC32 crc = new CRC32();
+        while (in.remaining() >= Integer.BYTES) {
+            int length = in.getInt();
+            if (length < Integer.BYTES + 1 || length > in.remaining())
+                break;
+            int start = in.position();
+            int checksum = in.getInt();
+            crc.reset();
+            crc.update(in.array(), start + Integer.BYTES, length - Integer.BYTES);
+            if (checksum != (int) crc.getValue())
+                break;
+            byte type = in.get();
+            if (type == ADD)
+                items.add(readItem(in));
+            else if (type == SALE) {
+                items.remove(readItem(in));
+                money = in.getLong();
+            }
+            else if (type == BALANCE)
+                money = in.getLong();
+            in.position(start + length);
+        }
+    }
+
+    private Path logPath(long logGeneration) {
+        return directory.resolve(String.format("%s%016x%s", LOG_PREFIX, logGeneration, LOG_SUFFIX));
+    }
+
+    private static SaleItem readItem(ByteBuffer in) {
+        byte[] description = new byte[in.getInt()];
+        in.get(description);
+        return new SaleItem()
+                .setDescription(new String(description, StandardCharsets.UTF_8))
+                .setPrice(in.getLong());
+    }
+
+    /**
+     * Escreve todo o conteúdo restante de um buffer no canal
+     */
+    private static void drain(FileChannel channel, ByteBuffer source) throws IOException {
+        while (source.hasRemaining())
+            channel.write(source);
+    }
+}
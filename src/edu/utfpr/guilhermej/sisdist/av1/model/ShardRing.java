@@ -0,0 +1,141 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Anel de hash consistente que atribui as descrições de items aos indexadores ativos (um fragmento
+ * do catálogo por indexador). Cada indexador ocupa {@link #VIRTUAL_NODES} posições do anel, derivadas
+ * de seu identificador, e cada descrição pertence ao indexador da primeira posição a partir do hash da descrição.
+ * Pares com o mesmo conjunto de indexadores calculam a mesma atribuição, e a entrada ou saída de um
+ * indexador altera apenas a atribuição das descrições das posições adjacentes às suas.
+ * Imutável: alterações no conjunto de indexadores criam um novo anel.
+ */
+class ShardRing {
+    /** Posições de cada indexador no anel */
+    static final int VIRTUAL_NODES = 64;
+
+    /** Indexadores, na ordem recebida */
+    private final List<PeerOpponent> members;
+    /** Posições do anel, em ordem crescente */
+    private final long[] points;
+    /** Indexador de cada posição do anel */
+    private final PeerOpponent[] owners;
+
+    /**
+     * @param members indexadores ativos (vazio quando não há indexador)
+     */
+    ShardRing(List<PeerOpponent> members) {
+        this.members = Collections.unmodifiableList(new ArrayList<>(members));
+        long[] hashes = new long[members.size() * VIRTUAL_NODES];
+        Integer[] order = new Integer[hashes.length];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = hash(members.get(i / VIRTUAL_NODES).getUuid() + "#" + i % VIRTUAL_NODES);
+            order[i] = i;
+        }
+        //Colisões de posição são desempatadas pelo identificador, mantendo a atribuição igual em todos os pares
+        Arrays.sort(order, (o1, o2) -> hashes[o1] != hashes[o2] ? Long.compare(hashes[o1], hashes[o2]) :
+                members.get(o1 / VIRTUAL_NODES).getUuid().compareTo(members.get(o2 / VIRTUAL_NODES).getUuid()));
+        points = new long[hashes.length];
+        owners = new PeerOpponent[hashes.length];
+        for (int i = 0; i < order.length; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = members.get(order[i] / VIRTUAL_NODES);
+        }
+    }
+
+    /**
+     * Recupera o indexador responsável por uma descrição
+     * @param description descrição do item
+     * @return indexador responsável, ou null caso não haja indexador
+     */
+    PeerOpponent indexerFor(String description) {
+        if (members.size() <= 1)
+            return members.isEmpty() ? null : members.get(0);
+        int index = Arrays.binarySearch(points, hash(description));
+        if (index < 0)
+            index = -index - 1;
+        return owners[index < points.length ? index : 0];
+    }
+
+    /**
+     * Separa uma lista de items por indexador responsável
+     * @param items items
+     * @return items de cada indexador, com uma lista (possivelmente vazia) para cada indexador do anel
+     */
+    Map<PeerOpponent, List<SaleItem>> partition(List<SaleItem> items) {
+        Map<PeerOpponent, List<SaleItem>> partitions = new LinkedHashMap<>();
+        for (PeerOpponent member : members)
+            partitions.put(member, new ArrayList<>());
+        for (SaleItem item : items) {
+            PeerOpponent indexer = indexerFor(item.getDescription());
+            if (indexer != null)
+                partitions.get(indexer).add(item);
+        }
+        return partitions;
+    }
+
+    /**
+     * Recupera indexador do anel pelo identificador
+     * @param peerUuid identificador do par
+     * @return indexador, ou null caso o par não seja indexador
+     */
+    PeerOpponent get(UUID peerUuid) {
+        for (PeerOpponent member : members)
+            if (member.getUuid().equals(peerUuid))
+                return member;
+        return null;
+    }
+
+    /**
+     * @param peerUuid identificador do par
+     * @return true caso o par seja um dos indexadores
+     */
+    boolean contains(UUID peerUuid) {
+        return get(peerUuid) != null;
+    }
+
+    /**
+     * Verifica se o anel é formado exatamente pelos pares informados (em qualquer ordem)
+     * @param peers pares
+     * @return true caso os indexadores sejam os mesmos
+     */
+    boolean hasMembers(List<PeerOpponent> peers) {
+        if (peers.size() != members.size())
+            return false;
+        for (PeerOpponent peer : peers)
+            if (!contains(peer.getUuid()))
+                return false;
+        return true;
+    }
+
+    /**
+     * @return indexadores do anel
+     */
+    List<PeerOpponent> getMembers() {
+        return members;
+    }
+
+    /**
+     * Hash de 64 bits de um texto (FNV-1a sobre os caracteres, seguido da finalização do MurmurHash3
+     * para espalhar textos semelhantes pelo anel)
+     */
+    static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
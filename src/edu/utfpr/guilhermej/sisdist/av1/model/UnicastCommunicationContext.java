@@ -1,10 +1,13 @@
 package edu.utfpr.guilhermej.sisdist.av1.model;
 
 import edu.utfpr.guilhermej.sisdist.av1.network.IUnicastSocketConnection;
+import edu.utfpr.guilhermej.sisdist.av1.network.UnicastMessage;
 import edu.utfpr.guilhermej.sisdist.av1.util.Pair;
 
+import javax.crypto.SecretKey;
 import java.security.Key;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -17,8 +20,22 @@ class UnicastCommunicationContext {
     private UUID senderUuid;
     /** Chave para realizar criptografia de mensagens */
     private Key encryptionKey;
+    /** Chave simétrica da sessão, utilizada para decifrar mensagens 'ENCRYPTED' (null em sessões sem criptografia) */
+    private SecretKey sessionKey;
+    /** Descrição pesquisada por este processo (null caso não tenha solicitado pesquisa) */
+    private String searchDescription;
     /** Lista de items/ vendedores resultado de uma pesquisa */
     private List<Pair<PeerOpponent, SaleItem>> peerItemPairList;
+    /** Impressões digitais, por vendedor, das chaves públicas ainda não conhecidas por este processo */
+    private Map<UUID, byte[]> pendingKeyFingerprints;
+    /** Versão do catálogo deste processo conhecida pelo indexador (resposta de 'SYNC', null caso não solicitada) */
+    private Long indexedCatalogVersion;
+    /** Versão base do delta do catálogo recebido da parte oposta ('DELTA') */
+    private long deltaBaseVersion;
+    /** Alterações do delta do catálogo recebido, aplicadas ao fim da requisição (null caso não seja um delta) */
+    private List<UnicastMessage> deltaMutations;
+    /** Código do último erro recebido da parte oposta (0 caso nenhum) */
+    private int errorCode;
 
     UnicastCommunicationContext(IUnicastSocketConnection connection, UUID senderUuid, Key encryptionKey) {
         this.connection = connection;
@@ -54,6 +71,15 @@ class UnicastCommunicationContext {
         return this;
     }
 
+    public SecretKey getSessionKey() {
+        return sessionKey;
+    }
+
+    public UnicastCommunicationContext setSessionKey(SecretKey sessionKey) {
+        this.sessionKey = sessionKey;
+        return this;
+    }
+
     public List<Pair<PeerOpponent, SaleItem>> getPeerItemPairList() {
         return peerItemPairList;
     }
@@ -63,6 +89,60 @@ class UnicastCommunicationContext {
         return this;
     }
 
+    public Map<UUID, byte[]> getPendingKeyFingerprints() {
+        return pendingKeyFingerprints;
+    }
+
+    public UnicastCommunicationContext setPendingKeyFingerprints(Map<UUID, byte[]> pendingKeyFingerprints) {
+        this.pendingKeyFingerprints = pendingKeyFingerprints;
+        return this;
+    }
+
+    public String getSearchDescription() {
+        return searchDescription;
+    }
+
+    public UnicastCommunicationContext setSearchDescription(String searchDescription) {
+        this.searchDescription = searchDescription;
+        return this;
+    }
+
+    public Long getIndexedCatalogVersion() {
+        return indexedCatalogVersion;
+    }
+
+    public UnicastCommunicationContext setIndexedCatalogVersion(Long indexedCatalogVersion) {
+        this.indexedCatalogVersion = indexedCatalogVersion;
+        return this;
+    }
+
+    public long getDeltaBaseVersion() {
+        return deltaBaseVersion;
+    }
+
+    public UnicastCommunicationContext setDeltaBaseVersion(long deltaBaseVersion) {
+        this.deltaBaseVersion = deltaBaseVersion;
+        return this;
+    }
+
+    public List<UnicastMessage> getDeltaMutations() {
+        return deltaMutations;
+    }
+
+    public UnicastCommunicationContext setDeltaMutations(List<UnicastMessage> deltaMutations) {
+        this.deltaMutations = deltaMutations;
+        return this;
+    }
+
+    public int getErrorCode() {
+        return errorCode;
+    }
+
+    public UnicastCommunicationContext setErrorCode(int errorCode) {
+        this.errorCode = errorCode;
+        return this;
+    }
+
     /** Retorna ID da conexão, se houver uma*/
     public int getConnectId(){
         return connection != null ? connection.getId() : -1;
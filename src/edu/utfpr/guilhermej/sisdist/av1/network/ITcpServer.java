@@ -0,0 +1,28 @@
+package edu.utfpr.guilhermej.sisdist.av1.network;
+
+import edu.utfpr.guilhermej.sisdist.av1.listener.ITcpSynchroConnectionEventListener;
+
+/**
+ * Interface para servidores TCP do processo.
+ * Observadores inscritos são notificados em uma thread do servidor sempre que uma conexão
+ * possuir uma nova requisição para ser atendida, e devem processá-la sincronamente (apenas uma
+ * requisição por notificação). Conexões persistentes geram uma notificação por requisição.
+ */
+public interface ITcpServer {
+    /**
+     * Inscreve observador de requisições de clientes
+     * @param connectionListener observador para ser inscrito
+     */
+    void addTcpConnectionListener(ITcpSynchroConnectionEventListener connectionListener);
+
+    /**
+     * Cancela inscrição de observador de requisições de clientes
+     * @param connectionListener observador para cancelar inscrição
+     */
+    void removeTcpConnectionListener(ITcpSynchroConnectionEventListener connectionListener);
+
+    /**
+     * Disconecta servidor e todas conexões com clientes ainda ativas
+     */
+    void disconnect();
+}
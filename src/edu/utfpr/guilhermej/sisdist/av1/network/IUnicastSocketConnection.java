@@ -6,7 +6,8 @@ import java.net.SocketException;
 /**
  * Interface para conexões unicast, tanto do lado do servidor quanto do lado do cliente
  * Permite que {@link edu.utfpr.guilhermej.sisdist.av1.model.Peer} processe menssagens
- * do lado do servidor e do cliente da mesma forma
+ * do lado do servidor e do cliente da mesma forma.
+ * Mensagens são trafegadas no formato binário de {@link UnicastMessageCodec}
  */
 public interface IUnicastSocketConnection {
     /**
@@ -21,7 +22,7 @@ public interface IUnicastSocketConnection {
      * @param message mensagem a ser enviada
      * @throws IOException caso conexão não esteja disponível
      */
-    void sendMessage(String message) throws IOException;
+    void sendMessage(UnicastMessage message) throws IOException;
 
     /**
      * Recupera última mensagem enviada, ou bloqueia caso nenhuma haver chego.
@@ -29,7 +30,7 @@ public interface IUnicastSocketConnection {
      * @return mensagem recuperada
      * @throws IOException caso conexão esteja indisponível
      */
-    String getMessage() throws IOException;
+    UnicastMessage getMessage() throws IOException;
 
     /**
      * Retorna de soquete esta disponível para conexão
@@ -0,0 +1,28 @@
+package edu.utfpr.guilhermej.sisdist.av1.network;
+
+import java.io.IOException;
+
+/**
+ * Conexão física sobre a qual são multiplexados vários fluxos ({@link UnicastStream}).
+ * Cada mensagem enviada carrega o identificador de seu fluxo no quadro.
+ */
+interface IUnicastStreamTransport {
+    /**
+     * Envia mensagem (já associada a seu fluxo) a parte oposta
+     * @param message mensagem a ser enviada
+     * @throws IOException caso conexão não esteja disponível
+     */
+    void sendMessage(UnicastMessage message) throws IOException;
+
+    /**
+     * Retorna se conexão esta disponível
+     * @return estado da conexão
+     */
+    boolean isConnected();
+
+    /**
+     * Retorna identificador da conexão
+     * @return identificador (em geral valor da porta do lado do cliente)
+     */
+    int getId();
+}
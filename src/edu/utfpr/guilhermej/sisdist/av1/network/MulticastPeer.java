@@ -1,5 +1,6 @@
 package edu.utfpr.guilhermej.sisdist.av1.network;
 
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.ITaskExecutor;
 import edu.utfpr.guilhermej.sisdist.av1.listener.INetMessageEventListener;
 
 import java.io.*;
@@ -28,6 +29,8 @@ public class MulticastPeer {
     private MulticastSocket multicastSocket = null;
     /** endereço do grupo multicast */
     private InetAddress group = null;
+    /** executor das threads internas */
+    private final ITaskExecutor taskExecutor;
     /** observadores de mensagens */
     private List<INetMessageEventListener> messageListeners = new ArrayList<>();
 
@@ -36,8 +39,10 @@ public class MulticastPeer {
     /**
      * Construtor padrão
      * @param ip endereço IP do grupo multicast
+     * @param taskExecutor executor das threads internas
      */
-    public MulticastPeer(String ip){
+    public MulticastPeer(String ip, ITaskExecutor taskExecutor){
+        this.taskExecutor = taskExecutor;
         //Inicialização de filas de comunicação
         sendMessageQueue = new LinkedBlockingQueue<>();
         receiveMessageQueue = new LinkedBlockingQueue<>();
@@ -111,7 +116,7 @@ public class MulticastPeer {
      * Inicializa thread de recepção de mensagens
      */
     private void initReceiveMessageThread() {
-        Thread receiveMessageThread = new Thread(() -> {
+        taskExecutor.start("Receive Message Thread", () -> {
             byte[] buffer = new byte[BUFFER_SIZE];
             String message;
             try {
@@ -147,15 +152,13 @@ public class MulticastPeer {
                 if (multicastSocket != null) multicastSocket.close();
             }
         });
-        receiveMessageThread.setName("Receive Message Thread");
-        receiveMessageThread.start();
     }
 
     /**
      * Inicializa thread para envi de mensagens
      */
     private void initSendMessageThread() {
-        Thread sendMessageThread = new Thread(() -> {
+        taskExecutor.start("Send Message Thread", () -> {
             String msg;
             byte[] m;
             try {
@@ -180,15 +183,13 @@ public class MulticastPeer {
                 if (multicastSocket != null) multicastSocket.close();
             }
         });
-        sendMessageThread.setName("Send Message Thread");
-        sendMessageThread.start();
     }
 
     /**
      * Inicializa thread para propagar mensagens para observadores inscritos
      */
     private void initPropagateMessageThread(){
-        Thread propagateMessage = new Thread(()->{
+        taskExecutor.start("Propagate Message Thread", ()->{
             while(executionEnable){
                 synchronized (receiveMessageQueue) {
                     if (receiveMessageQueue.isEmpty()) {
@@ -206,8 +207,6 @@ public class MulticastPeer {
                 Thread.yield();
             }
         });
-        propagateMessage.setName("Propagate Message Thread");
-        propagateMessage.start();
     }
 
     /**
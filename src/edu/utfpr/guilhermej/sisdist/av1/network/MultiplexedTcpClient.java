@@ -0,0 +1,157 @@
+package edu.utfpr.guilhermej.sisdist.av1.network;
+
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.ITaskExecutor;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conexão TCP do lado do cliente que transporta várias requisições simultâneas.
+ * Cada requisição utiliza um fluxo próprio ({@link #openStream()}); uma thread leitora
+ * encaminha cada resposta recebida ao fluxo indicado em seu quadro, de forma que requisições
+ * não precisam aguardar o término umas das outras.
+ */
+public class MultiplexedTcpClient implements IUnicastStreamTransport {
+    private final Socket clientSide;
+
+    private final OutputStream out;
+    private final InputStream in;
+    /** Codificador das mensagens enviadas (protegido por {@link #out}) */
+    private final UnicastMessageCodec encoder;
+    /** Decodificador das mensagens recebidas (acessado apenas pela thread leitora) */
+    private final UnicastMessageCodec decoder;
+    /** Encaminha respostas aos fluxos */
+    private final UnicastStreamDemultiplexer demultiplexer;
+    /** Próximo identificador de fluxo */
+    private final AtomicInteger nextStreamId;
+
+    /** Instante da última atividade na conexão */
+    private volatile long lastActivity;
+    /** flag para indicar finalização da thread leitora */
+    private volatile boolean executionEnable = false;
+
+    /**
+     * Abre conexão e inicia thread leitora
+     * @param serverAddress endereço do servidor
+     * @param serverPort porta do servidor
+     * @param taskExecutor executor da thread leitora
+     * @throws IOException caso não seja possível conectar
+     */
+    public MultiplexedTcpClient(InetAddress serverAddress, int serverPort, ITaskExecutor taskExecutor) throws IOException {
+        clientSide = new Socket(serverAddress, serverPort);
+
+        clientSide.setTcpNoDelay(true);
+        out = new BufferedOutputStream(clientSide.getOutputStream());
+        in = new BufferedInputStream(clientSide.getInputStream());
+        encoder = new UnicastMessageCodec();
+        decoder = new UnicastMessageCodec();
+        demultiplexer = new UnicastStreamDemultiplexer(this);
+        nextStreamId = new AtomicInteger(1);
+        lastActivity = System.currentTimeMillis();
+        executionEnable = true;
+
+        initReaderThread(taskExecutor);
+    }
+
+    /**
+     * Abre novo fluxo para uma requisição
+     * @return fluxo aberto
+     * @throws IOException caso conexão esteja encerrada
+     */
+    public UnicastStream openStream() throws IOException {
+        if (!isConnected())
+            throw new IOException("TCP Connection closed.");
+        //Identificadores são positivos e circulares (0 é utilizado por conexões não multiplexadas)
+        int streamId = nextStreamId.getAndUpdate(id -> id == Integer.MAX_VALUE ? 1 : id + 1);
+        return demultiplexer.open(streamId);
+    }
+
+    /**
+     * Envia mensagem de um fluxo ao servidor
+     * @param message mensagem associada ao fluxo
+     * @throws IOException caso conexão não esteja disponível
+     */
+    @Override
+    public void sendMessage(UnicastMessage message) throws IOException {
+        if (!isConnected())
+            throw new IOException("TCP Connection closed.");
+        try {
+            synchronized (out) {
+                encoder.write(message, out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            disconnect();
+            throw e;
+        }
+        lastActivity = System.currentTimeMillis();
+    }
+
+    /**
+     * Retorna de soquete esta disponível para conexão
+     * @return estado da conexão
+     */
+    @Override
+    public boolean isConnected() {
+        return executionEnable && clientSide.isConnected() && !clientSide.isClosed();
+    }
+
+    /**
+     * Retorna identificador da conexão
+     * @return porta local da conexão
+     */
+    @Override
+    public int getId() {
+        return clientSide.getLocalPort();
+    }
+
+    /**
+     * Retorna se não há requisições em andamento na conexão
+     * @return true caso conexão esteja ociosa
+     */
+    public boolean isIdle() {
+        return demultiplexer.isEmpty();
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * Encerra a conexão e todos os fluxos abertos
+     */
+    public void disconnect() {
+        executionEnable = false;
+        try {
+            if (!clientSide.isClosed())
+                clientSide.close();
+        } catch (IOException e) {
+            System.out.println("TCP Multiplexed Client IO: " + e.getMessage());
+        }
+        demultiplexer.closeAll();
+    }
+
+    /**
+     * Inicia thread que lê as respostas e as encaminha aos fluxos
+     * @param taskExecutor executor da thread leitora
+     */
+    private void initReaderThread(ITaskExecutor taskExecutor) {
+        taskExecutor.start("TCP Multiplexed Client Reader", () -> {
+            try {
+                while (executionEnable) {
+                    UnicastMessage message = decoder.read(in);
+                    lastActivity = System.currentTimeMillis();
+                    //Respostas de fluxos já encerrados (ex.: após timeout) são descartadas
+                    demultiplexer.deliver(message);
+                }
+            } catch (IOException e) {
+                if (executionEnable)
+                    System.out.println("TCP Multiplexed Client IO: " + e.getMessage());
+            } finally {
+                disconnect();
+            }
+        });
+    }
+}
@@ -0,0 +1,206 @@
+package edu.utfpr.guilhermej.sisdist.av1.network;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Conexão do lado do servidor não bloqueante ({@link NioTcpServer}).
+ * A thread do seletor lê os bytes recebidos e os separa em quadros ({@link UnicastMessageCodec}),
+ * decodificando suas mensagens e encaminhando-as ao fluxo ({@link UnicastStream}) da requisição
+ * correspondente; cada novo fluxo é atendido por uma tarefa do executor do servidor. Mensagens enviadas
+ * são enfileiradas e escritas pelo seletor, preservando a ordem.
+ */
+public class NioServerSideClient implements IUnicastStreamTransport {
+    /** Tamanho inicial do buffer de leitura */
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final NioTcpServer parent;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+
+    /** Bytes recebidos ainda não separados em mensagens (acessado apenas pelo seletor) */
+    private ByteBuffer readBuffer;
+    /** Encaminha mensagens recebidas aos fluxos */
+    private final UnicastStreamDemultiplexer demultiplexer;
+    /** Mensagens codificadas aguardando escrita no canal */
+    private final Queue<ByteBuffer> outbound;
+    /** Decodificador de mensagens recebidas (acessado apenas pelo seletor) */
+    private final UnicastMessageCodec decoder;
+    /** Codificador de mensagens enviadas */
+    private final UnicastMessageCodec encoder;
+    /** Instante da última atividade na conexão */
+    private volatile long lastActivity;
+    /** Encerramento solicitado, será realizado após esvaziar fila de envio */
+    private volatile boolean closing = false;
+    /** Canal encerrado */
+    private volatile boolean closed = false;
+
+    NioServerSideClient(NioTcpServer parent, SocketChannel channel, SelectionKey key) {
+        this.parent = parent;
+        this.channel = channel;
+        this.key = key;
+        readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        demultiplexer = new UnicastStreamDemultiplexer(this);
+        outbound = new ConcurrentLinkedQueue<>();
+        decoder = new UnicastMessageCodec();
+        encoder = new UnicastMessageCodec();
+        lastActivity = System.currentTimeMillis();
+    }
+
+    /**
+     * Envia mensagem a parte oposta (a escrita é realizada pela thread do seletor)
+     * @param message mensagem a ser enviada, associada a seu fluxo
+     * @throws IOException caso conexão não esteja disponível
+     */
+    @Override
+    public void sendMessage(UnicastMessage message) throws IOException {
+        if (!isConnected())
+            throw new IOException("TCP Connection closed.");
+        synchronized (encoder) {
+            outbound.add(ByteBuffer.wrap(encoder.encodeFrame(message)));
+        }
+        lastActivity = System.currentTimeMillis();
+        parent.requestUpdate(this);
+    }
+
+    /**
+     * Retorna de soquete esta disponível para conexão
+     * @return estado da conexão
+     */
+    @Override
+    public boolean isConnected() {
+        return !closing && !closed && channel.isOpen();
+    }
+
+    /**
+     * Retorna identificador da conexão
+     * @return identificador (em geral valor da porta do lado do cliente)
+     */
+    @Override
+    public int getId() {
+        return channel.socket().getPort();
+    }
+
+    /**
+     * Solicita encerramento da conexão, realizado após envio das mensagens pendentes
+     */
+    public void disconnect() {
+        closing = true;
+        parent.requestUpdate(this);
+    }
+
+    //<editor-fold desc="Métodos utilizados pelo servidor">
+    UnicastStreamDemultiplexer getDemultiplexer() {
+        return demultiplexer;
+    }
+
+    long getLastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * Lê bytes disponíveis no canal, separa-os em mensagens e as encaminha aos fluxos,
+     * despachando os novos para atendimento (thread do seletor)
+     */
+    void onReadable() {
+        try {
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                //Cliente encerrou a conexão: encerra fluxos em andamento e a conexão após envios pendentes
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                demultiplexer.closeAll();
+                disconnect();
+                return;
+            }
+            lastActivity = System.currentTimeMillis();
+            readBuffer.flip();
+            //Cada quadro é precedido de um varint com seu tamanho
+            int frameSize = 0;
+            while (readBuffer.hasRemaining()) {
+                int start = readBuffer.arrayOffset() + readBuffer.position();
+                int length = UnicastMessageCodec.peekVarint(readBuffer.array(), start, start + readBuffer.remaining());
+                if (length < 0)
+                    break;
+                if (length == 0 || length > UnicastMessageCodec.MAX_FRAME_SIZE)
+                    throw new StreamCorruptedException("Invalid frame length: " + length);
+                int header = UnicastMessageCodec.varintSize(length);
+                frameSize = header + length;
+                if (readBuffer.remaining() < frameSize)
+                    break;
+                UnicastStream stream = demultiplexer.accept(decoder.decodeFrame(readBuffer.array(), start + header, length));
+                if (stream != null)
+                    parent.dispatch(this, stream);
+                readBuffer.position(readBuffer.position() + frameSize);
+                frameSize = 0;
+            }
+            readBuffer.compact();
+            //Aumenta buffer caso um quadro não caiba nele
+            if (!readBuffer.hasRemaining() || frameSize > readBuffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(readBuffer.capacity() * 2, frameSize));
+                readBuffer.flip();
+                larger.put(readBuffer);
+                readBuffer = larger;
+            }
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Escreve mensagens pendentes no canal (thread do seletor)
+     */
+    void onWritable() {
+        try {
+            ByteBuffer head;
+            while ((head = outbound.peek()) != null) {
+                channel.write(head);
+                if (head.hasRemaining())
+                    break;
+                outbound.poll();
+            }
+        } catch (IOException e) {
+            close();
+            return;
+        }
+        onUpdate();
+    }
+
+    /**
+     * Atualiza interesse de escrita conforme fila de envio, e encerra a conexão se
+     * solicitado e não houver mais nada para enviar (thread do seletor)
+     */
+    void onUpdate() {
+        if (closed)
+            return;
+        if (closing && outbound.isEmpty()) {
+            close();
+            return;
+        }
+        if (key.isValid()) {
+            int ops = key.interestOps();
+            key.interestOps(outbound.isEmpty() ? ops & ~SelectionKey.OP_WRITE : ops | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Encerra imediatamente o canal (thread do seletor)
+     */
+    void close() {
+        if (closed)
+            return;
+        closed = true;
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("NIO Server Side Client Connection IO: " + e.getMessage());
+        }
+        //Desbloqueia sessões que estejam aguardando mensagem
+        demultiplexer.closeAll();
+    }
+    //</editor-fold>
+}
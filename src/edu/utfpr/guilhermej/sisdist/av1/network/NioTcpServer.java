@@ -0,0 +1,205 @@
+package edu.utfpr.guilhermej.sisdist.av1.network;
+
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.ITaskExecutor;
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.TaskExecutionMode;
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.TaskExecutors;
+import edu.utfpr.guilhermej.sisdist.av1.listener.ITcpSynchroConnectionEventListener;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Servidor TCP não bloqueante. Uma única thread (seletor) aceita conexões, lê e escreve em todos
+ * os soquetes; cada requisição é atendida em uma tarefa do executor de tarefas do par, que bloqueia
+ * aguardando as mensagens seguintes da sessão (com threads virtuais, sem ocupar uma thread de plataforma),
+ * de forma que sessões lentas não impeçam o atendimento das demais. Caso o executor do par seja um conjunto
+ * limitado ({@link TaskExecutionMode#POOLED}), as sessões utilizam um executor próprio não limitado,
+ * pois sessões bloqueadas esgotariam o conjunto e parariam o servidor sob carga.
+ * Cada conexão pode transportar várias requisições simultâneas, identificadas por fluxo ({@link UnicastStream}).
+ * Conexões ociosas não ocupam nenhuma thread, permitindo milhares de sessões simultâneas.
+ */
+public class NioTcpServer implements ITcpServer {
+    /** Tempo máximo de espera do seletor, para verificar conexões ociosas e finalização */
+    private static final int SELECT_TIMEOUT = 1000;
+
+    /** Canal do servidor */
+    private final ServerSocketChannel serverChannel;
+    /** Seletor que multiplexa todos os canais */
+    private final Selector selector;
+    /** Executor da thread do seletor */
+    private final ITaskExecutor taskExecutor;
+    /** Executor das sessões (o do par, ou um próprio não limitado caso o do par seja limitado) */
+    private final ITaskExecutor sessionExecutor;
+    /** Conexões com escrita pendente ou encerramento solicitado, para o seletor atualizar */
+    private final Queue<NioServerSideClient> pendingUpdates;
+
+    /** Lista de observadores de requisições */
+    private final ArrayList<ITcpSynchroConnectionEventListener> connectionListeners;
+    /** Tempo máximo (ms) que uma conexão pode permanecer ociosa */
+    private final long idleTimeout;
+    /** flag para indicar finalização de threads */
+    private boolean executionEnable = false;
+
+    /**
+     * Construtor padrão de servidor TCP não bloqueante
+     * @param port porta para servidor permanecer escutando
+     * @param idleTimeout tempo máximo (ms) que uma conexão pode permanecer ociosa antes de ser encerrada
+     * @param taskExecutor executor para a thread do seletor e para as sessões
+     * @throws IOException caso não seja possível estabelecer um servidor
+     */
+    public NioTcpServer(int port, long idleTimeout, ITaskExecutor taskExecutor) throws IOException {
+        this.idleTimeout = idleTimeout;
+        this.taskExecutor = taskExecutor;
+        sessionExecutor = taskExecutor.getMode() == TaskExecutionMode.POOLED ?
+                TaskExecutors.create(TaskExecutionMode.VIRTUAL) : taskExecutor;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        pendingUpdates = new ConcurrentLinkedQueue<>();
+        connectionListeners = new ArrayList<>();
+        executionEnable = true;
+
+        initSelectorThread();
+    }
+
+    @Override
+    public void addTcpConnectionListener(ITcpSynchroConnectionEventListener connectionListener) {
+        connectionListeners.add(connectionListener);
+    }
+
+    @Override
+    public void removeTcpConnectionListener(ITcpSynchroConnectionEventListener connectionListener) {
+        connectionListeners.remove(connectionListener);
+    }
+
+    @Override
+    public void disconnect() {
+        executionEnable = false;
+        selector.wakeup();
+        if (sessionExecutor != taskExecutor)
+            sessionExecutor.shutdown();
+    }
+
+    /**
+     * Solicita ao seletor que atualize o interesse de escrita (ou encerre) a conexão
+     * @param connection conexão com dados pendentes para envio
+     */
+    void requestUpdate(NioServerSideClient connection) {
+        pendingUpdates.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Agenda o atendimento de um novo fluxo (requisição) em uma tarefa do executor das sessões.
+     * Fluxos distintos de uma mesma conexão são atendidos em paralelo
+     * @param connection conexão do fluxo
+     * @param stream fluxo com mensagens recebidas
+     */
+    void dispatch(NioServerSideClient connection, UnicastStream stream) {
+        sessionExecutor.execute("NIO TCP Server Session", () -> {
+            do {
+                if (connectionListeners.isEmpty()) {
+                    stream.disconnect();
+                    connection.disconnect();
+                    return;
+                }
+                //Cada evento corresponde ao atendimento de uma requisição
+                connectionListeners.forEach(listener -> listener.onTcpSecureConectionEventListener(stream));
+                //Caso uma nova requisição tenha chego no mesmo fluxo durante o atendimento, continua nesta thread
+            } while (connection.getDemultiplexer().finishSession(stream));
+        });
+    }
+
+    /**
+     * Inicia thread do seletor
+     */
+    private void initSelectorThread() {
+        taskExecutor.start("NIO TCP Server", () -> {
+            try {
+                while (executionEnable) {
+                    selector.select(SELECT_TIMEOUT);
+                    //Atualiza conexões com escrita pendente ou encerramento solicitado
+                    NioServerSideClient pending;
+                    while ((pending = pendingUpdates.poll()) != null)
+                        pending.onUpdate();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid())
+                            continue;
+                        if (key.isAcceptable())
+                            accept();
+                        else {
+                            NioServerSideClient connection = (NioServerSideClient) key.attachment();
+                            if (key.isReadable())
+                                connection.onReadable();
+                            if (key.isValid() && key.isWritable())
+                                connection.onWritable();
+                        }
+                    }
+                    closeIdleConnections();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                closeAll();
+            }
+        });
+    }
+
+    /**
+     * Aceita nova conexão e a registra no seletor
+     */
+    private void accept() {
+        try {
+            SocketChannel channel = serverChannel.accept();
+            if (channel == null)
+                return;
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new NioServerSideClient(this, channel, key));
+        } catch (IOException e) {
+            System.out.println("NIO TCP Server IO: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Encerra conexões sem requisições em andamento que permaneceram ociosas por mais de {@link #idleTimeout}
+     */
+    private void closeIdleConnections() {
+        long now = System.currentTimeMillis();
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof NioServerSideClient) {
+                NioServerSideClient connection = (NioServerSideClient) key.attachment();
+                if (now - connection.getLastActivity() > idleTimeout && connection.getDemultiplexer().isEmpty())
+                    connection.close();
+            }
+        }
+    }
+
+    /**
+     * Encerra todas as conexões (e assim as sessões em andamento) e o seletor
+     */
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof NioServerSideClient)
+                ((NioServerSideClient) key.attachment()).close();
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package edu.utfpr.guilhermej.sisdist.av1.network;
+
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.ITaskExecutor;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Pool de conexões TCP persistentes, indexadas pelo identificador do par da parte oposta.
+ * Cada par possui uma única conexão multiplexada ({@link MultiplexedTcpClient}), e cada requisição
+ * recebe um fluxo próprio nela: requisições simultâneas ao mesmo par trafegam intercaladas
+ * na mesma conexão, sem novo handshake e sem aguardar umas às outras.
+ */
+public class TcpConnectionPool {
+    /** Conexões abertas, por identificador do par */
+    private final Map<UUID, MultiplexedTcpClient> connections;
+    /** Timeout de leitura configurado nos fluxos */
+    private final int timeout;
+    /** Tempo máximo (ms) que uma conexão pode permanecer ociosa antes de ser descartada */
+    private final long keepAlive;
+    /** Tempo de ociosidade (ms) a partir do qual a conexão é verificada antes de ser reutilizada */
+    private final long healthCheckInterval;
+    /** Verificação de saúde de conexões ociosas, realizada em um fluxo próprio (deve retornar true se a conexão ainda for utilizável) */
+    private final Predicate<IUnicastSocketConnection> healthCheck;
+    /** Executor das threads leitoras das conexões */
+    private final ITaskExecutor taskExecutor;
+
+    /** flag para indicar que pool foi encerrado */
+    private boolean executionEnable;
+
+    /**
+     * Construtor padrão
+     * @param timeout timeout de leitura (ms) dos fluxos
+     * @param keepAlive tempo máximo (ms) de ociosidade de uma conexão no pool
+     * @param healthCheckInterval tempo de ociosidade (ms) a partir do qual a conexão é verificada antes do uso
+     * @param healthCheck verificação de saúde da conexão
+     * @param taskExecutor executor das threads leitoras das conexões
+     */
+    public TcpConnectionPool(int timeout, long keepAlive, long healthCheckInterval,
+                             Predicate<IUnicastSocketConnection> healthCheck, ITaskExecutor taskExecutor) {
+        this.timeout = timeout;
+        this.keepAlive = keepAlive;
+        this.healthCheckInterval = healthCheckInterval;
+        this.healthCheck = healthCheck;
+        this.taskExecutor = taskExecutor;
+        connections = new HashMap<>();
+        executionEnable = true;
+    }
+
+    /**
+     * Abre um fluxo para uma nova requisição na conexão com o par, abrindo a conexão caso não exista
+     * ou não seja mais utilizável.
+     * @param peerUuid identificador do par
+     * @param address endereço do par
+     * @param port porta TCP do servidor do par
+     * @return fluxo pronto para uma nova requisição
+     * @throws IOException caso não seja possível abrir nova conexão
+     */
+    public IUnicastSocketConnection acquire(UUID peerUuid, InetAddress address, int port) throws IOException {
+        MultiplexedTcpClient connection;
+        synchronized (connections) {
+            if (!executionEnable)
+                throw new IOException("TCP Connection Pool closed.");
+            connection = connections.get(peerUuid);
+        }
+        if (connection != null && !isUsable(connection)) {
+            discard(peerUuid, connection);
+            connection = null;
+        }
+        if (connection == null)
+            connection = connect(peerUuid, address, port);
+        UnicastStream stream = connection.openStream();
+        stream.setTimeout(timeout);
+        return stream;
+    }
+
+    /**
+     * Encerra o fluxo de uma requisição, tenha ela terminado com sucesso ou não. Respostas tardias a ele
+     * são descartadas; a conexão permanece aberta e só é descartada, no próximo {@link #acquire},
+     * se ela própria estiver indisponível
+     * @param connection fluxo da requisição (ignorado se null)
+     */
+    public void release(IUnicastSocketConnection connection) {
+        if (connection != null)
+            connection.disconnect();
+    }
+
+    /**
+     * Fecha a conexão com um par (por exemplo, quando ele deixa de ser o indexador)
+     * @param peerUuid identificador do par
+     */
+    public void evict(UUID peerUuid) {
+        MultiplexedTcpClient connection;
+        synchronized (connections) {
+            connection = connections.remove(peerUuid);
+        }
+        if (connection != null)
+            connection.disconnect();
+    }
+
+    /**
+     * Encerra o pool, fechando todas as conexões
+     */
+    public void disconnect() {
+        List<MultiplexedTcpClient> all;
+        synchronized (connections) {
+            executionEnable = false;
+            all = new ArrayList<>(connections.values());
+            connections.clear();
+        }
+        all.forEach(MultiplexedTcpClient::disconnect);
+    }
+
+    /**
+     * Verifica se uma conexão existente pode receber nova requisição. Conexões ociosas há muito tempo
+     * são descartadas, e as ociosas há algum tempo são verificadas antes do uso
+     * @param connection conexão existente
+     * @return true caso a conexão possa ser utilizada
+     */
+    private boolean isUsable(MultiplexedTcpClient connection) {
+        if (!connection.isConnected())
+            return false;
+        if (!connection.isIdle())
+            return true;
+        long idle = System.currentTimeMillis() - connection.getLastActivity();
+        if (idle >= keepAlive)
+            return false;
+        if (idle < healthCheckInterval)
+            return true;
+        UnicastStream stream = null;
+        try {
+            stream = connection.openStream();
+            stream.setTimeout(timeout);
+            return healthCheck.test(stream);
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (stream != null)
+                stream.disconnect();
+        }
+    }
+
+    /**
+     * Abre nova conexão com o par e a registra. Caso outra thread tenha registrado uma conexão
+     * ao mesmo tempo, a dela é utilizada
+     * @param peerUuid identificador do par
+     * @param address endereço do par
+     * @param port porta TCP do servidor do par
+     * @return conexão registrada
+     * @throws IOException caso não seja possível abrir a conexão
+     */
+    private MultiplexedTcpClient connect(UUID peerUuid, InetAddress address, int port) throws IOException {
+        MultiplexedTcpClient created = new MultiplexedTcpClient(address, port, taskExecutor);
+        MultiplexedTcpClient registered;
+        synchronized (connections) {
+            registered = connections.get(peerUuid);
+            if (executionEnable && (registered == null || !registered.isConnected())) {
+                connections.put(peerUuid, created);
+                registered = created;
+            }
+        }
+        if (registered != created) {
+            created.disconnect();
+            if (registered == null)
+                throw new IOException("TCP Connection Pool closed.");
+        }
+        return registered;
+    }
+
+    /**
+     * Remove e fecha uma conexão indisponível, se ainda registrada
+     * @param peerUuid identificador do par
+     * @param connection conexão indisponível
+     */
+    private void discard(UUID peerUuid, MultiplexedTcpClient connection) {
+        synchronized (connections) {
+            if (connections.get(peerUuid) == connection)
+                connections.remove(peerUuid);
+        }
+        connection.disconnect();
+    }
+}
@@ -1,21 +1,27 @@
 package edu.utfpr.guilhermej.sisdist.av1.network;
 
+import edu.utfpr.guilhermej.sisdist.av1.concurrent.ITaskExecutor;
 import edu.utfpr.guilhermej.sisdist.av1.listener.ITcpSynchroConnectionEventListener;
 
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 
 /**
- * Classe para inicializar um servidor TCP
+ * Classe para inicializar um servidor TCP bloqueante, com uma thread leitora por conexão.
+ * Cada fluxo ({@link UnicastStream}) de uma conexão é atendido em uma tarefa própria,
+ * permitindo requisições simultâneas na mesma conexão
  */
-public class TcpServer {
+public class TcpServer implements ITcpServer {
     /** Timeout para inicializar uma conexão */
     private final int TIMEOUT = 3000;
 
     /** Socket do servidor */
     ServerSocket listenSocket;
+    /** Executor das threads do servidor e das conexões */
+    private final ITaskExecutor taskExecutor;
 
     /** Lista de observadores de novas conexões */
     private ArrayList<ITcpSynchroConnectionEventListener> connectionListeners;
@@ -23,16 +29,22 @@ public class TcpServer {
     private ArrayList<TcpSynchroServerSideClient> clientConnections;
     /** porta em que servidor permanecerá escutando */
     private int port;
+    /** Tempo máximo (ms) que uma conexão pode permanecer ociosa */
+    private final int idleTimeout;
     /** flag para indicar finalização de threads */
     private boolean executionEnable = false;
 
     /**
      * Construtor padrão de servidor TCP
      * @param port porta para servidor permanecer escutando
+     * @param idleTimeout tempo máximo (ms) que uma conexão pode permanecer ociosa antes de ser encerrada
+     * @param taskExecutor executor das threads do servidor e das conexões
      * @throws IOException caso não seja possível estabelecer um servidor
      */
-    public TcpServer(int port) throws IOException {
+    public TcpServer(int port, int idleTimeout, ITaskExecutor taskExecutor) throws IOException {
         this.port = port;
+        this.idleTimeout = idleTimeout;
+        this.taskExecutor = taskExecutor;
         listenSocket = new ServerSocket(port);
         clientConnections = new ArrayList<>();
         connectionListeners = new ArrayList<>();
@@ -44,9 +56,12 @@ public class TcpServer {
     /**
      * Disconecta servidor e todas conexões com clientes ainda ativas
      */
+    @Override
     public void disconnect(){
         executionEnable = false;
-        clientConnections.forEach(TcpSynchroServerSideClient::disconnect);
+        synchronized (clientConnections) {
+            new ArrayList<>(clientConnections).forEach(TcpSynchroServerSideClient::disconnect);
+        }
         try{
             if(listenSocket != null && !listenSocket.isClosed())
                 listenSocket.close();
@@ -59,6 +74,7 @@ public class TcpServer {
      * Inscreve observador de novas conexões com servidor
      * @param connectionListener observador de novas conexões para ser inscrito
      */
+    @Override
     public void addTcpConnectionListener(ITcpSynchroConnectionEventListener connectionListener){
         connectionListeners.add(connectionListener);
     }
@@ -67,6 +83,7 @@ public class TcpServer {
      * Cancela inscrição de observador de novas conexões com servidor
      * @param connectionListener observador de novas conexões para cancelar inscrição
      */
+    @Override
     public void removeTcpConnectionListener(ITcpSynchroConnectionEventListener connectionListener){
         connectionListeners.remove(connectionListener);
     }
@@ -75,7 +92,7 @@ public class TcpServer {
      * Inicia thread do servidor tcp
      */
     private void initTcpServerThread() {
-        Thread tcpServerThread = new Thread(()->{
+        taskExecutor.start("TCP Server", ()->{
             try {
                 Socket clientSocket;
                 while (executionEnable) {
@@ -88,9 +105,12 @@ public class TcpServer {
                         continue;
                     }
                     //Se houver uma conexão, cria nova conexão do lado do servidor
-                    TcpSynchroServerSideClient connection = new TcpSynchroServerSideClient(this, clientSocket, clientConnections::remove);
-                    //Lança novo evento de conexão para observadores
-                    tcpClientConnectionEvent(connection);
+                    TcpSynchroServerSideClient connection = new TcpSynchroServerSideClient(this, clientSocket, this::unregisterClientConnection);
+                    synchronized (clientConnections) {
+                        clientConnections.add(connection);
+                    }
+                    //Inicia thread que atende as requisições da nova conexão
+                    initClientConnectionThread(connection);
                 }
                 if(listenSocket != null && !listenSocket.isClosed())
                     listenSocket.close();
@@ -98,15 +118,68 @@ public class TcpServer {
                 e.printStackTrace();
             }
         });
-        tcpServerThread.setName("TCP Server");
-        tcpServerThread.start();
     }
 
     /**
-     * Lança evento de nova conexão realizada
-     * @param connection conexão realizada
+     * Inicia thread que lê as mensagens de uma conexão e as encaminha aos fluxos,
+     * iniciando o atendimento de cada novo fluxo, até que a conexão seja encerrada
+     * @param connection conexão com cliente
+     */
+    private void initClientConnectionThread(TcpSynchroServerSideClient connection) {
+        taskExecutor.start("TCP Server Side Client Connection", ()->{
+            UnicastStreamDemultiplexer demultiplexer = new UnicastStreamDemultiplexer(connection);
+            try {
+                connection.setTimeout(idleTimeout);
+                while (executionEnable && connection.isConnected() && !connectionListeners.isEmpty()) {
+                    UnicastMessage message;
+                    try {
+                        message = connection.getMessage();
+                    } catch (SocketTimeoutException e) {
+                        //Encerra conexão ociosa, a menos que haja requisições em andamento
+                        if (demultiplexer.isEmpty())
+                            break;
+                        continue;
+                    }
+                    UnicastStream stream = demultiplexer.accept(message);
+                    if (stream != null)
+                        initStreamThread(stream, demultiplexer);
+                }
+            } catch (IOException e) {
+                //Conexão encerrada pelo cliente
+            }
+            demultiplexer.closeAll();
+            connection.disconnect();
+        });
+    }
+
+    /**
+     * Inicia tarefa que atende um fluxo, lançando um evento a cada requisição nele recebida
+     * @param stream fluxo com mensagens recebidas
+     * @param demultiplexer demultiplexador da conexão do fluxo
+     */
+    private void initStreamThread(UnicastStream stream, UnicastStreamDemultiplexer demultiplexer) {
+        taskExecutor.execute("TCP Server Side Client Stream", ()->{
+            do {
+                tcpClientConnectionEvent(stream);
+            } while (demultiplexer.finishSession(stream));
+        });
+    }
+
+    /**
+     * Remove conexão encerrada da lista de conexões ativas
+     * @param connection conexão encerrada
+     */
+    private void unregisterClientConnection(IUnicastSocketConnection connection) {
+        synchronized (clientConnections) {
+            clientConnections.remove(connection);
+        }
+    }
+
+    /**
+     * Lança evento de requisição disponível em um fluxo
+     * @param connection fluxo da requisição
      */
-    private void tcpClientConnectionEvent(TcpSynchroServerSideClient connection){
+    private void tcpClientConnectionEvent(IUnicastSocketConnection connection){
         connectionListeners.forEach(listener -> listener.onTcpSecureConectionEventListener(connection));
     }
 }
@@ -8,14 +8,18 @@ import java.net.SocketException;
 public class TcpSynchroClient implements IUnicastSocketConnection {
     private Socket clientSide;
 
-    private final DataOutputStream out;
-    private final DataInputStream in;
+    private final OutputStream out;
+    private final InputStream in;
+    /** Codificador das mensagens (buffers reutilizados) */
+    private final UnicastMessageCodec codec;
 
     public TcpSynchroClient(InetAddress serverAddress, int serverPort) throws IOException {
         clientSide = new Socket(serverAddress, serverPort);
 
-        out = new DataOutputStream(clientSide.getOutputStream());
-        in = new DataInputStream(clientSide.getInputStream());
+        clientSide.setTcpNoDelay(true);
+        out = new BufferedOutputStream(clientSide.getOutputStream());
+        in = new BufferedInputStream(clientSide.getInputStream());
+        codec = new UnicastMessageCodec();
     }
 
     /**
@@ -34,10 +38,13 @@ public class TcpSynchroClient implements IUnicastSocketConnection {
      * @throws IOException caso conexão não esteja disponível
      */
     @Override
-    public void sendMessage(String message) throws IOException {
+    public void sendMessage(UnicastMessage message) throws IOException {
         if(!isConnected())
             throw new IOException("TCP Connection closed.");
-        out.writeUTF(message);
+        synchronized (out) {
+            codec.write(message, out);
+            out.flush();
+        }
     }
 
     /**
@@ -47,10 +54,10 @@ public class TcpSynchroClient implements IUnicastSocketConnection {
      * @throws IOException caso conexão esteja indisponível
      */
     @Override
-    public String getMessage() throws IOException {
+    public UnicastMessage getMessage() throws IOException {
         if(!isConnected())
             throw new IOException("TCP Connection closed.");
-        String message = in.readUTF();
+        UnicastMessage message = codec.read(in);
         System.out.println(String.format("Unicast   [%05d]: %s", getId(), message));
         return message;
     }
@@ -5,12 +5,14 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.util.function.Consumer;
 
-public class TcpSynchroServerSideClient implements IUnicastSocketConnection {
+public class TcpSynchroServerSideClient implements IUnicastSocketConnection, IUnicastStreamTransport {
     private TcpServer parent;
     private Socket clientSocket;
     private Consumer<IUnicastSocketConnection> unregisterFromParent;
-    private DataOutputStream out;
-    private DataInputStream in;
+    private OutputStream out;
+    private InputStream in;
+    /** Codificador das mensagens (buffers reutilizados) */
+    private final UnicastMessageCodec codec;
 
     private boolean executionEnable = false;
 
@@ -20,10 +22,12 @@ public class TcpSynchroServerSideClient implements IUnicastSocketConnection {
         this.unregisterFromParent = unregisterFromParent;
 
         executionEnable = true;
+        codec = new UnicastMessageCodec();
 
         try {
-            out = new DataOutputStream(clientSocket.getOutputStream());
-            in = new DataInputStream(clientSocket.getInputStream());
+            clientSocket.setTcpNoDelay(true);
+            out = new BufferedOutputStream(clientSocket.getOutputStream());
+            in = new BufferedInputStream(clientSocket.getInputStream());
         } catch (IOException e) {
             System.out.println("TCP Conection IO: "+e.getMessage());
         }
@@ -41,12 +45,11 @@ public class TcpSynchroServerSideClient implements IUnicastSocketConnection {
      * @throws IOException caso conexão esteja indisponível
      */
     @Override
-    public String getMessage() throws IOException {
+    public UnicastMessage getMessage() throws IOException {
         if(!isConnected())
             throw new IOException("TCP Connection closed.");
-        String message = in.readUTF();
-        System.out.println(String.format("Unicast   [%05d]: %s", getId(), message));
-        return message;
+        //Registro das mensagens é realizado pelo fluxo que as consome
+        return codec.read(in);
     }
 
     /**
@@ -55,10 +58,13 @@ public class TcpSynchroServerSideClient implements IUnicastSocketConnection {
      * @throws IOException caso conexão não esteja disponível
      */
     @Override
-    public void sendMessage(String message) throws IOException{
+    public void sendMessage(UnicastMessage message) throws IOException{
         if(!isConnected())
             throw new IOException("TCP Connection closed.");
-        out.writeUTF(message);
+        synchronized (out) {
+            codec.write(message, out);
+            out.flush();
+        }
     }
 
     /**
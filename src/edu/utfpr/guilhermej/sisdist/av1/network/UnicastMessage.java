@@ -0,0 +1,287 @@
+package edu.utfpr.guilhermej.sisdist.av1.network;
+
+import edu.utfpr.guilhermej.sisdist.av1.model.SaleItem;
+
+import java.util.UUID;
+
+/**
+ * Mensagem do protocolo unicast. Cada tipo utiliza apenas parte dos campos:
+ *   ADD/#ITEM_DESC/#ITEM_PRICE
+ *   BUY/#ITEM_DESC/#ITEM_PRICE
+ *   CLEAR
+ *   DELTA/#BASE_CATALOG_VERSION
+ *   ENCRYPTED/#ENCRYPTED_MESSAGE
+ *   ERROR/#ERROR_CODE/#ERROR_MESSAGE
+ *   FINISH
+ *   FOUND/#ITEM_DESC/#ITEM_PRICE/#SELLER_ID/#SELLER_KEY_FINGERPRINT
+ *   FOUND/#NEXT_CURSOR (fim da lista; cursor vazio caso não haja próxima página)
+ *   INTRODUCE/#SENDER_ID
+ *   KEY/#PUBLIC_KEY
+ *   KEY_REQUEST/#PEER_ID
+ *   OK
+ *   PEER_KEY/#PEER_ID/#PEER_PUBLIC_KEY
+ *   REMOVE/#ITEM_DESC/#ITEM_PRICE
+ *   REPLICA/#SELLER_ID/#CATALOG_MESSAGE
+ *   SEARCH/#ITEM_DESC/#LIMIT/#CURSOR
+ *   SESSION/#WRAPPED_SESSION_KEY
+ *   SYNC/#CATALOG_VERSION
+ *   VERSION/#CATALOG_VERSION
+ * Preços são representados em ponto fixo (centavos, ver {@link SaleItem#PRICE_SCALE}). A codificação binária
+ * é realizada por {@link UnicastMessageCodec}.
+ * Cada mensagem pertence a um fluxo ({@link #getStreamId()}), permitindo que várias requisições
+ * sejam intercaladas em uma mesma conexão ({@link UnicastStream}).
+ */
+public class UnicastMessage {
+    /** Cursor vazio: início dos resultados da pesquisa ('SEARCH') ou fim da lista ('FOUND') */
+    public static final byte[] NO_CURSOR = new byte[0];
+
+    /**
+     * Tipos de mensagem e seus respectivos códigos de operação
+     */
+    public enum Type {
+        ADD(1), BUY(2), ENCRYPTED(3), ERROR(4), FINISH(5), FOUND(6), FOUND_END(7),
+        INTRODUCE(8), KEY(9), OK(10), REMOVE(11), SEARCH(12), SESSION(13),
+        KEY_REQUEST(14), PEER_KEY(15), CLEAR(16), VERSION(17), SYNC(18), REPLICA(19),
+        DELTA(20);
+
+        private static final Type[] BY_OPCODE = new Type[21];
+        static {
+            for (Type type : values())
+                BY_OPCODE[type.opcode] = type;
+        }
+
+        private final byte opcode;
+
+        Type(int opcode) {
+            this.opcode = (byte) opcode;
+        }
+
+        public byte getOpcode() {
+            return opcode;
+        }
+
+        /**
+         * Recupera tipo pelo código de operação
+         * @param opcode código de operação
+         * @return tipo correspondente, ou null caso desconhecido
+         */
+        public static Type fromOpcode(int opcode) {
+            return opcode >= 0 && opcode < BY_OPCODE.length ? BY_OPCODE[opcode] : null;
+        }
+    }
+
+    private final Type type;
+    /** Descrição do item (ou mensagem de erro) */
+    private final String description;
+    /** Preço do item em ponto fixo (ou versão do catálogo) */
+    private final long price;
+    /** Identificador (remetente ou vendedor) */
+    private final UUID uuid;
+    /** Bytes de chave (pública ou de sessão cifrada), de impressão digital de chave, de mensagem criptografada ou replicada, ou cursor da pesquisa */
+    private final byte[] data;
+    /** Código de erro (ou número máximo de resultados da pesquisa) */
+    private final int code;
+    /** Identificador do fluxo (requisição) a que a mensagem pertence na conexão */
+    private final int streamId;
+
+    UnicastMessage(Type type, String description, long price, UUID uuid, byte[] data, int code) {
+        this(type, description, price, uuid, data, code, 0);
+    }
+
+    UnicastMessage(Type type, String description, long price, UUID uuid, byte[] data, int code, int streamId) {
+        this.type = type;
+        this.description = description;
+        this.price = price;
+        this.uuid = uuid;
+        this.data = data;
+        this.code = code;
+        this.streamId = streamId;
+    }
+
+    //<editor-fold desc="Construtores de mensagens">
+    public static UnicastMessage add(String description, long price) {
+        return new UnicastMessage(Type.ADD, description, price, null, null, 0);
+    }
+
+    public static UnicastMessage buy(String description, long price) {
+        return new UnicastMessage(Type.BUY, description, price, null, null, 0);
+    }
+
+    public static UnicastMessage clear() {
+        return new UnicastMessage(Type.CLEAR, null, 0, null, null, 0);
+    }
+
+    public static UnicastMessage delta(long baseCatalogVersion) {
+        return new UnicastMessage(Type.DELTA, null, baseCatalogVersion, null, null, 0);
+    }
+
+    public static UnicastMessage encrypted(byte[] encrypted) {
+        return new UnicastMessage(Type.ENCRYPTED, null, 0, null, encrypted, 0);
+    }
+
+    public static UnicastMessage error(int code, String errorMessage) {
+        return new UnicastMessage(Type.ERROR, errorMessage, 0, null, null, code);
+    }
+
+    public static UnicastMessage finish() {
+        return new UnicastMessage(Type.FINISH, null, 0, null, null, 0);
+    }
+
+    public static UnicastMessage found(String description, long price, UUID seller, byte[] sellerKeyFingerprint) {
+        return new UnicastMessage(Type.FOUND, description, price, seller, sellerKeyFingerprint, 0);
+    }
+
+    public static UnicastMessage foundEnd(byte[] nextCursor) {
+        return new UnicastMessage(Type.FOUND_END, null, 0, null, nextCursor, 0);
+    }
+
+    public static UnicastMessage introduce(UUID sender) {
+        return new UnicastMessage(Type.INTRODUCE, null, 0, sender, null, 0);
+    }
+
+    public static UnicastMessage key(byte[] publicKey) {
+        return new UnicastMessage(Type.KEY, null, 0, null, publicKey, 0);
+    }
+
+    public static UnicastMessage keyRequest(UUID peer) {
+        return new UnicastMessage(Type.KEY_REQUEST, null, 0, peer, null, 0);
+    }
+
+    public static UnicastMessage ok() {
+        return new UnicastMessage(Type.OK, null, 0, null, null, 0);
+    }
+
+    public static UnicastMessage peerKey(UUID peer, byte[] publicKey) {
+        return new UnicastMessage(Type.PEER_KEY, null, 0, peer, publicKey, 0);
+    }
+
+    public static UnicastMessage remove(String description, long price) {
+        return new UnicastMessage(Type.REMOVE, description, price, null, null, 0);
+    }
+
+    public static UnicastMessage replica(UUID seller, byte[] catalogMessage) {
+        return new UnicastMessage(Type.REPLICA, null, 0, seller, catalogMessage, 0);
+    }
+
+    public static UnicastMessage search(String description, int limit, byte[] cursor) {
+        return new UnicastMessage(Type.SEARCH, description, 0, null, cursor, limit);
+    }
+
+    public static UnicastMessage session(byte[] wrappedKey) {
+        return new UnicastMessage(Type.SESSION, null, 0, null, wrappedKey, 0);
+    }
+
+    public static UnicastMessage sync(long catalogVersion) {
+        return new UnicastMessage(Type.SYNC, null, catalogVersion, null, null, 0);
+    }
+
+    public static UnicastMessage version(long catalogVersion) {
+        return new UnicastMessage(Type.VERSION, null, catalogVersion, null, null, 0);
+    }
+    //</editor-fold>
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getErrorMessage() {
+        return description;
+    }
+
+    public long getCatalogVersion() {
+        return price;
+    }
+
+    /**
+     * @return cursor da pesquisa, opaco: posição dos resultados após a qual são retornadas as ofertas ('SEARCH'),
+     *  ou da próxima página ('FOUND' de fim de lista); vazio ({@link #NO_CURSOR}) para o início ou fim dos resultados
+     */
+    public byte[] getCursor() {
+        return data;
+    }
+
+    /**
+     * @return número máximo de ofertas retornadas pela pesquisa ('SEARCH')
+     */
+    public int getLimit() {
+        return code;
+    }
+
+    public int getStreamId() {
+        return streamId;
+    }
+
+    /**
+     * Retorna cópia desta mensagem associada a outro fluxo
+     * @param streamId identificador do fluxo
+     * @return mensagem no fluxo indicado
+     */
+    public UnicastMessage withStreamId(int streamId) {
+        if (streamId == this.streamId)
+            return this;
+        return new UnicastMessage(type, description, price, uuid, data, code, streamId);
+    }
+
+    /**
+     * Retorna representação textual da mensagem (formato do protocolo textual antigo), para registro
+     * @return representação da mensagem
+     */
+    @Override
+    public String toString() {
+        switch (type) {
+            case ADD:
+            case BUY:
+            case REMOVE:
+                return String.format("%s/%s/%s", type, description, SaleItem.formatPrice(price));
+            case ENCRYPTED:
+                return String.format("ENCRYPTED/[%d bytes]", data.length);
+            case ERROR:
+                return String.format("ERROR/%d/%s", code, description);
+            case FOUND:
+                return String.format("FOUND/%s/%s/%s/[%d bytes fingerprint]", description,
+                        SaleItem.formatPrice(price), uuid, data.length);
+            case FOUND_END:
+                return String.format("FOUND/[%d bytes cursor]", data.length);
+            case INTRODUCE:
+                return String.format("INTRODUCE/%s", uuid);
+            case KEY:
+                return String.format("KEY/[%d bytes]", data.length);
+            case KEY_REQUEST:
+                return String.format("KEY_REQUEST/%s", uuid);
+            case PEER_KEY:
+                return String.format("PEER_KEY/%s/[%d bytes]", uuid, data.length);
+            case REPLICA:
+                return String.format("REPLICA/%s/[%d bytes]", uuid, data.length);
+            case SEARCH:
+                return String.format("SEARCH/%s/%d/[%d bytes cursor]", description, code, data.length);
+            case SESSION:
+                return String.format("SESSION/[%d bytes]", data.length);
+            case DELTA:
+            case SYNC:
+            case VERSION:
+                return String.format("%s/%d", type, price);
+            default:
+                return type.name();
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package edu.utfpr.guilhermej.sisdist.av1.network;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Codificador binário das mensagens unicast.
+ * Cada quadro é formado por um varint com o tamanho do restante do quadro, um varint com o
+ * identificador do fluxo (requisição) a que a mensagem pertence, e o corpo:
+ * um byte com o código de operação e os campos da mensagem, onde
+ *   textos são varint (tamanho) + bytes UTF-8,
+ *   preços são um long (ponto fixo),
+ *   identificadores são dois longs,
+ *   chaves (públicas ou de sessão) e dados criptografados são varint (tamanho) + bytes,
+ *   códigos de erro são varint.
+ * Os buffers internos são reutilizados entre mensagens, portanto cada instância deve ser
+ * utilizada por apenas uma thread de escrita e uma de leitura de cada vez.
+ */
+public class UnicastMessageCodec {
+    /** Tamanho máximo do corpo de um quadro */
+    public static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+    /** Tamanho inicial dos buffers */
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    /** Buffer de escrita */
+    private byte[] out;
+    /** Posição de escrita em {@link #out} */
+    private int outSize;
+    /** Buffer de leitura */
+    private byte[] in;
+    /** Posição de leitura em {@link #in} */
+    private int inPosition;
+    /** Limite de leitura em {@link #in} */
+    private int inLimit;
+
+    public UnicastMessageCodec() {
+        out = new byte[INITIAL_BUFFER_SIZE];
+        in = new byte[INITIAL_BUFFER_SIZE];
+    }
+
+    //<editor-fold desc="Codificação">
+    /**
+     * Escreve quadro com mensagem no fluxo de saída (sem esvaziá-lo)
+     * @param message mensagem a ser escrita
+     * @param stream fluxo de saída
+     * @throws IOException caso a escrita falhe
+     */
+    public void write(UnicastMessage message, OutputStream stream) throws IOException {
+        encodeBody(message, true);
+        int length = outSize;
+        //Varint do tamanho é escrito após o corpo no buffer, e enviado antes dele
+        putVarint(length);
+        stream.write(out, length, outSize - length);
+        stream.write(out, 0, length);
+    }
+
+    /**
+     * Codifica mensagem em um quadro completo (tamanho + corpo)
+     * @param message mensagem
+     * @return bytes do quadro
+     */
+    public byte[] encodeFrame(UnicastMessage message) {
+        encodeBody(message, true);
+        int length = outSize;
+        putVarint(length);
+        byte[] frame = new byte[outSize];
+        System.arraycopy(out, length, frame, 0, outSize - length);
+        System.arraycopy(out, 0, frame, outSize - length, length);
+        return frame;
+    }
+
+    /**
+     * Codifica apenas o corpo de uma mensagem, sem fluxo (utilizado para cifrar mensagens)
+     * @param message mensagem
+     * @return bytes do corpo
+     */
+    public byte[] encode(UnicastMessage message) {
+        encodeBody(message, false);
+        return Arrays.copyOf(out, outSize);
+    }
+
+    /**
+     * Codifica corpo da mensagem no inicio de {@link #out}
+     * @param message mensagem
+     * @param withStream se o identificador do fluxo deve preceder o corpo
+     */
+    private void encodeBody(UnicastMessage message, boolean withStream) {
+        outSize = 0;
+        if (withStream)
+            putVarint(message.getStreamId());
+        ensureOut(1);
+        out[outSize++] = message.getType().getOpcode();
+        switch (message.getType()) {
+            case ADD:
+            case BUY:
+            case REMOVE:
+                putString(message.getDescription());
+                putLong(message.getPrice());
+                break;
+            case ENCRYPTED:
+            case KEY:
+            case SESSION:
+                putBytes(message.getData());
+                break;
+            case ERROR:
+                putVarint(message.getCode());
+                putString(message.getErrorMessage());
+                break;
+            case FOUND:
+                putString(message.getDescription());
+                putLong(message.getPrice());
+                putUuid(message.getUuid());
+                putBytes(message.getData());
+                break;
+            case INTRODUCE:
+            case KEY_REQUEST:
+                putUuid(message.getUuid());
+                break;
+            case PEER_KEY:
+            case REPLICA:
+                putUuid(message.getUuid());
+                putBytes(message.getData());
+                break;
+            case DELTA:
+            case SYNC:
+            case VERSION:
+                putLong(message.getCatalogVersion());
+                break;
+            case FOUND_END:
+                putBytes(message.getCursor());
+                break;
+            case SEARCH:
+                putString(message.getDescription());
+                putVarint(message.getLimit());
+                putBytes(message.getCursor());
+                break;
+            default:
+        }
+    }
+
+    private void ensureOut(int extra) {
+        if (outSize + extra > out.length)
+            out = Arrays.copyOf(out, Math.max(out.length * 2, outSize + extra));
+    }
+
+    private void putVarint(int value) {
+        ensureOut(5);
+        while ((value & ~0x7F) != 0) {
+            out[outSize++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[outSize++] = (byte) value;
+    }
+
+    private void putLong(long value) {
+        ensureOut(8);
+        for (int shift = 56; shift >= 0; shift -= 8)
+            out[outSize++] = (byte) (value >>> shift);
+    }
+
+    private void putUuid(UUID uuid) {
+        putLong(uuid.getMostSignificantBits());
+        putLong(uuid.getLeastSignificantBits());
+    }
+
+    private void putBytes(byte[] bytes) {
+        putVarint(bytes.length);
+        ensureOut(bytes.length);
+        System.arraycopy(bytes, 0, out, outSize, bytes.length);
+        outSize += bytes.length;
+    }
+
+    /**
+     * Escreve texto em UTF-8 diretamente no buffer, sem criar arrays intermediários
+     * @param value texto
+     */
+    private void putString(String value) {
+        int length = value.length();
+        int utf8Length = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) utf8Length += 1;
+            else if (c < 0x800) utf8Length += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                utf8Length += 4;
+                i++;
+            }
+            else if (Character.isSurrogate(c)) utf8Length += 1;
+            else utf8Length += 3;
+        }
+        putVarint(utf8Length);
+        ensureOut(utf8Length);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80)
+                out[outSize++] = (byte) c;
+            else if (c < 0x800) {
+                out[outSize++] = (byte) (0xC0 | (c >> 6));
+                out[outSize++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out[outSize++] = (byte) (0xF0 | (codePoint >> 18));
+                out[outSize++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[outSize++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[outSize++] = (byte) (0x80 | (codePoint & 0x3F));
+            }
+            else {
+                //Substitutos isolados são codificados como '?', assim como em String.getBytes
+                if (Character.isSurrogate(c))
+                    c = '?';
+                if (c < 0x80)
+                    out[outSize++] = (byte) c;
+                else {
+                    out[outSize++] = (byte) (0xE0 | (c >> 12));
+                    out[outSize++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    out[outSize++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Decodificação">
+    /**
+     * Lê (bloqueando) um quadro do fluxo de entrada e decodifica sua mensagem
+     * @param stream fluxo de entrada
+     * @return mensagem lida
+     * @throws IOException caso a leitura falhe ou o quadro seja inválido
+     */
+    public UnicastMessage read(InputStream stream) throws IOException {
+        int length = readVarint(stream);
+        if (length <= 0 || length > MAX_FRAME_SIZE)
+            throw new StreamCorruptedException("Invalid frame length: " + length);
+        if (in.length < length)
+            in = new byte[Math.max(in.length * 2, length)];
+        int read = 0;
+        while (read < length) {
+            int count = stream.read(in, read, length - read);
+            if (count < 0)
+                throw new EOFException();
+            read += count;
+        }
+        return decodeFrame(in, 0, length);
+    }
+
+    /**
+     * Decodifica um quadro (identificador do fluxo e corpo), sem o tamanho
+     * @param buffer bytes do quadro
+     * @param offset inicio do quadro, após o tamanho
+     * @param length tamanho do quadro
+     * @return mensagem decodificada, associada a seu fluxo
+     * @throws IOException caso o quadro seja inválido
+     */
+    public UnicastMessage decodeFrame(byte[] buffer, int offset, int length) throws IOException {
+        int streamId = peekVarint(buffer, offset, offset + length);
+        if (streamId < 0)
+            throw new StreamCorruptedException("Truncated message");
+        int header = varintSize(streamId);
+        return decode(buffer, offset + header, length - header).withStreamId(streamId);
+    }
+
+    /**
+     * Decodifica o corpo de uma mensagem
+     * @param buffer bytes do corpo
+     * @param offset inicio do corpo
+     * @param length tamanho do corpo
+     * @return mensagem decodificada
+     * @throws IOException caso o corpo seja inválido
+     */
+    public UnicastMessage decode(byte[] buffer, int offset, int length) throws IOException {
+        byte[] previous = in;
+        in = buffer;
+        inPosition = offset;
+        inLimit = offset + length;
+        try {
+            UnicastMessage.Type type = UnicastMessage.Type.fromOpcode(getByte());
+            if (type == null)
+                throw new StreamCorruptedException("Unknown opcode");
+            switch (type) {
+                case ADD:
+                case BUY:
+                case REMOVE: {
+                    String description = getString();
+                    return new UnicastMessage(type, description, getLong(), null, null, 0);
+                }
+                case ENCRYPTED:
+                case KEY:
+                case SESSION:
+                    return new UnicastMessage(type, null, 0, null, getBytes(), 0);
+                case ERROR: {
+                    int code = getVarint();
+                    return new UnicastMessage(type, getString(), 0, null, null, code);
+                }
+                case FOUND: {
+                    String description = getString();
+                    long price = getLong();
+                    UUID seller = getUuid();
+                    return new UnicastMessage(type, description, price, seller, getBytes(), 0);
+                }
+                case INTRODUCE:
+                case KEY_REQUEST:
+                    return new UnicastMessage(type, null, 0, getUuid(), null, 0);
+                case PEER_KEY:
+                case REPLICA: {
+                    UUID peer = getUuid();
+                    return new UnicastMessage(type, null, 0, peer, getBytes(), 0);
+                }
+                case DELTA:
+                case SYNC:
+                case VERSION:
+                    return new UnicastMessage(type, null, getLong(), null, null, 0);
+                case FOUND_END:
+                    return new UnicastMessage(type, null, 0, null, getBytes(), 0);
+                case SEARCH: {
+                    String description = getString();
+                    int limit = getVarint();
+                    return new UnicastMessage(type, description, 0, null, getBytes(), limit);
+                }
+                default:
+                    return new UnicastMessage(type, null, 0, null, null, 0);
+            }
+        } finally {
+            if (buffer != previous)
+                in = previous;
+        }
+    }
+
+    /**
+     * Tenta ler um varint de um buffer sem consumir dados (utilizado para separar quadros recebidos)
+     * @param buffer bytes disponíveis
+     * @param offset inicio do varint
+     * @param limit fim dos bytes disponíveis
+     * @return valor lido, ou -1 caso o varint ainda esteja incompleto
+     * @throws IOException caso o varint seja malformado
+     */
+    public static int peekVarint(byte[] buffer, int offset, int limit) throws IOException {
+        int value = 0;
+        for (int i = 0; i < 5; i++) {
+            if (offset + i >= limit)
+                return -1;
+            byte b = buffer[offset + i];
+            value |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                if (value < 0)
+                    break;
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    /**
+     * Retorna quantidade de bytes utilizada para codificar um varint
+     * @param value valor (não negativo)
+     * @return tamanho do varint em bytes
+     */
+    public static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int readVarint(InputStream stream) throws IOException {
+        int value = 0;
+        for (int i = 0; i < 5; i++) {
+            int b = stream.read();
+            if (b < 0)
+                throw new EOFException();
+            value |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    private void require(int count) throws IOException {
+        if (count < 0 || inPosition + count > inLimit)
+            throw new StreamCorruptedException("Truncated message");
+    }
+
+    private int getByte() throws IOException {
+        require(1);
+        return in[inPosition++] & 0xFF;
+    }
+
+    private int getVarint() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 5; i++) {
+            int b = getByte();
+            value |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    private long getLong() throws IOException {
+        require(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++)
+            value = (value << 8) | (in[inPosition++] & 0xFF);
+        return value;
+    }
+
+    private UUID getUuid() throws IOException {
+        long most = getLong();
+        return new UUID(most, getLong());
+    }
+
+    private byte[] getBytes() throws IOException {
+        int length = getVarint();
+        require(length);
+        byte[] bytes = Arrays.copyOfRange(in, inPosition, inPosition + length);
+        inPosition += length;
+        return bytes;
+    }
+
+    private String getString() throws IOException {
+        int length = getVarint();
+        require(length);
+        String value = new String(in, inPosition, length, StandardCharsets.UTF_8);
+        inPosition += length;
+        return value;
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,144 @@
+package edu.utfpr.guilhermej.sisdist.av1.network;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fluxo de uma requisição sobre uma conexão multiplexada. Para quem o utiliza, comporta-se como
+ * uma conexão síncrona exclusiva, mas várias requisições podem estar em andamento ao mesmo tempo
+ * na mesma conexão, cada uma recebendo apenas as respostas com seu identificador de fluxo.
+ * Encerrar o fluxo não encerra a conexão.
+ */
+public class UnicastStream implements IUnicastSocketConnection {
+    /** Marcador de fim de fluxo (fluxo ou conexão encerrados) */
+    private static final UnicastMessage END_OF_STREAM = UnicastMessage.finish();
+
+    /** Identificador do fluxo na conexão */
+    private final int streamId;
+    /** Conexão sobre a qual o fluxo trafega */
+    private final IUnicastStreamTransport transport;
+    /** Demultiplexador que encaminha as mensagens recebidas ao fluxo */
+    private final UnicastStreamDemultiplexer demultiplexer;
+    /** Mensagens recebidas aguardando processamento */
+    private final BlockingQueue<UnicastMessage> inbound;
+
+    /** Timeout de leitura em milisegundos (0 para esperar indefinidamente) */
+    private volatile int timeout = 0;
+    /** Fluxo encerrado */
+    private volatile boolean closed = false;
+
+    UnicastStream(int streamId, IUnicastStreamTransport transport, UnicastStreamDemultiplexer demultiplexer) {
+        this.streamId = streamId;
+        this.transport = transport;
+        this.demultiplexer = demultiplexer;
+        inbound = new LinkedBlockingQueue<>();
+    }
+
+    /**
+     * Configura tempo de timeout de leitura do fluxo
+     * @param timeout tempo de timeout em milisegundos
+     * @throws SocketException caso fluxo não esteja disponível
+     */
+    @Override
+    public void setTimeout(int timeout) throws SocketException {
+        if (closed)
+            throw new SocketException("TCP Stream closed.");
+        this.timeout = timeout;
+    }
+
+    /**
+     * Envia mensagem a parte oposta, associada a este fluxo
+     * @param message mensagem a ser enviada
+     * @throws IOException caso fluxo ou conexão não estejam disponíveis
+     */
+    @Override
+    public void sendMessage(UnicastMessage message) throws IOException {
+        if (!isConnected())
+            throw new IOException("TCP Stream closed.");
+        transport.sendMessage(message.withStreamId(streamId));
+    }
+
+    /**
+     * Recupera próxima mensagem recebida neste fluxo, ou bloqueia caso nenhuma haver chego.
+     * Desbloqueia após timeout, se configurado
+     * @return mensagem recuperada
+     * @throws IOException caso fluxo esteja indisponível
+     */
+    @Override
+    public UnicastMessage getMessage() throws IOException {
+        if (closed && inbound.isEmpty())
+            throw new EOFException();
+        UnicastMessage message;
+        try {
+            message = timeout > 0 ? inbound.poll(timeout, TimeUnit.MILLISECONDS) : inbound.take();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException(e.getMessage());
+        }
+        if (message == null)
+            throw new SocketTimeoutException("Read timed out");
+        if (message == END_OF_STREAM) {
+            //Mantém marcador para próximas leituras
+            inbound.add(END_OF_STREAM);
+            throw new EOFException();
+        }
+        System.out.println(String.format("Unicast   [%05d:%d]: %s", getId(), streamId, message));
+        return message;
+    }
+
+    /**
+     * Retorna se fluxo e conexão estão disponíveis
+     * @return estado do fluxo
+     */
+    @Override
+    public boolean isConnected() {
+        return !closed && transport.isConnected();
+    }
+
+    /**
+     * Retorna identificador da conexão sobre a qual o fluxo trafega
+     * @return identificador (em geral valor da porta do lado do cliente)
+     */
+    @Override
+    public int getId() {
+        return transport.getId();
+    }
+
+    public int getStreamId() {
+        return streamId;
+    }
+
+    /**
+     * Encerra o fluxo (a conexão permanece aberta para os demais fluxos).
+     * Respostas que cheguem depois são descartadas
+     */
+    @Override
+    public void disconnect() {
+        demultiplexer.remove(this);
+    }
+
+    //<editor-fold desc="Métodos utilizados pelo demultiplexador">
+    /** Enfileira mensagem recebida */
+    void deliver(UnicastMessage message) {
+        inbound.add(message);
+    }
+
+    /** Indica se há mensagens recebidas aguardando processamento */
+    boolean hasMessage() {
+        return !inbound.isEmpty();
+    }
+
+    /** Marca fluxo como encerrado, desbloqueando leitura pendente */
+    void close() {
+        if (closed)
+            return;
+        closed = true;
+        inbound.add(END_OF_STREAM);
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,123 @@
+package edu.utfpr.guilhermej.sisdist.av1.network;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encaminha as mensagens recebidas em uma conexão aos fluxos ({@link UnicastStream}) correspondentes.
+ * Do lado do cliente, fluxos são abertos a cada requisição e respostas de fluxos desconhecidos
+ * (já encerrados) são descartadas. Do lado do servidor, um fluxo desconhecido inicia uma nova sessão,
+ * que permanece registrada até ser atendida por completo.
+ */
+class UnicastStreamDemultiplexer {
+    /** Conexão física */
+    private final IUnicastStreamTransport transport;
+    /** Fluxos ativos, por identificador */
+    private final Map<Integer, UnicastStream> streams;
+    /** flag para indicar que conexão foi encerrada */
+    private boolean closed = false;
+
+    UnicastStreamDemultiplexer(IUnicastStreamTransport transport) {
+        this.transport = transport;
+        streams = new HashMap<>();
+    }
+
+    /**
+     * Abre novo fluxo (lado do cliente)
+     * @param streamId identificador do fluxo
+     * @return fluxo aberto
+     * @throws IOException caso conexão tenha sido encerrada ou o identificador esteja em uso
+     */
+    synchronized UnicastStream open(int streamId) throws IOException {
+        if (closed)
+            throw new IOException("TCP Connection closed.");
+        if (streams.containsKey(streamId))
+            throw new IOException("TCP Stream " + streamId + " already open.");
+        UnicastStream stream = new UnicastStream(streamId, transport, this);
+        streams.put(streamId, stream);
+        return stream;
+    }
+
+    /**
+     * Encaminha mensagem a fluxo aberto (lado do cliente)
+     * @param message mensagem recebida
+     * @return false caso o fluxo não exista mais e a mensagem tenha sido descartada
+     */
+    synchronized boolean deliver(UnicastMessage message) {
+        UnicastStream stream = streams.get(message.getStreamId());
+        if (stream == null)
+            return false;
+        stream.deliver(message);
+        return true;
+    }
+
+    /**
+     * Encaminha mensagem ao fluxo, criando-o caso seja o inicio de uma nova sessão (lado do servidor)
+     * @param message mensagem recebida
+     * @return novo fluxo que deve ser atendido, ou null caso a mensagem pertença a uma sessão em andamento
+     */
+    synchronized UnicastStream accept(UnicastMessage message) {
+        if (closed)
+            return null;
+        UnicastStream stream = streams.get(message.getStreamId());
+        boolean created = stream == null;
+        if (created) {
+            stream = new UnicastStream(message.getStreamId(), transport, this);
+            streams.put(message.getStreamId(), stream);
+        }
+        stream.deliver(message);
+        return created ? stream : null;
+    }
+
+    /**
+     * Finaliza atendimento de uma sessão (lado do servidor). Caso novas mensagens tenham chego
+     * ao fluxo durante o atendimento, ele permanece registrado para nova sessão
+     * @param stream fluxo atendido
+     * @return true caso o fluxo deva ser atendido novamente
+     */
+    synchronized boolean finishSession(UnicastStream stream) {
+        if (streams.get(stream.getStreamId()) != stream)
+            return false;
+        if (stream.hasMessage())
+            return true;
+        streams.remove(stream.getStreamId());
+        stream.close();
+        return false;
+    }
+
+    /**
+     * Remove e encerra um fluxo
+     * @param stream fluxo encerrado
+     */
+    void remove(UnicastStream stream) {
+        synchronized (this) {
+            if (streams.get(stream.getStreamId()) == stream)
+                streams.remove(stream.getStreamId());
+        }
+        stream.close();
+    }
+
+    /**
+     * Retorna se não há fluxos ativos
+     * @return true caso conexão esteja ociosa
+     */
+    synchronized boolean isEmpty() {
+        return streams.isEmpty();
+    }
+
+    /**
+     * Encerra todos os fluxos (conexão encerrada), desbloqueando leituras pendentes
+     */
+    void closeAll() {
+        List<UnicastStream> active;
+        synchronized (this) {
+            closed = true;
+            active = new ArrayList<>(streams.values());
+            streams.clear();
+        }
+        active.forEach(UnicastStream::close);
+    }
+}
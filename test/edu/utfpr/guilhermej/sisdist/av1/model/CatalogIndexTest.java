@@ -0,0 +1,165 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import edu.utfpr.guilhermej.sisdist.av1.util.Pair;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes de {@link CatalogIndex}: ofertas de vários vendedores e descrições em blocos do índice ordenado,
+ * comparadas a um modelo de referência, nos armazenamentos no heap e mapeado
+ */
+public class CatalogIndexTest {
+    @Test
+    public void heapStoreMatchesReference() throws IOException {
+        try (CatalogIndex index = new CatalogIndex()) {
+            randomOperations(index);
+        }
+    }
+
+    @Test
+    public void mappedStoreMatchesReference() throws IOException {
+        Path file = Files.createTempFile("catalog-index", ".dat");
+        try (CatalogIndex index = new CatalogIndex(new OfferStore(new MappedOfferRecords(file)))) {
+            randomOperations(index);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void removeOfferIsPerSellerAndPerUnit() throws IOException {
+        try (CatalogIndex index = new CatalogIndex()) {
+            PeerOpponent first = seller(1, 0);
+            PeerOpponent second = seller(2, 0);
+            index.addOffer(first, item("a", 10));
+            index.addOffer(first, item("a", 10));
+            index.addOffer(second, item("a", 10));
+
+            assertFalse(index.removeOffer(second, item("a", 11)));
+            assertFalse(index.removeOffer(second, item("b", 10)));
+            assertTrue(index.removeOffer(first, item("a", 10)));
+            assertEquals(Collections.singletonList(item("a", 10)), index.getOffers(first));
+            assertTrue(index.removeOffer(first, item("a", 10)));
+            assertFalse(index.removeOffer(first, item("a", 10)));
+            assertTrue(index.getOffers(first).isEmpty());
+            assertEquals(Collections.singletonList(item("a", 10)), index.getOffers(second));
+        }
+    }
+
+    @Test
+    public void bestOfferPrefersLowerPriceThenHigherReputation() throws IOException {
+        try (CatalogIndex index = new CatalogIndex()) {
+            PeerOpponent trusted = seller(1, 5);
+            PeerOpponent unknown = seller(2, 0);
+            index.addOffer(unknown, item("a", 10));
+            index.addOffer(trusted, item("a", 10));
+            index.addOffer(trusted, item("a", 12));
+            assertSame(trusted, index.getBestOffer("a", null).getLeft());
+            assertSame(unknown, index.getBestOffer("a", trusted.getUuid()).getLeft());
+
+            index.setReputation(unknown, 9);
+            assertSame(unknown, index.getBestOffer("a", null).getLeft());
+            index.addOffer(trusted, item("a", 9));
+            assertEquals(9, index.getBestOffer("a", null).getRight().getPrice());
+            assertNull(index.getBestOffer("b", null));
+        }
+    }
+
+    @Test
+    public void removedSellerReleasesDescriptions() throws IOException {
+        try (CatalogIndex index = new CatalogIndex()) {
+            PeerOpponent removed = seller(1, 0);
+            PeerOpponent kept = seller(2, 0);
+            for (int i = 0; i < 3 * OfferOrder.BLOCK_SIZE; i++)
+                index.addOffer(removed, item("d" + i % 5, i));
+            index.addOffer(kept, item("d0", 1000));
+            index.removeSeller(removed);
+
+            assertTrue(index.getOffers(removed).isEmpty());
+            assertNull(index.getBestOffer("d1", null));
+            assertSame(kept, index.getBestOffer("d0", null).getLeft());
+            //Identificadores liberados (vendedor e descrições) são reutilizados por novas ofertas
+            PeerOpponent next = seller(3, 0);
+            index.addOffer(next, item("other", 1));
+            assertEquals("other", index.getBestOffer("other", null).getRight().getDescription());
+            assertNull(index.getBestOffer("d1", null));
+        }
+    }
+
+    /**
+     * Aplica adições e remoções aleatórias ao índice e a um modelo de referência (vendedor -> ofertas),
+     * comparando ofertas por vendedor e por descrição
+     */
+    private static void randomOperations(CatalogIndex index) {
+        Random random = new Random(16);
+        List<PeerOpponent> sellers = new ArrayList<>();
+        Map<PeerOpponent, List<SaleItem>> expected = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            sellers.add(seller(i, random.nextInt(3)));
+            expected.put(sellers.get(i), new ArrayList<>());
+        }
+        for (int operation = 0; operation < 20000; operation++) {
+            PeerOpponent seller = sellers.get(random.nextInt(sellers.size()));
+            SaleItem item = item("d" + random.nextInt(10), random.nextInt(50));
+            int kind = random.nextInt(100);
+            if (kind < 60) {
+                index.addOffer(seller, item);
+                expected.get(seller).add(item);
+            }
+            else if (kind < 99)
+                assertEquals(expected.get(seller).remove(item), index.removeOffer(seller, item));
+            else {
+                index.removeSeller(seller);
+                expected.get(seller).clear();
+            }
+        }
+        for (PeerOpponent seller : sellers)
+            assertEquals(sorted(expected.get(seller)), sorted(index.getOffers(seller)));
+        for (int description = 0; description < 10; description++) {
+            List<Pair<PeerOpponent, SaleItem>> offers = index.getBestOffers("d" + description, null, null,
+                    Integer.MAX_VALUE, seller -> true).getOffers();
+            //Ofertas idênticas de um vendedor são retornadas uma única vez
+            Set<String> distinct = new HashSet<>();
+            for (PeerOpponent seller : sellers) {
+                for (SaleItem item : expected.get(seller)) {
+                    if (item.getDescription().equals("d" + description))
+                        distinct.add(seller.getUuid() + "/" + item.getPrice());
+                }
+            }
+            assertEquals(distinct.size(), offers.size());
+            for (int i = 1; i < offers.size(); i++) {
+                long previous = offers.get(i - 1).getRight().getPrice();
+                long price = offers.get(i).getRight().getPrice();
+                assertTrue(previous <= price);
+                if (previous == price)
+                    assertTrue(offers.get(i - 1).getLeft().getReputation() >= offers.get(i).getLeft().getReputation());
+            }
+        }
+    }
+
+    private static List<String> sorted(List<SaleItem> items) {
+        List<String> keys = new ArrayList<>();
+        for (SaleItem item : items)
+            keys.add(item.getDescription() + "/" + item.getPrice());
+        Collections.sort(keys);
+        return keys;
+    }
+
+    static PeerOpponent seller(long id, int reputation) {
+        return new PeerOpponent()
+                .setUuid(new UUID(0, id))
+                .setReputation(reputation);
+    }
+
+    static SaleItem item(String description, long price) {
+        return new SaleItem()
+                .setDescription(description)
+                .setPrice(price);
+    }
+}
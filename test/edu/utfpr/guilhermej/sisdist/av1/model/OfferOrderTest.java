@@ -0,0 +1,195 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes de {@link OfferOrder}: ordem das entradas através de divisões e remoções de blocos,
+ * e preços repetidos distribuídos por vários blocos
+ */
+public class OfferOrderTest {
+    private static final int BLOCK_SIZE = OfferOrder.BLOCK_SIZE;
+
+    @Test
+    public void emptyOrder() {
+        OfferOrder order = new OfferOrder();
+        assertEquals(0, order.size());
+        assertFalse(order.seek(Long.MIN_VALUE).valid());
+        assertEquals(OfferStore.NONE, order.find(0, 0));
+        assertFalse(order.remove(0, 0, 0));
+    }
+
+    @Test
+    public void insertAndRemoveAcrossSplits() {
+        Random random = new Random(17);
+        OfferOrder order = new OfferOrder();
+        TreeSet<Entry> expected = new TreeSet<>();
+        //Entradas suficientes para várias divisões, inseridas fora de ordem
+        for (int slot = 0; slot < 10 * BLOCK_SIZE; slot++) {
+            Entry entry = new Entry(random.nextInt(200) - 100, random.nextInt(8), slot);
+            order.insert(entry.price, entry.id, entry.slot);
+            expected.add(entry);
+            if (slot % BLOCK_SIZE == 0)
+                assertEntries(expected, order);
+        }
+        assertEntries(expected, order);
+
+        //Remoções em ordem aleatória até esvaziar, removendo blocos vazios
+        List<Entry> removals = new ArrayList<>(expected);
+        Collections.shuffle(removals, random);
+        for (Entry entry : removals) {
+            assertTrue(order.remove(entry.price, entry.id, entry.slot));
+            assertFalse(order.remove(entry.price, entry.id, entry.slot));
+            expected.remove(entry);
+            if (expected.size() % BLOCK_SIZE == 0)
+                assertEntries(expected, order);
+        }
+        assertEquals(0, order.size());
+        assertFalse(order.seek(Long.MIN_VALUE).valid());
+
+        //Índice esvaziado continua utilizável
+        order.insert(5, 1, 2);
+        assertEquals(2, order.find(5, 1));
+    }
+
+    @Test
+    public void ascendingAndDescendingInsertions() {
+        //Inserções sempre no fim ou sempre no início dividem sempre o mesmo bloco
+        OfferOrder ascending = new OfferOrder();
+        OfferOrder descending = new OfferOrder();
+        TreeSet<Entry> expected = new TreeSet<>();
+        int count = 5 * BLOCK_SIZE + 3;
+        for (int i = 0; i < count; i++) {
+            ascending.insert(i, 0, i);
+            descending.insert(count - 1 - i, 0, count - 1 - i);
+            expected.add(new Entry(i, 0, i));
+        }
+        assertEntries(expected, ascending);
+        assertEntries(expected, descending);
+    }
+
+    @Test
+    public void duplicatePricesAcrossBlockBoundaries() {
+        OfferOrder order = new OfferOrder();
+        TreeSet<Entry> expected = new TreeSet<>();
+        //Mesmo preço e mesmo identificador (ofertas idênticas) em mais de três blocos, entre preços menores e maiores
+        int count = 3 * BLOCK_SIZE + 1;
+        for (int slot = count - 1; slot >= 0; slot--) {
+            order.insert(10, 7, slot);
+            expected.add(new Entry(10, 7, slot));
+        }
+        for (int slot = count; slot < count + BLOCK_SIZE; slot++) {
+            Entry entry = new Entry(slot % 2 == 0 ? 9 : 11, slot % 3, slot);
+            order.insert(entry.price, entry.id, entry.slot);
+            expected.add(entry);
+        }
+        assertEntries(expected, order);
+
+        //Localiza a primeira entrada repetida, mesmo que esteja no fim de um bloco
+        assertEquals(0, order.find(10, 7));
+        assertEquals(OfferStore.NONE, order.find(10, 6));
+        assertEquals(OfferStore.NONE, order.find(10, 8));
+
+        //Seek posiciona na primeira entrada do preço, e percorre todas as repetidas em ordem de posição
+        OfferOrder.Cursor cursor = order.seek(10);
+        for (int slot = 0; slot < count; slot++, cursor.next()) {
+            assertTrue(cursor.valid());
+            assertEquals(10, cursor.price());
+            assertEquals(slot, cursor.slot());
+        }
+        assertEquals(11, cursor.price());
+
+        //Remove entradas repetidas nas fronteiras dos blocos (metade e fim de um bloco após divisões)
+        for (int slot : new int[]{0, BLOCK_SIZE / 2 - 1, BLOCK_SIZE / 2, BLOCK_SIZE - 1, BLOCK_SIZE, count - 1}) {
+            assertTrue(order.remove(10, 7, slot));
+            expected.remove(new Entry(10, 7, slot));
+        }
+        assertEntries(expected, order);
+        assertEquals(1, order.find(10, 7));
+
+        //Remove todas as restantes do preço: o preço deixa de existir, os vizinhos permanecem
+        for (Entry entry : new ArrayList<>(expected)) {
+            if (entry.price == 10) {
+                assertTrue(order.remove(entry.price, entry.id, entry.slot));
+                expected.remove(entry);
+            }
+        }
+        assertEntries(expected, order);
+        assertEquals(OfferStore.NONE, order.find(10, 7));
+        assertEquals(11, order.seek(10).price());
+    }
+
+    @Test
+    public void seekBetweenAndBeyondPrices() {
+        OfferOrder order = new OfferOrder();
+        for (int slot = 0; slot < 4 * BLOCK_SIZE; slot++)
+            order.insert(slot * 2L, 0, slot);
+        for (int slot = 0; slot < 4 * BLOCK_SIZE; slot++) {
+            assertEquals(slot * 2L, order.seek(slot * 2L).price());
+            assertEquals(slot * 2L, order.seek(slot * 2L - 1).price());
+        }
+        assertEquals(0, order.seek(Long.MIN_VALUE).price());
+        assertFalse(order.seek(8L * BLOCK_SIZE).valid());
+        assertFalse(order.seek(Long.MAX_VALUE).valid());
+    }
+
+    /**
+     * Verifica tamanho, entradas percorridas em ordem e localização de cada entrada
+     */
+    private static void assertEntries(TreeSet<Entry> expected, OfferOrder order) {
+        assertEquals(expected.size(), order.size());
+        OfferOrder.Cursor cursor = order.seek(Long.MIN_VALUE);
+        for (Entry entry : expected) {
+            assertTrue(cursor.valid());
+            assertEquals(entry, new Entry(cursor.price(), cursor.id(), cursor.slot()));
+            cursor.next();
+        }
+        assertFalse(cursor.valid());
+        for (Entry entry : expected)
+            assertEquals(expected.ceiling(new Entry(entry.price, entry.id, Integer.MIN_VALUE)).slot,
+                    order.find(entry.price, entry.id));
+    }
+
+    /**
+     * Entrada de referência, na ordem do índice (preço, identificador, posição)
+     */
+    private static class Entry implements Comparable<Entry> {
+        final long price;
+        final int id;
+        final int slot;
+
+        Entry(long price, int id, int slot) {
+            this.price = price;
+            this.id = id;
+            this.slot = slot;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            int result = Long.compare(price, o.price);
+            if (result == 0)
+                result = Integer.compare(id, o.id);
+            if (result == 0)
+                result = Integer.compare(slot, o.slot);
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Entry && compareTo((Entry) obj) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(price, id, slot);
+        }
+
+        @Override
+        public String toString() {
+            return price + "/" + id + "/" + slot;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package edu.utfpr.guilhermej.sisdist.av1.model;
+
+import edu.utfpr.guilhermej.sisdist.av1.network.UnicastMessage;
+import edu.utfpr.guilhermej.sisdist.av1.util.Pair;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Predicate;
+
+import static edu.utfpr.guilhermej.sisdist.av1.model.CatalogIndexTest.item;
+import static edu.utfpr.guilhermej.sisdist.av1.model.CatalogIndexTest.seller;
+import static org.junit.Assert.*;
+
+/**
+ * Testes da pesquisa paginada: codificação de {@link SearchCursor} e continuação das páginas de
+ * {@link CatalogIndex#getBestOffers}, inclusive em empates (mesmo preço e reputação) na fronteira das páginas
+ * e com ofertas adicionadas ou removidas entre as páginas
+ */
+public class SearchCursorTest {
+    private static final Predicate<PeerOpponent> ANY = seller -> true;
+
+    @Test
+    public void cursorRoundTrip() {
+        UUID uuid = new UUID(Long.MIN_VALUE, -1);
+        for (long price : new long[]{0, -1, Long.MIN_VALUE, Long.MAX_VALUE}) {
+            SearchCursor decoded = SearchCursor.decode(new SearchCursor(price, -7, uuid).encode());
+            assertEquals(price, decoded.getPrice());
+            assertEquals(-7, decoded.getReputation());
+            assertEquals(uuid, decoded.getSellerUuid());
+        }
+    }
+
+    @Test
+    public void emptyOrInvalidCursorStartsFromBest() {
+        assertNull(SearchCursor.decode(null));
+        assertNull(SearchCursor.decode(UnicastMessage.NO_CURSOR));
+        assertNull(SearchCursor.decode(new byte[27]));
+        assertNull(SearchCursor.decode(new byte[29]));
+    }
+
+    @Test
+    public void tiesOrderedByReputationThenSellerUuid() {
+        SearchCursor cursor = new SearchCursor(10, 5, new UUID(0, 5));
+        assertTrue(cursor.isBefore(4, new UUID(0, 1)));
+        assertTrue(cursor.isBefore(5, new UUID(0, 6)));
+        assertFalse(cursor.isBefore(5, new UUID(0, 5)));
+        assertFalse(cursor.isBefore(5, new UUID(0, 4)));
+        assertFalse(cursor.isBefore(6, new UUID(0, 9)));
+    }
+
+    @Test
+    public void pagesContinuePastTiesAtBoundary() throws IOException {
+        try (CatalogIndex index = new CatalogIndex()) {
+            //Preço 10: sete vendedores empatados (mesma reputação) e três de reputações distintas
+            for (int i = 0; i < 10; i++)
+                index.addOffer(seller(i, i < 7 ? 1 : i), item("x", 10));
+            for (int i = 0; i < 4; i++)
+                index.addOffer(seller(20 + i, 0), item("x", i % 2 == 0 ? 5 : 15));
+            List<Pair<PeerOpponent, SaleItem>> all = index.getBestOffers("x", null, null, 100, ANY).getOffers();
+            assertEquals(14, all.size());
+
+            //Qualquer tamanho de página corta o empate em posições diferentes
+            for (int limit = 1; limit <= all.size() + 1; limit++)
+                assertEquals(keys(all), keys(allPages(index, null, limit, ANY)));
+        }
+    }
+
+    @Test
+    public void identicalOffersOfOneSellerReturnedOnce() throws IOException {
+        try (CatalogIndex index = new CatalogIndex()) {
+            PeerOpponent seller = seller(1, 0);
+            for (int i = 0; i < 3; i++)
+                index.addOffer(seller, item("x", 10));
+            index.addOffer(seller(2, 0), item("x", 10));
+            OfferPage first = index.getBestOffers("x", null, null, 1, ANY);
+            assertNotNull(first.getNext());
+            OfferPage second = index.getBestOffers("x", null, first.getNext(), 1, ANY);
+            assertEquals(1, second.getOffers().size());
+            assertNotSame(first.getOffers().get(0).getLeft(), second.getOffers().get(0).getLeft());
+            assertNull(second.getNext());
+        }
+    }
+
+    @Test
+    public void changesBetweenPagesNeitherRepeatNorSkip() throws IOException {
+        try (CatalogIndex index = new CatalogIndex()) {
+            List<PeerOpponent> sellers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                sellers.add(seller(i, 0));
+                index.addOffer(sellers.get(i), item("x", 10 * (i / 2)));
+            }
+            OfferPage first = index.getBestOffers("x", null, null, 3, ANY);
+            Pair<PeerOpponent, SaleItem> last = first.getOffers().get(2);
+
+            //Oferta melhor que a última retornada, e remoção da própria última retornada
+            index.addOffer(seller(100, 0), item("x", 0));
+            assertTrue(index.removeOffer(last.getLeft(), last.getRight()));
+            //Oferta empatada com a última, mas posterior a ela
+            index.addOffer(seller(101, 0), item("x", last.getRight().getPrice()));
+
+            List<String> resumed = keys(allPages(index, first.getNext(), 2, ANY));
+            List<String> expected = new ArrayList<>();
+            for (int i = 3; i < 8; i++)
+                expected.add(key(sellers.get(i), 10 * (i / 2)));
+            expected.add(1, key(seller(101, 0), last.getRight().getPrice()));
+            assertEquals(expected, resumed);
+        }
+    }
+
+    @Test
+    public void ineligibleAndExcludedSellersDoNotShortenPages() throws IOException {
+        try (CatalogIndex index = new CatalogIndex()) {
+            Set<UUID> ineligible = new HashSet<>();
+            for (int i = 0; i < 12; i++) {
+                PeerOpponent seller = seller(i, 0);
+                if (i % 3 == 0)
+                    ineligible.add(seller.getUuid());
+                index.addOffer(seller, item("x", i / 4));
+            }
+            Predicate<PeerOpponent> eligible = seller -> !ineligible.contains(seller.getUuid());
+            UUID excluded = new UUID(0, 1);
+
+            SearchCursor cursor = null;
+            int returned = 0;
+            do {
+                OfferPage page = index.getBestOffers("x", excluded, cursor, 2, eligible);
+                for (Pair<PeerOpponent, SaleItem> offer : page.getOffers()) {
+                    assertTrue(eligible.test(offer.getLeft()));
+                    assertNotEquals(excluded, offer.getLeft().getUuid());
+                }
+                //Somente a última página pode ter menos ofertas que o limite
+                if (page.getNext() != null)
+                    assertEquals(2, page.getOffers().size());
+                returned += page.getOffers().size();
+                cursor = page.getNext();
+            } while (cursor != null);
+            assertEquals(12 - 4 - 1, returned);
+        }
+    }
+
+    @Test
+    public void nonPositiveLimitReturnsEmptyPage() throws IOException {
+        try (CatalogIndex index = new CatalogIndex()) {
+            index.addOffer(seller(1, 0), item("x", 1));
+            for (int limit : new int[]{0, -1}) {
+                OfferPage page = index.getBestOffers("x", null, null, limit, ANY);
+                assertTrue(page.getOffers().isEmpty());
+                assertNull(page.getNext());
+            }
+        }
+    }
+
+    /**
+     * Percorre todas as páginas a partir de um cursor, transmitindo o cursor codificado entre elas
+     */
+    private static List<Pair<PeerOpponent, SaleItem>> allPages(CatalogIndex index, SearchCursor after, int limit,
+                                                               Predicate<PeerOpponent> eligible) {
+        List<Pair<PeerOpponent, SaleItem>> offers = new ArrayList<>();
+        SearchCursor cursor = after;
+        do {
+            OfferPage page = index.getBestOffers("x", null, cursor, limit, eligible);
+            assertTrue(page.getOffers().size() <= limit);
+            offers.addAll(page.getOffers());
+            cursor = page.getNext() != null ? SearchCursor.decode(page.getNext().encode()) : null;
+        } while (cursor != null);
+        return offers;
+    }
+
+    private static List<String> keys(List<Pair<PeerOpponent, SaleItem>> offers) {
+        List<String> keys = new ArrayList<>();
+        for (Pair<PeerOpponent, SaleItem> offer : offers)
+            keys.add(key(offer.getLeft(), offer.getRight().getPrice()));
+        return keys;
+    }
+
+    private static String key(PeerOpponent seller, long price) {
+        return seller.getUuid() + "/" + price;
+    }
+}
@@ -0,0 +1,178 @@
+package edu.utfpr.guilhermej.sisdist.av1.network;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes de {@link UnicastMessageCodec}: ida e volta de cada tipo de mensagem, com valores negativos,
+ * extremos e varints de vários bytes, e quadros truncados ou inválidos
+ */
+public class UnicastMessageCodecTest {
+    private static final long[] LONG_VALUES = {
+            0, 1, -1, 99, -99, 100, -100, 1L << 40, -(1L << 40), Long.MAX_VALUE, Long.MIN_VALUE
+    };
+    private static final int[] INT_VALUES = {
+            0, 1, -1, 127, 128, 16383, 16384, Integer.MAX_VALUE, Integer.MIN_VALUE
+    };
+    private static final UUID UUID_VALUE = new UUID(Long.MIN_VALUE, -1);
+
+    private final UnicastMessageCodec codec = new UnicastMessageCodec();
+
+    @Test
+    public void pricesRoundTrip() throws IOException {
+        for (long price : LONG_VALUES) {
+            assertItem(UnicastMessage.Type.ADD, price, roundTrip(UnicastMessage.add("item", price)));
+            assertItem(UnicastMessage.Type.BUY, price, roundTrip(UnicastMessage.buy("item", price)));
+            assertItem(UnicastMessage.Type.REMOVE, price, roundTrip(UnicastMessage.remove("item", price)));
+
+            UnicastMessage found = roundTrip(UnicastMessage.found("item", price, UUID_VALUE, new byte[]{-1, 0, 1}));
+            assertItem(UnicastMessage.Type.FOUND, price, found);
+            assertEquals(UUID_VALUE, found.getUuid());
+            assertArrayEquals(new byte[]{-1, 0, 1}, found.getData());
+        }
+    }
+
+    @Test
+    public void catalogVersionsRoundTrip() throws IOException {
+        for (long version : LONG_VALUES) {
+            assertEquals(version, roundTrip(UnicastMessage.sync(version)).getCatalogVersion());
+            assertEquals(version, roundTrip(UnicastMessage.version(version)).getCatalogVersion());
+            assertEquals(version, roundTrip(UnicastMessage.delta(version)).getCatalogVersion());
+        }
+    }
+
+    @Test
+    public void varintFieldsRoundTrip() throws IOException {
+        byte[] cursor = new byte[]{1, 2, 3};
+        for (int value : INT_VALUES) {
+            UnicastMessage error = roundTrip(UnicastMessage.error(value, "failure"));
+            assertEquals(value, error.getCode());
+            assertEquals("failure", error.getErrorMessage());
+
+            UnicastMessage search = roundTrip(UnicastMessage.search("item", value, cursor));
+            assertEquals(value, search.getLimit());
+            assertEquals("item", search.getDescription());
+            assertArrayEquals(cursor, search.getCursor());
+        }
+    }
+
+    @Test
+    public void longTextAndBytesRoundTrip() throws IOException {
+        //Texto com caracteres de 1 a 4 bytes em UTF-8, longo o suficiente para um tamanho de 2 bytes
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+            text.append("aç€😀");
+        byte[] data = new byte[20000];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) i;
+
+        assertEquals(text.toString(), roundTrip(UnicastMessage.add(text.toString(), 1)).getDescription());
+        assertArrayEquals(data, roundTrip(UnicastMessage.encrypted(data)).getData());
+        assertArrayEquals(data, roundTrip(UnicastMessage.replica(UUID_VALUE, data)).getData());
+        assertArrayEquals(new byte[0], roundTrip(UnicastMessage.foundEnd(UnicastMessage.NO_CURSOR)).getCursor());
+    }
+
+    @Test
+    public void framesRoundTripThroughStream() throws IOException {
+        int[] streamIds = {0, 1, 127, 128, 16384, Integer.MAX_VALUE};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int streamId : streamIds)
+            codec.write(UnicastMessage.add("item", -streamId).withStreamId(streamId), out);
+
+        UnicastMessageCodec reader = new UnicastMessageCodec();
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        for (int streamId : streamIds) {
+            UnicastMessage message = reader.read(in);
+            assertEquals(streamId, message.getStreamId());
+            assertItem(UnicastMessage.Type.ADD, -streamId, message);
+        }
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    public void encodedFrameMatchesStreamFrame() throws IOException {
+        UnicastMessage message = UnicastMessage.introduce(UUID_VALUE).withStreamId(300);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(message, out);
+        byte[] frame = codec.encodeFrame(message);
+        assertArrayEquals(out.toByteArray(), frame);
+
+        int length = UnicastMessageCodec.peekVarint(frame, 0, frame.length);
+        int header = UnicastMessageCodec.varintSize(length);
+        assertEquals(frame.length, header + length);
+        UnicastMessage decoded = codec.decodeFrame(frame, header, length);
+        assertEquals(300, decoded.getStreamId());
+        assertEquals(UUID_VALUE, decoded.getUuid());
+    }
+
+    @Test
+    public void incompleteVarintIsNotConsumed() throws IOException {
+        byte[] frame = codec.encodeFrame(UnicastMessage.ok().withStreamId(1 << 20));
+        //Tamanho do quadro é completo, mas o identificador do fluxo (3 bytes) ainda não
+        assertEquals(-1, UnicastMessageCodec.peekVarint(frame, 1, 3));
+    }
+
+    @Test
+    public void truncatedBodiesAreRejected() throws IOException {
+        UnicastMessage[] messages = {
+                UnicastMessage.add("item", Long.MIN_VALUE),
+                UnicastMessage.found("item", 1, UUID_VALUE, new byte[]{1}),
+                UnicastMessage.search("item", Integer.MIN_VALUE, new byte[]{1, 2}),
+                UnicastMessage.error(-1, "failure"),
+                UnicastMessage.version(-1)
+        };
+        for (UnicastMessage message : messages) {
+            byte[] body = codec.encode(message);
+            for (int length = 0; length < body.length; length++) {
+                try {
+                    codec.decode(Arrays.copyOf(body, length), 0, length);
+                    fail("Decoded truncated " + message.getType() + " with " + length + " bytes");
+                } catch (StreamCorruptedException e) {
+                    //Esperado
+                }
+            }
+        }
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void unknownOpcodeIsRejected() throws IOException {
+        codec.decode(new byte[]{(byte) 0x7F}, 0, 1);
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void oversizedFrameIsRejected() throws IOException {
+        //Tamanho do quadro acima de MAX_FRAME_SIZE (varint de 2^28)
+        codec.read(new ByteArrayInputStream(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01}));
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void malformedVarintIsRejected() throws IOException {
+        byte[] continued = new byte[6];
+        Arrays.fill(continued, (byte) 0xFF);
+        UnicastMessageCodec.peekVarint(continued, 0, continued.length);
+    }
+
+    private UnicastMessage roundTrip(UnicastMessage message) throws IOException {
+        byte[] body = codec.encode(message);
+        //Corpo em posição deslocada de um buffer maior, como nos buffers de leitura das conexões
+        byte[] buffer = new byte[body.length + 7];
+        System.arraycopy(body, 0, buffer, 3, body.length);
+        UnicastMessage decoded = codec.decode(buffer, 3, body.length);
+        assertEquals(message.getType(), decoded.getType());
+        return decoded;
+    }
+
+    private static void assertItem(UnicastMessage.Type type, long price, UnicastMessage message) {
+        assertEquals(type, message.getType());
+        assertEquals("item", message.getDescription());
+        assertEquals(price, message.getPrice());
+    }
+}